@@ -0,0 +1,315 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Weighted adjacency of one vertex, stored as two parallel int arrays sorted by neighbor ID.
+ * Lookups binary search the neighbors, and iterating is a plain walk over the arrays.
+ * An edge costs 8 bytes (plus growth slack), instead of a map entry and two boxed Integers.
+ * <p>
+ * Edges can also carry extra attribute columns, one long array per column parallel to the others.
+ * Doubles are stored as their raw bits. Columns cost nothing until the first one is added.
+ */
+class Adjacency {
+    private static final int[] EMPTY = {};
+
+    private int[] targets;
+    private int[] weights;
+    private int size;
+    //extra edge attributes by column then position, and the value of each column for new edges.
+    //Both are null without columns
+    private long[][] columns;
+    private long[] defaults;
+
+    Adjacency() {
+        targets = EMPTY;
+        weights = EMPTY;
+        size = 0;
+    }
+
+    /**
+     * Creates an empty adjacency with extra edge columns
+     *
+     * @param defaults value for new edges of every column
+     */
+    Adjacency(long[] defaults) {
+        this();
+        if (defaults.length > 0) {
+            this.columns = new long[defaults.length][0];
+            this.defaults = defaults;
+        }
+    }
+
+    /**
+     * @return number of edges
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param i position between 0 and size - 1
+     * @return ID of the i-th neighbor, in ascending order of IDs
+     */
+    int target(int i) {
+        return targets[i];
+    }
+
+    /**
+     * @param i position between 0 and size - 1
+     * @return weight of the edge to the i-th neighbor
+     */
+    int weight(int i) {
+        return weights[i];
+    }
+
+    /**
+     * @return position of the neighbor, or a negative number if there is no edge to it
+     */
+    int indexOf(int target) {
+        return Arrays.binarySearch(targets, 0, size, target);
+    }
+
+    boolean contains(int target) {
+        return indexOf(target) >= 0;
+    }
+
+    /**
+     * Adds an edge, or overwrites the weight of an existing one
+     *
+     * @return true if the edge is new, false if it was overwritten
+     */
+    boolean put(int target, int weight) {
+        int i = indexOf(target);
+        if (i >= 0) {
+            weights[i] = weight;
+            return false;
+        }
+        insertAt(-(i + 1), target, weight);
+        return true;
+    }
+
+    /**
+     * Adds an edge even if there already are edges to the neighbor, right after them.
+     * Used by multigraphs, where {@link #indexOf(int)} and {@link #remove(int)} pick any one of them.
+     */
+    void insert(int target, int weight) {
+        int i = indexOf(target);
+        if (i < 0) {
+            i = -(i + 1);
+        } else {
+            while (i < size && targets[i] == target) {
+                i++;
+            }
+        }
+        insertAt(i, target, weight);
+    }
+
+    /**
+     * @return number of edges to the neighbor, more than 1 only in multigraphs
+     */
+    int count(int target) {
+        int i = indexOf(target);
+        if (i < 0) {
+            return 0;
+        }
+        int first = i;
+        int last = i;
+        while (first > 0 && targets[first - 1] == target) {
+            first--;
+        }
+        while (last + 1 < size && targets[last + 1] == target) {
+            last++;
+        }
+        return last - first + 1;
+    }
+
+    private void insertAt(int i, int target, int weight) {
+        if (size == targets.length) {
+            grow(Math.max(2, size + (size >> 1)));
+        }
+        System.arraycopy(targets, i, targets, i + 1, size - i);
+        System.arraycopy(weights, i, weights, i + 1, size - i);
+        targets[i] = target;
+        weights[i] = weight;
+        if (columns != null) {
+            for (int c = 0; c < columns.length; c++) {
+                System.arraycopy(columns[c], i, columns[c], i + 1, size - i);
+                columns[c][i] = defaults[c];
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Adds many edges at once, growing the arrays at most once
+     *
+     * @param newTargets neighbor IDs in ascending order, none of them already in this adjacency
+     * @param newWeights weights of the new edges
+     * @param count      number of new edges
+     */
+    void addAll(int[] newTargets, int[] newWeights, int count) {
+        int total = size + count;
+        if (total > targets.length) {
+            grow(total);
+        }
+        //merge from the back, so that nothing is overwritten before it is moved
+        int i = size - 1;
+        int j = count - 1;
+        for (int k = total - 1; j >= 0; k--) {
+            if (i >= 0 && targets[i] > newTargets[j]) {
+                targets[k] = targets[i];
+                weights[k] = weights[i];
+                for (int c = 0; columns != null && c < columns.length; c++) {
+                    columns[c][k] = columns[c][i];
+                }
+                i--;
+            } else {
+                targets[k] = newTargets[j];
+                weights[k] = newWeights[j];
+                for (int c = 0; columns != null && c < columns.length; c++) {
+                    columns[c][k] = defaults[c];
+                }
+                j--;
+            }
+        }
+        size = total;
+    }
+
+    /**
+     * Removes the edge to the neighbor
+     *
+     * @return true if the edge was removed, false if it did not exist
+     */
+    boolean remove(int target) {
+        int i = indexOf(target);
+        if (i < 0) {
+            return false;
+        }
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * Removes the edge to the i-th neighbor
+     *
+     * @param i position between 0 and size - 1
+     */
+    void removeAt(int i) {
+        System.arraycopy(targets, i + 1, targets, i, size - i - 1);
+        System.arraycopy(weights, i + 1, weights, i, size - i - 1);
+        for (int c = 0; columns != null && c < columns.length; c++) {
+            System.arraycopy(columns[c], i + 1, columns[c], i, size - i - 1);
+        }
+        size--;
+    }
+
+    /**
+     * Removes every edge to the neighbor, more than one only in multigraphs
+     *
+     * @return number of edges removed
+     */
+    int removeAll(int target) {
+        int removed = 0;
+        while (remove(target)) {
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every edge whose neighbor matches, in one pass over the arrays
+     *
+     * @return number of edges removed
+     */
+    int removeIf(IntPredicate removed) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (removed.test(targets[i])) {
+                continue;
+            }
+            if (kept != i) {
+                targets[kept] = targets[i];
+                weights[kept] = weights[i];
+                for (int c = 0; columns != null && c < columns.length; c++) {
+                    columns[c][kept] = columns[c][i];
+                }
+            }
+            kept++;
+        }
+        int count = size - kept;
+        size = kept;
+        return count;
+    }
+
+    /**
+     * Shrinks the arrays to the number of edges, dropping the growth slack
+     */
+    void trim() {
+        if (targets.length > size) {
+            grow(size);
+        }
+    }
+
+    /**
+     * @param column position of the column
+     * @param i      position between 0 and size - 1
+     * @return attribute of the edge to the i-th neighbor
+     */
+    long column(int column, int i) {
+        return columns[column][i];
+    }
+
+    void setColumn(int column, int i, long value) {
+        columns[column][i] = value;
+    }
+
+    /**
+     * Adds a column at the end, where every existing edge gets its default value
+     *
+     * @param defaults value for new edges of every column, including the new one
+     */
+    void addColumn(long[] defaults) {
+        int c = defaults.length - 1;
+        columns = columns == null ? new long[1][] : Arrays.copyOf(columns, c + 1);
+        columns[c] = new long[targets.length];
+        Arrays.fill(columns[c], 0, size, defaults[c]);
+        this.defaults = defaults;
+    }
+
+    /**
+     * Removes a column, moving the later ones down by one position
+     *
+     * @param defaults value for new edges of every remaining column
+     */
+    void removeColumn(int column, long[] defaults) {
+        if (defaults.length == 0) {
+            columns = null;
+            this.defaults = null;
+            return;
+        }
+        long[][] remaining = new long[defaults.length][];
+        System.arraycopy(columns, 0, remaining, 0, column);
+        System.arraycopy(columns, column + 1, remaining, column, defaults.length - column);
+        columns = remaining;
+        this.defaults = defaults;
+    }
+
+    /**
+     * @return estimated number of bytes held by the arrays of this adjacency
+     */
+    long sizeInBytes() {
+        return (8L + 8L * (columns == null ? 0 : columns.length)) * targets.length;
+    }
+
+    private void grow(int capacity) {
+        targets = Arrays.copyOf(targets, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        for (int c = 0; columns != null && c < columns.length; c++) {
+            columns[c] = Arrays.copyOf(columns[c], capacity);
+        }
+    }
+}
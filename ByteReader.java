@@ -0,0 +1,159 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads whitespace separated integers from text, straight from bytes. There is no String or
+ * boxed number per line or per token, which matters for multi-gigabyte inputs.
+ * Reads either from a channel, through a reused buffer, or from a fixed buffer such as a mapped file.
+ */
+class ByteReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long line;
+
+    /**
+     * Reads from a channel, BUFFER_SIZE bytes at a time
+     */
+    ByteReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.buffer.flip();
+        this.line = 1;
+    }
+
+    /**
+     * Reads the remaining bytes of a buffer
+     */
+    ByteReader(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+        this.line = 1;
+    }
+
+    /**
+     * @return the next byte without consuming it, -1 at the end of the input
+     */
+    int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    boolean atEnd() throws IOException {
+        return peek() == -1;
+    }
+
+    /**
+     * Skips spaces and tabs, but not line breaks
+     */
+    void skipBlanks() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t' || c == '\r') {
+            buffer.get();
+        }
+    }
+
+    /**
+     * Consumes one byte
+     */
+    void skipByte() throws IOException {
+        if (peek() != -1) {
+            buffer.get();
+        }
+    }
+
+    /**
+     * Skips blanks, then checks whether the line has anything left
+     *
+     * @return true at a line break or at the end of the input
+     */
+    boolean atEndOfLine() throws IOException {
+        skipBlanks();
+        int c = peek();
+        return c == '\n' || c == -1;
+    }
+
+    /**
+     * Skips the rest of the line, including the line break
+     */
+    void skipLine() throws IOException {
+        int c;
+        while ((c = peek()) != -1) {
+            buffer.get();
+            if (c == '\n') {
+                line++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Skips blanks, then reads an optionally negative decimal integer
+     *
+     * @throws IOException if there is no integer, or it does not fit into an int
+     */
+    int readInt() throws IOException {
+        long value = readLong();
+        if (value != (int) value) {
+            throw error("Number out of range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Skips blanks, then reads an optionally negative decimal integer
+     *
+     * @throws IOException if there is no integer
+     */
+    long readLong() throws IOException {
+        skipBlanks();
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            buffer.get();
+        }
+        long value = 0;
+        int digits = 0;
+        int c;
+        while ((c = peek()) >= '0' && c <= '9') {
+            buffer.get();
+            value = value * 10 + (c - '0');
+            if (++digits > 18) {
+                throw error("Number out of range");
+            }
+        }
+        if (digits == 0) {
+            throw c == -1 ? new EOFException("Unexpected end of input at line " + line) : error("Expected a number");
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return number of the current line, starting at 1
+     */
+    long line() {
+        return line;
+    }
+
+    IOException error(String message) {
+        return new IOException(message + " at line " + line);
+    }
+
+    private boolean fill() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        return read > 0;
+    }
+}
@@ -0,0 +1,469 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe undirected weighted graph with the same operations as {@link MyGraph}.
+ * <p>
+ * Writers lock only the stripes of the vertices they change. An edge update locks the stripes of
+ * both ends, always in ascending stripe order so that two writers can never deadlock. Readers never
+ * lock: every vertex publishes its edges as an immutable sorted array pair through a volatile field,
+ * and writers replace it with an updated copy. This makes reads cheap and consistent per vertex, at the
+ * cost of copying the edges of a vertex on each write to it.
+ */
+public class ConcurrentGraph<V> {
+    private final ConcurrentHashMap<Integer, Node<V>> vertices;
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final LongAdder edges;
+
+    /**
+     * Creates a graph with 4 lock stripes per available processor
+     */
+    public ConcurrentGraph() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param concurrency expected number of concurrent writers, rounded up to a power of two of lock stripes
+     */
+    public ConcurrentGraph(int concurrency) {
+        int size = Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1;
+        vertices = new ConcurrentHashMap<>();
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+        edges = new LongAdder();
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int numVertices() {
+        return vertices.size();
+    }
+
+    /**
+     * @return number of edges
+     */
+    public int numEdges() {
+        return edges.intValue();
+    }
+
+    /**
+     * Adds a vertex if and only if the vertex ID does not already exist.
+     *
+     * @param id unique ID of the vertex to be added.
+     * @return true if vertex was added, false if not.
+     */
+    public boolean addVertex(int id, V val) {
+        Node<V> node = new Node<>(id, val);
+        while (true) {
+            Node<V> existing = vertices.putIfAbsent(id, node);
+            if (existing == null) {
+                return true;
+            }
+            if (!existing.removed) {
+                return false;
+            }
+            //a removal of the same ID is still cleaning up its edges
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Removes the vertex with the specified ID, along with all edges that are connected to it.
+     *
+     * @param id unique ID of the vertex to be removed.
+     * @return true if vertex was removed, false if not.
+     */
+    public boolean removeVertex(int id) {
+        Node<V> node = vertices.get(id);
+        if (node == null) {
+            return false;
+        }
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            if (node.removed) {
+                return false;
+            }
+            //from now on no edge can be added to this vertex
+            node.removed = true;
+        } finally {
+            lock.unlock();
+        }
+        //the edges can only shrink, remove them one neighbor at a time
+        Edges current;
+        while ((current = node.edges).size > 0) {
+            int neighbor = current.targets[0];
+            lockBoth(id, neighbor);
+            try {
+                Node<V> other = vertices.get(neighbor);
+                if (node.edges.indexOf(neighbor) >= 0) {
+                    node.edges = node.edges.without(neighbor);
+                    if (other != null) {
+                        other.edges = other.edges.without(id);
+                    }
+                    edges.decrement();
+                }
+            } finally {
+                unlockBoth(id, neighbor);
+            }
+        }
+        vertices.remove(id, node);
+        return true;
+    }
+
+    /**
+     * Returns the value store by the vertex of the given ID
+     *
+     * @param id ID of the vertex
+     * @return Value of the vertex. Null if vertex does not exist
+     */
+    public V getVertexValue(int id) {
+        Node<V> node = live(id);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Changes the value of the vertex
+     *
+     * @param id  ID of the vertex
+     * @param val new value of the vertex
+     * @return true if operation was successful, false otherwise
+     */
+    public boolean changeVertexValue(int id, V val) {
+        Node<V> node = live(id);
+        if (node == null) {
+            return false;
+        }
+        node.value = val;
+        return true;
+    }
+
+    /**
+     * Adds an edge of a specified weight between the vertices with ID1 and ID2
+     *
+     * @param id1 ID of one of the vertices
+     * @param id2 ID of the other vertex
+     * @return true if operation was successful, false otherwise
+     */
+    public boolean addEdge(int id1, int id2, int weight) {
+        if (id1 == id2) {
+            return false;
+        }
+        lockBoth(id1, id2);
+        try {
+            Node<V> node1 = live(id1);
+            Node<V> node2 = live(id2);
+            if (node1 == null || node2 == null || node1.edges.indexOf(id2) >= 0) {
+                return false;
+            }
+            node1.edges = node1.edges.with(id2, weight);
+            node2.edges = node2.edges.with(id1, weight);
+            edges.increment();
+            return true;
+        } finally {
+            unlockBoth(id1, id2);
+        }
+    }
+
+    /**
+     * Default {@link #addEdge(int, int, int) addEdge} method with weight set at 1
+     */
+    public boolean addEdge(int id1, int id2) {
+        return addEdge(id1, id2, 1);
+    }
+
+    /**
+     * Removes edge between vertices with ID1 and ID2
+     *
+     * @param id1 ID of one of the vertices
+     * @param id2 ID of the other vertex
+     * @return true if the edge was removed, false otherwise
+     */
+    public boolean removeEdge(int id1, int id2) {
+        if (id1 == id2) {
+            return false;
+        }
+        lockBoth(id1, id2);
+        try {
+            Node<V> node1 = vertices.get(id1);
+            Node<V> node2 = vertices.get(id2);
+            if (node1 == null || node2 == null || node1.edges.indexOf(id2) < 0) {
+                return false;
+            }
+            node1.edges = node1.edges.without(id2);
+            node2.edges = node2.edges.without(id1);
+            edges.decrement();
+            return true;
+        } finally {
+            unlockBoth(id1, id2);
+        }
+    }
+
+    /**
+     * Changes the weight of an existing edge
+     *
+     * @return true if operation was successful, false otherwise
+     */
+    public boolean changeEdgeValue(int id1, int id2, int weight) {
+        if (id1 == id2) {
+            return false;
+        }
+        lockBoth(id1, id2);
+        try {
+            Node<V> node1 = live(id1);
+            Node<V> node2 = live(id2);
+            if (node1 == null || node2 == null || node1.edges.indexOf(id2) < 0) {
+                return false;
+            }
+            node1.edges = node1.edges.with(id2, weight);
+            node2.edges = node2.edges.with(id1, weight);
+            return true;
+        } finally {
+            unlockBoth(id1, id2);
+        }
+    }
+
+    /**
+     * Gets value of the edge between vertices of ID1 and ID2
+     *
+     * @return value of the edge, null if the edge does not exist
+     */
+    public Integer getEdgeValue(int id1, int id2) {
+        Node<V> node = live(id1);
+        if (node == null) {
+            return null;
+        }
+        Edges current = node.edges;
+        int i = current.indexOf(id2);
+        return i < 0 ? null : current.weights[i];
+    }
+
+    /**
+     * Checks whether or not the vertex with the given ID exists in the graph
+     *
+     * @param id ID of the vertex
+     * @return true if vertex is in graph, false otherwise
+     */
+    public boolean containsVertex(int id) {
+        return live(id) != null;
+    }
+
+    /**
+     * Checks whether or not an edge between vertices denoted by ID1 and ID2 exists
+     *
+     * @return true if edge exists, false otherwise
+     */
+    public boolean isAdjacent(int id1, int id2) {
+        if (id1 == id2) {
+            return true;
+        }
+        Node<V> node = live(id1);
+        return node != null && node.edges.indexOf(id2) >= 0;
+    }
+
+    /**
+     * @return number of edges connected to the vertex, -1 if vertex does not exist
+     */
+    public int degree(int id) {
+        Node<V> node = live(id);
+        return node == null ? -1 : node.edges.size;
+    }
+
+    /**
+     * Lists all vertices that are connected a vertex specified by the user
+     *
+     * @return List of the ID's of all the vertices adjacent to the specified vertex. Returns null if vertex does not exist
+     */
+    public List<Integer> getNeighbors(int id) {
+        Node<V> node = live(id);
+        if (node == null) {
+            return null;
+        }
+        Edges current = node.edges;
+        List<Integer> neighbors = new ArrayList<>(current.size);
+        for (int i = 0; i < current.size; i++) {
+            neighbors.add(current.targets[i]);
+        }
+        return neighbors;
+    }
+
+    /**
+     * Visits every neighbor of a vertex, in ascending order of IDs, as of one moment in time.
+     * Writes that happen during the visit are not seen by it.
+     *
+     * @return true if the vertex exists, false otherwise
+     */
+    public boolean forEachNeighbor(int id, IntIntConsumer action) {
+        Node<V> node = live(id);
+        if (node == null) {
+            return false;
+        }
+        Edges current = node.edges;
+        for (int i = 0; i < current.size; i++) {
+            action.accept(current.targets[i], current.weights[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the graph into a {@link MyGraph}, e.g. to run {@link MyGraph#isConnected()} or
+     * {@link MyGraph#createMST()} on it. The edges of each vertex are copied atomically, but writes
+     * that happen during the copy may be seen for some vertices and not for others.
+     *
+     * @return copy of this graph
+     */
+    public MyGraph<V> toGraph() {
+        List<Node<V>> nodes = new ArrayList<>(vertices.values());
+        nodes.removeIf(node -> node.removed);
+        int[] ids = new int[nodes.size()];
+        int halves = 0;
+        Edges[] snapshot = new Edges[nodes.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nodes.get(i).id;
+            snapshot[i] = nodes.get(i).edges;
+            halves += snapshot[i].size;
+        }
+        MyGraph<V> graph = new MyGraph<>();
+        graph.addVertices(ids, i -> nodes.get(i).value);
+        int[] ids1 = new int[halves];
+        int[] ids2 = new int[halves];
+        int[] weights = new int[halves];
+        int e = 0;
+        for (int i = 0; i < ids.length; i++) {
+            for (int j = 0; j < snapshot[i].size; j++) {
+                ids1[e] = ids[i];
+                ids2[e] = snapshot[i].targets[j];
+                weights[e] = snapshot[i].weights[j];
+                e++;
+            }
+        }
+        //every edge is listed from both ends, addEdges keeps the first copy
+        graph.addEdges(ids1, ids2, weights);
+        return graph;
+    }
+
+    /* Helper functions and classes */
+
+    /**
+     * @return the vertex with the given ID, or null if it does not exist or is being removed
+     */
+    private Node<V> live(int id) {
+        Node<V> node = vertices.get(id);
+        return node == null || node.removed ? null : node;
+    }
+
+    private int stripeIndex(int id) {
+        return ((id * 0x9E3779B9) >>> 16) & mask;
+    }
+
+    private ReentrantLock stripe(int id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    /**
+     * Locks the stripes of both vertices, lowest stripe first
+     */
+    private void lockBoth(int id1, int id2) {
+        int a = stripeIndex(id1);
+        int b = stripeIndex(id2);
+        stripes[Math.min(a, b)].lock();
+        if (a != b) {
+            stripes[Math.max(a, b)].lock();
+        }
+    }
+
+    private void unlockBoth(int id1, int id2) {
+        int a = stripeIndex(id1);
+        int b = stripeIndex(id2);
+        if (a != b) {
+            stripes[Math.max(a, b)].unlock();
+        }
+        stripes[Math.min(a, b)].unlock();
+    }
+
+    private static final class Node<V> {
+        private final int id;
+        private volatile V value;
+        //replaced as a whole on every change, only while holding the stripe of this vertex
+        private volatile Edges edges;
+        private volatile boolean removed;
+
+        private Node(int id, V value) {
+            this.id = id;
+            this.value = value;
+            this.edges = Edges.EMPTY;
+        }
+    }
+
+    /**
+     * Immutable edges of a vertex, sorted by neighbor ID
+     */
+    private static final class Edges {
+        private static final Edges EMPTY = new Edges(new int[0], new int[0]);
+
+        private final int[] targets;
+        private final int[] weights;
+        private final int size;
+
+        private Edges(int[] targets, int[] weights) {
+            this.targets = targets;
+            this.weights = weights;
+            this.size = targets.length;
+        }
+
+        private int indexOf(int target) {
+            return Arrays.binarySearch(targets, target);
+        }
+
+        /**
+         * @return copy with the edge added, or its weight overwritten
+         */
+        private Edges with(int target, int weight) {
+            int i = indexOf(target);
+            if (i >= 0) {
+                int[] newWeights = weights.clone();
+                newWeights[i] = weight;
+                return new Edges(targets, newWeights);
+            }
+            i = -(i + 1);
+            int[] newTargets = new int[size + 1];
+            int[] newWeights = new int[size + 1];
+            System.arraycopy(targets, 0, newTargets, 0, i);
+            System.arraycopy(weights, 0, newWeights, 0, i);
+            newTargets[i] = target;
+            newWeights[i] = weight;
+            System.arraycopy(targets, i, newTargets, i + 1, size - i);
+            System.arraycopy(weights, i, newWeights, i + 1, size - i);
+            return new Edges(newTargets, newWeights);
+        }
+
+        /**
+         * @return copy without the edge
+         */
+        private Edges without(int target) {
+            int i = indexOf(target);
+            if (i < 0) {
+                return this;
+            }
+            if (size == 1) {
+                return EMPTY;
+            }
+            int[] newTargets = new int[size - 1];
+            int[] newWeights = new int[size - 1];
+            System.arraycopy(targets, 0, newTargets, 0, i);
+            System.arraycopy(weights, 0, newWeights, 0, i);
+            System.arraycopy(targets, i + 1, newTargets, i, size - i - 1);
+            System.arraycopy(weights, i + 1, newWeights, i, size - i - 1);
+            return new Edges(newTargets, newWeights);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentGraphTest {
+
+    private ConcurrentGraph<String> g;
+
+    @Test
+    void singleThreaded() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(g.addVertex(i, String.valueOf(i)));
+        }
+        assertFalse(g.addVertex(0, ""));
+        assertTrue(g.addEdge(0, 1, 20));
+        assertFalse(g.addEdge(1, 0, 10));
+        assertFalse(g.addEdge(1, 1));
+        assertFalse(g.addEdge(1, 7));
+        assertTrue(g.addEdge(0, 2));
+        assertTrue(g.addEdge(0, 3));
+        assertEquals(new Integer(20), g.getEdgeValue(1, 0));
+        assertTrue(g.changeEdgeValue(0, 1, 5));
+        assertEquals(new Integer(5), g.getEdgeValue(0, 1));
+        assertEquals(Arrays.asList(1, 2, 3), g.getNeighbors(0));
+        assertEquals(3, g.numEdges());
+        assertTrue(g.removeEdge(0, 2));
+        assertFalse(g.isAdjacent(2, 0));
+        assertTrue(g.removeVertex(0));
+        assertFalse(g.removeVertex(0));
+        assertNull(g.getNeighbors(0));
+        assertEquals(0, g.degree(1));
+        assertEquals(0, g.numEdges());
+        assertEquals(4, g.numVertices());
+        assertTrue(g.addVertex(0, "again"));
+        assertEquals("again", g.getVertexValue(0));
+    }
+
+    @Test
+    void stress() throws InterruptedException {
+        int n = 64;
+        for (int i = 0; i < n; i++) {
+            g.addVertex(i, "");
+        }
+        int threads = 8;
+        AtomicBoolean broken = new AtomicBoolean();
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            writers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 20000; i++) {
+                    int a = random.nextInt(n);
+                    int b = random.nextInt(n);
+                    switch (random.nextInt(10)) {
+                        case 0:
+                            g.removeVertex(a);
+                            break;
+                        case 1:
+                            g.addVertex(a, "");
+                            break;
+                        case 2:
+                        case 3:
+                        case 4:
+                            g.removeEdge(a, b);
+                            break;
+                        case 5:
+                            g.changeEdgeValue(a, b, random.nextInt(100));
+                            break;
+                        default:
+                            g.addEdge(a, b, random.nextInt(100));
+                            break;
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        //readers never block, and never see a vertex listed twice or out of order
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                for (int i = 0; i < n; i++) {
+                    List<Integer> neighbors = g.getNeighbors(i);
+                    if (neighbors == null) {
+                        continue;
+                    }
+                    for (int j = 1; j < neighbors.size(); j++) {
+                        if (neighbors.get(j - 1) >= neighbors.get(j)) {
+                            broken.set(true);
+                        }
+                    }
+                }
+            }
+        });
+        reader.start();
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.set(true);
+        reader.join();
+        assertFalse(broken.get());
+
+        //once quiet, adjacency is symmetric with equal weights, and the edge count is exact
+        int halves = 0;
+        for (int a = 0; a < n; a++) {
+            List<Integer> neighbors = g.getNeighbors(a);
+            if (neighbors == null) {
+                continue;
+            }
+            halves += neighbors.size();
+            for (int b : neighbors) {
+                assertTrue(g.containsVertex(b));
+                assertTrue(g.isAdjacent(b, a));
+                assertEquals(g.getEdgeValue(a, b), g.getEdgeValue(b, a));
+            }
+        }
+        assertEquals(halves / 2, g.numEdges());
+        MyGraph<String> copy = g.toGraph();
+        assertEquals(g.numEdges(), copy.numEdges());
+        assertEquals(g.numVertices(), copy.numVertices());
+    }
+
+    @org.junit.jupiter.api.BeforeEach
+    void setUp() {
+        g = new ConcurrentGraph<>();
+    }
+
+}
@@ -0,0 +1,76 @@
+import java.util.Arrays;
+
+/**
+ * Snapshot of the connected components of a graph, as returned by {@link MyGraph#connectedComponents()}.
+ * Components are numbered from 0 to {@link #count()} - 1. Later changes to the graph are not reflected.
+ */
+public class ConnectedComponents {
+    //vertex IDs in ascending order, and the component of each one
+    private final int[] ids;
+    private final int[] labels;
+    private final int[] sizes;
+
+    /**
+     * @param ids    vertex IDs, in any order
+     * @param labels component of the vertex at the same position in ids
+     * @param sizes  number of vertices in each component
+     */
+    ConnectedComponents(int[] ids, int[] labels, int[] sizes) {
+        //sort (ID, label) pairs packed into longs so lookups can binary search without boxing
+        long[] pairs = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            pairs[i] = ((long) ids[i] << 32) | labels[i];
+        }
+        Arrays.sort(pairs);
+        this.ids = new int[ids.length];
+        this.labels = new int[ids.length];
+        for (int i = 0; i < pairs.length; i++) {
+            this.ids[i] = (int) (pairs[i] >> 32);
+            this.labels[i] = (int) pairs[i];
+        }
+        this.sizes = sizes;
+    }
+
+    /**
+     * @return number of connected components
+     */
+    public int count() {
+        return sizes.length;
+    }
+
+    /**
+     * Returns the component of the vertex with the given ID
+     *
+     * @param id ID of the vertex
+     * @return component ID, or -1 if the vertex was not in the graph
+     */
+    public int componentOf(int id) {
+        int i = Arrays.binarySearch(ids, id);
+        return i < 0 ? -1 : labels[i];
+    }
+
+    /**
+     * Checks whether both vertices are in the same component
+     *
+     * @return true if both vertices exist and are connected, false otherwise
+     */
+    public boolean sameComponent(int id1, int id2) {
+        int component = componentOf(id1);
+        return component != -1 && component == componentOf(id2);
+    }
+
+    /**
+     * @param component ID of the component
+     * @return number of vertices in the component
+     */
+    public int size(int component) {
+        return sizes[component];
+    }
+
+    /**
+     * @return number of vertices in each component, indexed by component ID
+     */
+    public int[] sizes() {
+        return sizes.clone();
+    }
+}
@@ -0,0 +1,337 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable CSR (compressed sparse row) snapshot of a {@link MyGraph}, created with {@link MyGraph#toCsr()}.
+ * <p>
+ * Vertices are given dense indices 0..n-1 in ascending order of their IDs. The edges of vertex i are
+ * stored at positions offsets[i] to offsets[i + 1] - 1 of the targets and weights arrays, sorted by
+ * neighbor. Walking the neighbors of a vertex with {@link #edgesStart(int)}, {@link #edgesEnd(int)},
+ * {@link #target(int)} and {@link #weight(int)} reads two contiguous arrays and allocates nothing.
+ */
+public final class CsrGraph<V> {
+    //dense index -> vertex ID, ascending
+    private final int[] ids;
+    private final Object[] values;
+    private final int[] offsets;
+    //dense index of the neighbor on every edge
+    private final int[] targets;
+    private final int[] weights;
+    private final DenseGraph denseView;
+
+    CsrGraph(int[] ids, Object[] values, int[] offsets, int[] targets, int[] weights) {
+        this.ids = ids;
+        this.values = values;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.denseView = new DenseView();
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int numVertices() {
+        return ids.length;
+    }
+
+    /**
+     * @return number of edges
+     */
+    public int numEdges() {
+        return targets.length / 2;
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return dense index of the vertex, or -1 if it is not in the graph
+     */
+    public int indexOf(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * @param index dense index of the vertex
+     * @return ID of the vertex
+     */
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @param index dense index of the vertex
+     * @return position of the first edge of the vertex
+     */
+    public int edgesStart(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * @param index dense index of the vertex
+     * @return position after the last edge of the vertex
+     */
+    public int edgesEnd(int index) {
+        return offsets[index + 1];
+    }
+
+    /**
+     * @param edge position of the edge
+     * @return dense index of the neighbor on the edge
+     */
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * @param edge position of the edge
+     * @return weight of the edge
+     */
+    public int weight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Checks whether or not the vertex with the given ID exists in the graph
+     *
+     * @param id ID of the vertex
+     * @return true if vertex is in graph, false otherwise
+     */
+    public boolean containsVertex(int id) {
+        return indexOf(id) != -1;
+    }
+
+    /**
+     * Returns the value store by the vertex of the given ID
+     *
+     * @param id ID of the vertex
+     * @return Value of the vertex. Null if vertex does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public V getVertexValue(int id) {
+        int index = indexOf(id);
+        return index == -1 ? null : (V) values[index];
+    }
+
+    /**
+     * Checks whether or not an edge between vertices denoted by ID1 and ID2 exists
+     *
+     * @param id1 ID of the first vertex
+     * @param id2 ID of the second vertex
+     * @return true if edge exists, false otherwise
+     */
+    public boolean isAdjacent(int id1, int id2) {
+        if (id1 == id2) {
+            return true;
+        }
+        return findEdge(id1, id2) >= 0;
+    }
+
+    /**
+     * Gets value of the edge between vertices of ID1 and ID2
+     *
+     * @param id1 ID of the first vertex
+     * @param id2 ID of the second vertex
+     * @return value of the edge, null if the edge does not exist
+     */
+    public Integer getEdgeValue(int id1, int id2) {
+        int edge = findEdge(id1, id2);
+        return edge < 0 ? null : weights[edge];
+    }
+
+    /**
+     * Lists all vertices that are connected a vertex specified by the user
+     *
+     * @param id ID of the vertex specified by the user
+     * @return List of the ID's of all the vertices adjacent to the specified vertex. Returns null if vertex does not exist
+     */
+    public List<Integer> getNeighbors(int id) {
+        int index = indexOf(id);
+        if (index == -1) {
+            return null;
+        }
+        List<Integer> neighbors = new ArrayList<>(offsets[index + 1] - offsets[index]);
+        for (int e = offsets[index]; e < offsets[index + 1]; e++) {
+            neighbors.add(ids[targets[e]]);
+        }
+        return neighbors;
+    }
+
+    /**
+     * @see MyGraph#forEachNeighbor(int, IntIntConsumer)
+     */
+    public boolean forEachNeighbor(int id, IntIntConsumer action) {
+        int index = indexOf(id);
+        if (index == -1) {
+            return false;
+        }
+        for (int e = offsets[index]; e < offsets[index + 1]; e++) {
+            action.accept(ids[targets[e]], weights[e]);
+        }
+        return true;
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return number of edges connected to the vertex, -1 if vertex does not exist
+     */
+    public int degree(int id) {
+        int index = indexOf(id);
+        return index == -1 ? -1 : offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Lists all neighbors of the specified vertex and the respective edge weights between them.
+     * Index 0 is the neighbor vertex's ID, Index 1 is the edge weight
+     *
+     * @param id ID of the vertex specified by the user
+     * @return List of int arrays of size 2
+     */
+    public List<int[]> getEdges(int id) {
+        int index = indexOf(id);
+        if (index == -1) {
+            return null;
+        }
+        List<int[]> edges = new ArrayList<>(offsets[index + 1] - offsets[index]);
+        for (int e = offsets[index]; e < offsets[index + 1]; e++) {
+            edges.add(new int[]{ids[targets[e]], weights[e]});
+        }
+        return edges;
+    }
+
+    /**
+     * @see MyGraph#isConnected()
+     */
+    public boolean isConnected() {
+        return GraphAlgorithms.isConnected(denseView);
+    }
+
+    /**
+     * @see MyGraph#connectedComponents()
+     */
+    public ConnectedComponents connectedComponents() {
+        return GraphAlgorithms.connectedComponents(denseView, ids);
+    }
+
+    /**
+     * @see MyGraph#createMST()
+     */
+    public MyGraph<V> createMST() throws IllegalStateException {
+        return createMST(MyGraph.MSTStrategy.PRIM, false);
+    }
+
+    /**
+     * @see MyGraph#createMST(MyGraph.MSTStrategy)
+     */
+    public MyGraph<V> createMST(MyGraph.MSTStrategy strategy) throws IllegalStateException {
+        return createMST(strategy, false);
+    }
+
+    /**
+     * @see MyGraph#createMST(MyGraph.MSTStrategy, boolean)
+     */
+    @SuppressWarnings("unchecked")
+    public MyGraph<V> createMST(MyGraph.MSTStrategy strategy, boolean allowForest) throws IllegalStateException {
+        if (ids.length == 0 && !allowForest) {
+            throw new IllegalStateException("This graph is empty");
+        }
+        GraphAlgorithms.SpanningForest forest = GraphAlgorithms.spanningForest(denseView, strategy, allowForest);
+        if (!forest.isSpanningTree() && !allowForest) {
+            throw new IllegalStateException("This graph is disconnected");
+        }
+        return GraphAlgorithms.toGraph(forest, ids.length, index -> ids[index], index -> (V) values[index]);
+    }
+
+    /**
+     * @see MyGraph#shortestPaths(int)
+     */
+    public ShortestPaths shortestPaths(int source) {
+        return shortestPaths(source, MyGraph.PathStrategy.DIJKSTRA);
+    }
+
+    /**
+     * @see MyGraph#shortestPaths(int, MyGraph.PathStrategy)
+     */
+    public ShortestPaths shortestPaths(int source, MyGraph.PathStrategy strategy) throws IllegalStateException {
+        if (strategy == MyGraph.PathStrategy.BIDIRECTIONAL) {
+            throw new IllegalArgumentException("Bidirectional search needs a target");
+        }
+        int index = indexOf(source);
+        if (index == -1) {
+            return null;
+        }
+        long[] distances = new long[ids.length];
+        int[] predecessors = new int[ids.length];
+        ShortestPathSearch.search(denseView, strategy, index, -1, distances, predecessors);
+        return new ShortestPaths(source, ids, distances, predecessors);
+    }
+
+    /**
+     * @see MyGraph#shortestPath(int, int)
+     */
+    public GraphPath shortestPath(int source, int target) {
+        return shortestPath(source, target, MyGraph.PathStrategy.DIJKSTRA);
+    }
+
+    /**
+     * @see MyGraph#shortestPath(int, int, MyGraph.PathStrategy)
+     */
+    public GraphPath shortestPath(int source, int target, MyGraph.PathStrategy strategy) throws IllegalStateException {
+        int from = indexOf(source);
+        int to = indexOf(target);
+        if (from == -1 || to == -1) {
+            return null;
+        }
+        if (strategy == MyGraph.PathStrategy.BIDIRECTIONAL) {
+            return ShortestPathSearch.bidirectional(denseView, from, to, index -> ids[index]);
+        }
+        long[] distances = new long[ids.length];
+        int[] predecessors = new int[ids.length];
+        ShortestPathSearch.search(denseView, strategy, from, to, distances, predecessors);
+        return ShortestPathSearch.path(to, distances, predecessors, index -> ids[index]);
+    }
+
+    /**
+     * @return position of the edge between both vertices, or -1 if there is none
+     */
+    private int findEdge(int id1, int id2) {
+        int index1 = indexOf(id1);
+        int index2 = indexOf(id2);
+        if (index1 == -1 || index2 == -1) {
+            return -1;
+        }
+        int edge = Arrays.binarySearch(targets, offsets[index1], offsets[index1 + 1], index2);
+        return edge < 0 ? -1 : edge;
+    }
+
+    /**
+     * Exposes the CSR arrays to {@link GraphAlgorithms} without copying them
+     */
+    private class DenseView implements DenseGraph {
+        @Override
+        public int size() {
+            return ids.length;
+        }
+
+        @Override
+        public long edgeCount() {
+            return targets.length / 2;
+        }
+
+        @Override
+        public int degree(int index) {
+            return offsets[index + 1] - offsets[index];
+        }
+
+        @Override
+        public int neighbor(int index, int i) {
+            return targets[offsets[index] + i];
+        }
+
+        @Override
+        public int weight(int index, int i) {
+            return weights[offsets[index] + i];
+        }
+    }
+}
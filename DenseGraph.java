@@ -0,0 +1,47 @@
+/**
+ * Read-only view of an undirected weighted graph whose vertices are numbered 0..size-1.
+ * Graph algorithms are written against this view so that every storage layout can share them.
+ */
+interface DenseGraph {
+    /**
+     * @return number of vertices
+     */
+    int size();
+
+    /**
+     * @return number of edges, every undirected edge counted once. {@link OffHeapGraph} can hold more than 2^31
+     */
+    long edgeCount();
+
+    /**
+     * @param index dense index of the vertex
+     * @return number of edges of the vertex
+     */
+    int degree(int index);
+
+    /**
+     * @param index dense index of the vertex
+     * @param i     position between 0 and degree - 1
+     * @return dense index of the i-th neighbor
+     */
+    int neighbor(int index, int i);
+
+    /**
+     * @param index dense index of the vertex
+     * @param i     position between 0 and degree - 1
+     * @return weight of the edge to the i-th neighbor
+     */
+    int weight(int index, int i);
+
+    /**
+     * Orders edges for algorithms that only compare weights, such as Prim's and Boruvka's algorithms.
+     * Views can override it to order edges by something other than the int weight.
+     *
+     * @param index dense index of the vertex
+     * @param i     position between 0 and degree - 1
+     * @return key of the edge to the i-th neighbor, lighter edges have smaller keys
+     */
+    default long weightKey(int index, int i) {
+        return weight(index, i);
+    }
+}
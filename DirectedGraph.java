@@ -0,0 +1,610 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Directed graph on the same storage as {@link MyGraph}: vertex IDs map to dense indices, and every
+ * vertex keeps its out-edges in a sorted {@link Adjacency}. Each edge is stored once, at its source.
+ * <p>
+ * In-edges are optional. With them, every edge is stored a second time at its target, which makes
+ * predecessors, in-degrees and vertex removal cheap. Without them, those scan the whole graph.
+ * <p>
+ * In multigraph mode, several edges may join the same two vertices in the same direction. Lookups
+ * then see the first of them, and {@link #removeEdge(int, int)} removes one of them.
+ *
+ * @param <V> type of the vertex values
+ */
+public class DirectedGraph<V> {
+    //vertex ID -> dense index
+    private final IntIntMap vertices;
+    //all vertices, where each vertex is stored at its dense index
+    private final ArrayList<Node> denseVertices;
+    private final boolean inEdges;
+    private final boolean multigraph;
+    private int edges;
+
+    /**
+     * Creates a directed graph that stores in-edges and does not allow parallel edges
+     */
+    public DirectedGraph() {
+        this(true, false);
+    }
+
+    /**
+     * @param inEdges    true to also store every edge at its target
+     * @param multigraph true to allow several edges between the same two vertices in the same direction
+     */
+    public DirectedGraph(boolean inEdges, boolean multigraph) {
+        this.vertices = new IntIntMap();
+        this.denseVertices = new ArrayList<>();
+        this.inEdges = inEdges;
+        this.multigraph = multigraph;
+        this.edges = 0;
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int numVertices() {
+        return vertices.size();
+    }
+
+    /**
+     * @return number of edges, every parallel edge counted
+     */
+    public int numEdges() {
+        return edges;
+    }
+
+    /**
+     * @return true if in-edges are stored
+     */
+    public boolean hasInEdges() {
+        return inEdges;
+    }
+
+    /**
+     * @return true if parallel edges are allowed
+     */
+    public boolean isMultigraph() {
+        return multigraph;
+    }
+
+    /**
+     * Adds a vertex if and only if the vertex ID does not already exist.
+     *
+     * @param id unique ID of the vertex to be added.
+     * @return true if vertex was added, false if not.
+     */
+    public boolean addVertex(int id, V val) {
+        if (vertices.containsKey(id)) {
+            return false;
+        }
+        Node node = new Node(id, val, denseVertices.size());
+        denseVertices.add(node);
+        vertices.put(id, node.index);
+        return true;
+    }
+
+    /**
+     * Removes the vertex with the specified ID, along with all edges into and out of it.
+     *
+     * @param id unique ID of the vertex to be removed.
+     * @return true if vertex was removed, false if not.
+     */
+    public boolean removeVertex(int id) {
+        Node node = node(id);
+        if (node == null) {
+            return false;
+        }
+        //out-edges are stored at the vertex, and at their targets if there are in-edges
+        edges -= node.out.size();
+        if (inEdges) {
+            for (int i = 0; i < node.out.size(); i++) {
+                node(node.out.target(i)).in.remove(id);
+            }
+            for (int i = 0; i < node.in.size(); i++) {
+                edges -= node(node.in.target(i)).out.removeAll(id);
+            }
+        } else {
+            for (Node other : denseVertices) {
+                if (other != node) {
+                    edges -= other.out.removeAll(id);
+                }
+            }
+        }
+        //remove vertex, moving the last dense vertex into its slot
+        Node last = denseVertices.remove(denseVertices.size() - 1);
+        if (last != node) {
+            last.index = node.index;
+            denseVertices.set(node.index, last);
+            vertices.put(last.id, last.index);
+        }
+        vertices.remove(id);
+        return true;
+    }
+
+    /**
+     * Checks whether or not the vertex with the given ID exists in the graph
+     *
+     * @param id ID of the vertex
+     * @return true if vertex is in graph, false otherwise
+     */
+    public boolean containsVertex(int id) {
+        return vertices.containsKey(id);
+    }
+
+    /**
+     * Returns the value store by the vertex of the given ID
+     *
+     * @param id ID of the vertex
+     * @return Value of the vertex. Null if vertex does not exist
+     */
+    public V getVertexValue(int id) {
+        Node node = node(id);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Changes the value of the vertex
+     *
+     * @param id  ID of the vertex
+     * @param val new value of the vertex
+     * @return true if operation was successful, false otherwise
+     */
+    public boolean changeVertexValue(int id, V val) {
+        Node node = node(id);
+        if (node == null) {
+            return false;
+        }
+        node.value = val;
+        return true;
+    }
+
+    /**
+     * Adds an edge of a specified weight from one vertex to another. Self loops are not allowed, and
+     * unless this is a multigraph, neither are edges that already exist.
+     *
+     * @param from ID of the source vertex
+     * @param to   ID of the target vertex
+     * @return true if operation was successful, false otherwise
+     */
+    public boolean addEdge(int from, int to, int weight) {
+        Node source = node(from);
+        Node target = node(to);
+        if (source == null || target == null || from == to) {
+            return false;
+        }
+        if (multigraph) {
+            source.out.insert(to, weight);
+            if (inEdges) {
+                target.in.insert(from, weight);
+            }
+        } else {
+            if (source.out.contains(to)) {
+                return false;
+            }
+            source.out.put(to, weight);
+            if (inEdges) {
+                target.in.put(from, weight);
+            }
+        }
+        edges++;
+        return true;
+    }
+
+    /**
+     * Default {@link #addEdge(int, int, int) addEdge} method with weight set at 1
+     */
+    public boolean addEdge(int from, int to) {
+        return addEdge(from, to, 1);
+    }
+
+    /**
+     * Removes an edge from one vertex to another. In a multigraph, only one of the parallel edges is removed.
+     *
+     * @param from ID of the source vertex
+     * @param to   ID of the target vertex
+     * @return true if the edge was removed, false otherwise
+     */
+    public boolean removeEdge(int from, int to) {
+        Node source = node(from);
+        Node target = node(to);
+        if (source == null || target == null) {
+            return false;
+        }
+        int i = source.out.indexOf(to);
+        if (i < 0) {
+            return false;
+        }
+        int weight = source.out.weight(i);
+        source.out.removeAt(i);
+        if (inEdges) {
+            removeIn(target.in, from, weight);
+        }
+        edges--;
+        return true;
+    }
+
+    /**
+     * Checks whether or not there is an edge from one vertex to another
+     *
+     * @param from ID of the source vertex
+     * @param to   ID of the target vertex
+     * @return true if edge exists, false otherwise
+     */
+    public boolean hasEdge(int from, int to) {
+        Node source = node(from);
+        return source != null && source.out.contains(to);
+    }
+
+    /**
+     * Gets value of the edge from one vertex to another
+     *
+     * @param from ID of the source vertex
+     * @param to   ID of the target vertex
+     * @return value of the edge, null if there is none. In a multigraph, the value of one of the parallel edges
+     */
+    public Integer getEdgeValue(int from, int to) {
+        Node source = node(from);
+        if (source == null) {
+            return null;
+        }
+        int i = source.out.indexOf(to);
+        return i < 0 ? null : source.out.weight(i);
+    }
+
+    /**
+     * @param from ID of the source vertex
+     * @param to   ID of the target vertex
+     * @return number of edges from one vertex to another, more than 1 only in multigraphs
+     */
+    public int countEdges(int from, int to) {
+        Node source = node(from);
+        return source == null ? 0 : source.out.count(to);
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return number of edges out of the vertex, -1 if vertex does not exist
+     */
+    public int outDegree(int id) {
+        Node node = node(id);
+        return node == null ? -1 : node.out.size();
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return number of edges into the vertex, -1 if vertex does not exist. Scans every vertex
+     * if in-edges are not stored
+     */
+    public int inDegree(int id) {
+        Node node = node(id);
+        if (node == null) {
+            return -1;
+        }
+        if (inEdges) {
+            return node.in.size();
+        }
+        int degree = 0;
+        for (Node other : denseVertices) {
+            degree += other.out.count(id);
+        }
+        return degree;
+    }
+
+    /**
+     * Lists the targets of all edges out of a vertex, in ascending order of IDs. A target appears once per
+     * parallel edge.
+     *
+     * @param id ID of the vertex
+     * @return List of the ID's of the successors. Returns null if vertex does not exist
+     */
+    public List<Integer> getSuccessors(int id) {
+        Node node = node(id);
+        return node == null ? null : targets(node.out);
+    }
+
+    /**
+     * Lists the sources of all edges into a vertex, in ascending order of IDs. A source appears once per
+     * parallel edge. Scans every vertex if in-edges are not stored.
+     *
+     * @param id ID of the vertex
+     * @return List of the ID's of the predecessors. Returns null if vertex does not exist
+     */
+    public List<Integer> getPredecessors(int id) {
+        Node node = node(id);
+        if (node == null) {
+            return null;
+        }
+        if (inEdges) {
+            return targets(node.in);
+        }
+        List<Integer> predecessors = new ArrayList<>();
+        for (int index : sortedIndices()) {
+            Node other = denseVertices.get(index);
+            for (int c = other.out.count(id); c > 0; c--) {
+                predecessors.add(other.id);
+            }
+        }
+        return predecessors;
+    }
+
+    /**
+     * Visits every edge out of a vertex, in ascending order of target IDs, without allocating.
+     * The graph must not be changed by the action.
+     *
+     * @param id     ID of the vertex
+     * @param action called with the ID of each target and the weight of the edge to it
+     * @return true if the vertex exists, false otherwise
+     */
+    public boolean forEachSuccessor(int id, IntIntConsumer action) {
+        Node node = node(id);
+        if (node == null) {
+            return false;
+        }
+        for (int i = 0; i < node.out.size(); i++) {
+            action.accept(node.out.target(i), node.out.weight(i));
+        }
+        return true;
+    }
+
+    /**
+     * Splits the graph into strongly connected components, where every vertex can reach every other vertex
+     * of its component. Tarjan's algorithm with an explicit stack, so deep graphs cannot overflow the
+     * call stack. O(V + E)
+     *
+     * @return snapshot of the component of every vertex, and the size of every component. Components are
+     * numbered in reverse topological order: edges between components go from higher to lower numbers
+     */
+    public ConnectedComponents stronglyConnectedComponents() {
+        int n = denseVertices.size();
+        //discovery order of every vertex, -1 if not discovered yet
+        int[] order = new int[n];
+        //smallest discovery order reachable through the vertex's subtree and one back edge
+        int[] low = new int[n];
+        int[] labels = new int[n];
+        Arrays.fill(order, -1);
+        //vertices that are discovered but not assigned to a component yet
+        int[] stack = new int[n];
+        boolean[] onStack = new boolean[n];
+        int stackSize = 0;
+        //depth first search path, and the position of the next edge to follow for each vertex on it
+        int[] path = new int[n];
+        int[] nextEdge = new int[n];
+        int[] sizes = new int[n];
+        int counter = 0;
+        int count = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            path[0] = root;
+            nextEdge[0] = 0;
+            order[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int current = path[depth];
+                Adjacency out = denseVertices.get(current).out;
+                if (nextEdge[depth] < out.size()) {
+                    int next = vertices.get(out.target(nextEdge[depth]++), -1);
+                    if (order[next] == -1) {
+                        order[next] = low[next] = counter++;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        depth++;
+                        path[depth] = next;
+                        nextEdge[depth] = 0;
+                    } else if (onStack[next]) {
+                        low[current] = Math.min(low[current], order[next]);
+                    }
+                    continue;
+                }
+                //every edge of the vertex is done, so it is the root of a component or reports to its parent
+                if (low[current] == order[current]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        labels[member] = count;
+                        sizes[count]++;
+                    } while (member != current);
+                    count++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = path[depth];
+                    low[parent] = Math.min(low[parent], low[current]);
+                }
+            }
+        }
+        return new ConnectedComponents(denseIds(), labels, Arrays.copyOf(sizes, count));
+    }
+
+    /**
+     * Orders the vertices so that every edge goes from an earlier vertex to a later one, with Kahn's
+     * algorithm: vertices without remaining in-edges are taken from a FIFO queue. O(V + E)
+     *
+     * @return vertex IDs in topological order
+     * @throws IllegalStateException if the graph has a cycle
+     */
+    public int[] topologicalSort() throws IllegalStateException {
+        int n = denseVertices.size();
+        int[] inDegree = inDegrees();
+        //dense indices of the vertices without remaining in-edges, in the order they became ready
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int index = 0; index < n; index++) {
+            if (inDegree[index] == 0) {
+                queue[tail++] = index;
+            }
+        }
+        int[] result = new int[n];
+        for (int head = 0; head < tail; head++) {
+            Node node = denseVertices.get(queue[head]);
+            result[head] = node.id;
+            for (int i = 0; i < node.out.size(); i++) {
+                int next = vertices.get(node.out.target(i), -1);
+                if (--inDegree[next] == 0) {
+                    queue[tail++] = next;
+                }
+            }
+        }
+        if (tail < n) {
+            throw new IllegalStateException("This graph has a cycle");
+        }
+        return result;
+    }
+
+    /**
+     * Orders the vertices like {@link #topologicalSort()}, but among vertices that could come next, the one
+     * with the smallest ID comes first, so the order does not depend on how the graph was built. The ready
+     * vertices are kept in a heap, so O(V log V + E)
+     *
+     * @return vertex IDs in the smallest topological order
+     * @throws IllegalStateException if the graph has a cycle
+     */
+    public int[] topologicalSortByIds() throws IllegalStateException {
+        int n = denseVertices.size();
+        int[] inDegree = inDegrees();
+        //vertices without remaining in-edges, keyed by ID so the smallest ID is taken first
+        IndexedMinHeap ready = new IndexedMinHeap(n);
+        for (int index = 0; index < n; index++) {
+            if (inDegree[index] == 0) {
+                ready.insert(index, denseVertices.get(index).id);
+            }
+        }
+        int[] result = new int[n];
+        int size = 0;
+        while (!ready.isEmpty()) {
+            Node node = denseVertices.get(ready.pollMin());
+            result[size++] = node.id;
+            for (int i = 0; i < node.out.size(); i++) {
+                int next = vertices.get(node.out.target(i), -1);
+                if (--inDegree[next] == 0) {
+                    ready.insert(next, denseVertices.get(next).id);
+                }
+            }
+        }
+        if (size < n) {
+            throw new IllegalStateException("This graph has a cycle");
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder(String.format("This directed graph has %d vertices and %d edges\n\n",
+                vertices.size(), edges));
+        for (Node node : denseVertices) {
+            s.append("Vertex (ID, value): (").append(node.id).append(", ").append(node.value)
+                    .append(")\nOut-edges(vertex, weight): ");
+            if (node.out.isEmpty()) {
+                s.append("n/a");
+            }
+            for (int i = 0; i < node.out.size(); i++) {
+                s.append('(').append(node.out.target(i)).append(", ").append(node.out.weight(i)).append("), ");
+            }
+            s.append("\n\n");
+        }
+        return s.toString();
+    }
+
+    /* Helper functions and classes */
+
+    /**
+     * @return number of in-edges of every dense index, counted from the out-edges
+     */
+    private int[] inDegrees() {
+        int[] inDegree = new int[denseVertices.size()];
+        for (Node node : denseVertices) {
+            for (int i = 0; i < node.out.size(); i++) {
+                inDegree[vertices.get(node.out.target(i), -1)]++;
+            }
+        }
+        return inDegree;
+    }
+
+    /**
+     * @return the vertex with the given ID, or null if it does not exist
+     */
+    private Node node(int id) {
+        int index = vertices.get(id, -1);
+        return index == -1 ? null : denseVertices.get(index);
+    }
+
+    /**
+     * @return vertex ID of every dense index
+     */
+    private int[] denseIds() {
+        int[] ids = new int[denseVertices.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = denseVertices.get(i).id;
+        }
+        return ids;
+    }
+
+    /**
+     * @return dense indices in ascending order of vertex IDs
+     */
+    private int[] sortedIndices() {
+        int n = denseVertices.size();
+        long[] order = new long[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = ((long) denseVertices.get(i).id << 32) | i;
+        }
+        Arrays.sort(order);
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = (int) order[i];
+        }
+        return indices;
+    }
+
+    /**
+     * Removes the in-edge from the given source, picking one with the given weight among parallel edges
+     */
+    private static void removeIn(Adjacency in, int from, int weight) {
+        int i = in.indexOf(from);
+        while (i > 0 && in.target(i - 1) == from) {
+            i--;
+        }
+        //parallel in-edges differ only by weight, so any one with the same weight will do
+        while (i < in.size() && in.target(i) == from && in.weight(i) != weight) {
+            i++;
+        }
+        in.removeAt(i);
+    }
+
+    private static List<Integer> targets(Adjacency adjacency) {
+        List<Integer> targets = new ArrayList<>(adjacency.size());
+        for (int i = 0; i < adjacency.size(); i++) {
+            targets.add(adjacency.target(i));
+        }
+        return targets;
+    }
+
+    /**
+     * A vertex, with the edges out of it and, if they are stored, the edges into it
+     */
+    private class Node {
+        private final int id;
+        //position in denseVertices, changes when another vertex is removed
+        private int index;
+        private V value;
+        private final Adjacency out;
+        //null if in-edges are not stored
+        private final Adjacency in;
+
+        private Node(int id, V value, int index) {
+            this.id = id;
+            this.value = value;
+            this.index = index;
+            this.out = new Adjacency();
+            this.in = inEdges ? new Adjacency() : null;
+        }
+    }
+}
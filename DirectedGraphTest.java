@@ -0,0 +1,187 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectedGraphTest {
+
+    private DirectedGraph<String> g;
+
+    @Test
+    void directedEdges() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(g.addVertex(i, String.valueOf(i)));
+        }
+        assertTrue(g.addEdge(0, 1, 20));
+        assertTrue(g.addEdge(1, 0, 10));
+        assertFalse(g.addEdge(0, 1));
+        assertFalse(g.addEdge(1, 1));
+        assertFalse(g.addEdge(1, 7));
+        assertTrue(g.addEdge(0, 2));
+        assertTrue(g.addEdge(3, 2));
+        assertEquals(new Integer(20), g.getEdgeValue(0, 1));
+        assertEquals(new Integer(10), g.getEdgeValue(1, 0));
+        assertNull(g.getEdgeValue(2, 0));
+        assertEquals(Arrays.asList(1, 2), g.getSuccessors(0));
+        assertEquals(Arrays.asList(0, 3), g.getPredecessors(2));
+        assertEquals(2, g.outDegree(0));
+        assertEquals(1, g.inDegree(0));
+        assertEquals(4, g.numEdges());
+        assertTrue(g.removeEdge(0, 2));
+        assertFalse(g.removeEdge(0, 2));
+        assertEquals(Collections.singletonList(3), g.getPredecessors(2));
+        assertTrue(g.removeVertex(0));
+        assertFalse(g.hasEdge(1, 0));
+        assertEquals(0, g.outDegree(1));
+        assertEquals(1, g.numEdges());
+        assertEquals(4, g.numVertices());
+        assertNull(g.getSuccessors(0));
+    }
+
+    @Test
+    void withoutInEdges() {
+        DirectedGraph<String> withIn = new DirectedGraph<>(true, true);
+        DirectedGraph<String> withoutIn = new DirectedGraph<>(false, true);
+        Random random = new Random(5);
+        int n = 30;
+        for (int i = 0; i < n; i++) {
+            withIn.addVertex(i, null);
+            withoutIn.addVertex(i, null);
+        }
+        for (int k = 0; k < 2000; k++) {
+            int from = random.nextInt(n);
+            int to = random.nextInt(n);
+            int weight = random.nextInt(5);
+            switch (random.nextInt(10)) {
+                case 0:
+                    assertEquals(withIn.removeVertex(from), withoutIn.removeVertex(from));
+                    assertEquals(withIn.addVertex(from, null), withoutIn.addVertex(from, null));
+                    break;
+                case 1:
+                case 2:
+                case 3:
+                    assertEquals(withIn.removeEdge(from, to), withoutIn.removeEdge(from, to));
+                    break;
+                default:
+                    assertEquals(withIn.addEdge(from, to, weight), withoutIn.addEdge(from, to, weight));
+            }
+            assertEquals(withIn.numEdges(), withoutIn.numEdges());
+        }
+        for (int i = 0; i < n; i++) {
+            assertEquals(withIn.getSuccessors(i), withoutIn.getSuccessors(i));
+            assertEquals(withIn.getPredecessors(i), withoutIn.getPredecessors(i));
+            assertEquals(withIn.inDegree(i), withoutIn.inDegree(i));
+        }
+    }
+
+    @Test
+    void multigraph() {
+        g = new DirectedGraph<>(true, true);
+        g.addVertex(1, "a");
+        g.addVertex(2, "b");
+        assertTrue(g.addEdge(1, 2, 5));
+        assertTrue(g.addEdge(1, 2, 7));
+        assertTrue(g.addEdge(2, 1, 3));
+        assertEquals(2, g.countEdges(1, 2));
+        assertEquals(3, g.numEdges());
+        assertEquals(Arrays.asList(2, 2), g.getSuccessors(1));
+        assertEquals(Arrays.asList(1, 1), g.getPredecessors(2));
+        assertEquals(2, g.inDegree(2));
+        int[] total = new int[1];
+        g.forEachSuccessor(1, (neighbor, weight) -> total[0] += weight);
+        assertEquals(12, total[0]);
+        assertTrue(g.removeEdge(1, 2));
+        assertEquals(1, g.countEdges(1, 2));
+        assertEquals(1, g.inDegree(2));
+        assertTrue(g.removeVertex(2));
+        assertEquals(0, g.numEdges());
+        assertEquals(0, g.outDegree(1));
+    }
+
+    @Test
+    void stronglyConnectedComponents() {
+        for (int i = 0; i < 8; i++) {
+            g.addVertex(i, "");
+        }
+        //cycles 0 -> 1 -> 2 -> 0 and 3 <-> 4, joined by 2 -> 3; 5 -> 6 and 7 on their own
+        g.addEdge(0, 1);
+        g.addEdge(1, 2);
+        g.addEdge(2, 0);
+        g.addEdge(2, 3);
+        g.addEdge(3, 4);
+        g.addEdge(4, 3);
+        g.addEdge(5, 6);
+        ConnectedComponents components = g.stronglyConnectedComponents();
+        assertEquals(5, components.count());
+        assertTrue(components.sameComponent(0, 2));
+        assertTrue(components.sameComponent(3, 4));
+        assertFalse(components.sameComponent(2, 3));
+        assertFalse(components.sameComponent(5, 6));
+        assertEquals(3, components.size(components.componentOf(1)));
+        //edges between components go from higher to lower numbers
+        assertTrue(components.componentOf(2) > components.componentOf(3));
+        assertTrue(components.componentOf(5) > components.componentOf(6));
+
+        //a single cycle far deeper than the call stack would allow with recursion
+        DirectedGraph<String> deep = new DirectedGraph<>(false, false);
+        int n = 200000;
+        for (int i = 0; i < n; i++) {
+            deep.addVertex(i, null);
+        }
+        for (int i = 0; i < n; i++) {
+            deep.addEdge(i, (i + 1) % n);
+        }
+        assertEquals(1, deep.stronglyConnectedComponents().count());
+        deep.removeEdge(n - 1, 0);
+        assertEquals(n, deep.stronglyConnectedComponents().count());
+    }
+
+    @Test
+    void topologicalSort() {
+        for (int i = 0; i < 6; i++) {
+            g.addVertex(i, "");
+        }
+        g.addEdge(5, 2);
+        g.addEdge(5, 0);
+        g.addEdge(4, 0);
+        g.addEdge(4, 1);
+        g.addEdge(2, 3);
+        g.addEdge(3, 1);
+        assertArrayEquals(new int[]{4, 5, 0, 2, 3, 1}, g.topologicalSort());
+        assertArrayEquals(new int[]{4, 5, 0, 2, 3, 1}, g.topologicalSortByIds());
+        g.addEdge(1, 5);
+        assertThrows(IllegalStateException.class, () -> g.topologicalSort());
+        assertThrows(IllegalStateException.class, () -> g.topologicalSortByIds());
+        g.removeEdge(1, 5);
+
+        //the linear sort takes ready vertices in the order they were added, not by ID
+        DirectedGraph<String> unordered = new DirectedGraph<>();
+        for (int id : new int[]{3, 1, 2}) {
+            unordered.addVertex(id, null);
+        }
+        assertArrayEquals(new int[]{3, 1, 2}, unordered.topologicalSort());
+        assertArrayEquals(new int[]{1, 2, 3}, unordered.topologicalSortByIds());
+
+        DirectedGraph<String> deep = new DirectedGraph<>(false, false);
+        int n = 200000;
+        for (int i = 0; i < n; i++) {
+            deep.addVertex(n - i, null);
+        }
+        for (int i = 1; i < n; i++) {
+            deep.addEdge(i + 1, i);
+        }
+        for (int[] order : new int[][]{deep.topologicalSort(), deep.topologicalSortByIds()}) {
+            assertEquals(n, order[0]);
+            assertEquals(1, order[n - 1]);
+        }
+    }
+
+    @org.junit.jupiter.api.BeforeEach
+    void setUp() {
+        g = new DirectedGraph<>();
+    }
+
+}
@@ -0,0 +1,84 @@
+import java.util.Arrays;
+
+/**
+ * Disjoint-set (union-find) over the dense indices 0..size-1.
+ * Uses path halving and union by rank, so any sequence of operations runs in
+ * near constant amortized time per operation.
+ */
+class DisjointSet {
+    private int[] parent;
+    private byte[] rank;
+    private int size;
+    private int sets;
+
+    DisjointSet(int size) {
+        parent = new int[size];
+        rank = new byte[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        this.size = size;
+        sets = size;
+    }
+
+    /**
+     * Adds a new set holding only the next index, growing the arrays when needed
+     *
+     * @return the new index
+     */
+    int add() {
+        if (size == parent.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            parent = Arrays.copyOf(parent, capacity);
+            rank = Arrays.copyOf(rank, capacity);
+        }
+        parent[size] = size;
+        sets++;
+        return size++;
+    }
+
+    /**
+     * @return representative of the set containing the index
+     */
+    int find(int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    /**
+     * Merges the sets containing both indices
+     *
+     * @return true if the sets were merged, false if both were already in the same set
+     */
+    boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (rank[rootA] < rank[rootB]) {
+            parent[rootA] = rootB;
+        } else if (rank[rootA] > rank[rootB]) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootB] = rootA;
+            rank[rootA]++;
+        }
+        sets--;
+        return true;
+    }
+
+    boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    /**
+     * @return number of disjoint sets
+     */
+    int numSets() {
+        return sets;
+    }
+}
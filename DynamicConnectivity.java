@@ -0,0 +1,340 @@
+import java.util.Arrays;
+
+/**
+ * Keeps the connected components of a changing graph up to date, so that connectivity queries do not
+ * need a search. Works on dense indices, and only reads the edges of the graph through {@link DenseGraph}
+ * when it rebuilds or looks for a replacement edge.
+ * <p>
+ * While vertices and edges are only added, components live in a union-find. The first removal switches
+ * to a spanning forest, where every vertex carries the label of its component. Removing a forest edge
+ * searches both sides of the forest at the same pace until the smaller one is exhausted, then scans the
+ * edges of the smaller side for a replacement. Without one, the smaller side gets a new label.
+ * Queries are O(1), and every update only costs time in the smaller of the components it touches.
+ */
+class DynamicConnectivity {
+    private final DenseGraph graph;
+    private int size;
+    //insert-only phase, null once something was removed
+    private DisjointSet sets;
+
+    //spanning forest phase
+    private int[] labels;
+    //number of vertices of every label in use
+    private int[] componentSizes;
+    private int[] freeLabels;
+    private int freeCount;
+    private int labelCount;
+    private int components;
+    //forest edges of every vertex, by dense index. Null for vertices without any
+    private Adjacency[] tree;
+
+    //scratch space of the searches, marks are compared with the current epoch so they never need clearing
+    private int[] marks;
+    private int epoch;
+    private int[] queue;
+    private int[] otherQueue;
+
+    /**
+     * Starts tracking the graph in its current state. O(V + E)
+     */
+    DynamicConnectivity(DenseGraph graph) {
+        this.graph = graph;
+        this.size = graph.size();
+        this.sets = new DisjointSet(size);
+        for (int index = 0; index < size; index++) {
+            int degree = graph.degree(index);
+            for (int i = 0; i < degree; i++) {
+                sets.union(index, graph.neighbor(index, i));
+            }
+        }
+    }
+
+    /**
+     * @return true if both dense indices are in the same component
+     */
+    boolean connected(int a, int b) {
+        if (sets != null) {
+            return sets.connected(a, b);
+        }
+        return labels[a] == labels[b];
+    }
+
+    /**
+     * @return number of connected components
+     */
+    int count() {
+        return sets != null ? sets.numSets() : components;
+    }
+
+    /**
+     * Call after a vertex was added at the next dense index
+     */
+    void addVertex() {
+        if (sets != null) {
+            sets.add();
+            size++;
+            return;
+        }
+        ensureCapacity(size + 1);
+        labels[size] = newLabel(1);
+        components++;
+        size++;
+    }
+
+    /**
+     * Call after an edge was added between two dense indices. Edges that already existed are ignored.
+     */
+    void addEdge(int a, int b) {
+        if (sets != null) {
+            sets.union(a, b);
+            return;
+        }
+        int labelA = labels[a];
+        int labelB = labels[b];
+        if (labelA == labelB) {
+            return;
+        }
+        //relabel the smaller component before it joins the tree of the larger one
+        if (componentSizes[labelA] < componentSizes[labelB]) {
+            relabel(a, labelB);
+        } else {
+            relabel(b, labelA);
+        }
+        link(a, b);
+    }
+
+    /**
+     * Call after the edge between two dense indices was removed from the graph
+     */
+    void removeEdge(int a, int b) {
+        if (sets != null) {
+            //the graph no longer has the edge, so the forest is built without it
+            buildForest();
+            return;
+        }
+        if (tree[a] == null || !tree[a].contains(b)) {
+            //the forest does not use the edge, so no component changed
+            return;
+        }
+        unlink(a, b);
+        split(a, b);
+    }
+
+    /**
+     * Call after a vertex without edges was removed from the graph, and the last dense vertex was moved
+     * into its slot
+     *
+     * @param index former dense index of the removed vertex
+     */
+    void removeVertex(int index) {
+        if (sets != null) {
+            buildForest();
+            return;
+        }
+        int last = size - 1;
+        freeLabel(labels[index]);
+        components--;
+        if (index != last) {
+            labels[index] = labels[last];
+            tree[index] = tree[last];
+            Adjacency moved = tree[index];
+            for (int i = 0; moved != null && i < moved.size(); i++) {
+                Adjacency neighbor = tree[moved.target(i)];
+                neighbor.remove(last);
+                neighbor.put(index, 0);
+            }
+        }
+        tree[last] = null;
+        size--;
+    }
+
+    /* Helper functions */
+
+    /**
+     * Replaces the union-find with a spanning forest of the graph, found by breadth first search
+     */
+    private void buildForest() {
+        sets = null;
+        size = graph.size();
+        labels = new int[0];
+        componentSizes = new int[0];
+        freeLabels = new int[0];
+        freeCount = 0;
+        labelCount = 0;
+        components = 0;
+        tree = new Adjacency[0];
+        marks = new int[0];
+        queue = new int[0];
+        otherQueue = new int[0];
+        epoch = 0;
+        ensureCapacity(size);
+        Arrays.fill(labels, 0, size, -1);
+        for (int root = 0; root < size; root++) {
+            if (labels[root] != -1) {
+                continue;
+            }
+            int label = newLabel(0);
+            components++;
+            int head = 0;
+            int tail = 0;
+            labels[root] = label;
+            queue[tail++] = root;
+            while (head < tail) {
+                int current = queue[head++];
+                int degree = graph.degree(current);
+                for (int i = 0; i < degree; i++) {
+                    int neighbor = graph.neighbor(current, i);
+                    if (labels[neighbor] == -1) {
+                        labels[neighbor] = label;
+                        queue[tail++] = neighbor;
+                        link(current, neighbor);
+                    }
+                }
+            }
+            componentSizes[label] = tail;
+        }
+    }
+
+    /**
+     * Called once the forest edge between a and b is gone. Searches the forest from both ends in turns,
+     * so the search stops after about twice the size of the smaller side.
+     */
+    private void split(int a, int b) {
+        int markA = nextEpoch();
+        int markB = nextEpoch();
+        marks[a] = markA;
+        marks[b] = markB;
+        queue[0] = a;
+        otherQueue[0] = b;
+        int headA = 0;
+        int tailA = 1;
+        int headB = 0;
+        int tailB = 1;
+        while (headA < tailA && headB < tailB) {
+            tailA = expand(queue[headA++], markA, queue, tailA);
+            tailB = expand(otherQueue[headB++], markB, otherQueue, tailB);
+        }
+        boolean sideA = headA == tailA;
+        int[] side = sideA ? queue : otherQueue;
+        int sideSize = sideA ? tailA : tailB;
+        int mark = sideA ? markA : markB;
+
+        //any edge leaving the smaller side goes to the other side, and joins both again
+        for (int s = 0; s < sideSize; s++) {
+            int current = side[s];
+            int degree = graph.degree(current);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.neighbor(current, i);
+                if (marks[neighbor] != mark) {
+                    link(current, neighbor);
+                    return;
+                }
+            }
+        }
+        int oldLabel = labels[a];
+        int label = newLabel(sideSize);
+        componentSizes[oldLabel] -= sideSize;
+        for (int s = 0; s < sideSize; s++) {
+            labels[side[s]] = label;
+        }
+        components++;
+    }
+
+    /**
+     * Adds the unmarked forest neighbors of a vertex to a search queue
+     *
+     * @return new tail of the queue
+     */
+    private int expand(int current, int mark, int[] searchQueue, int tail) {
+        Adjacency edges = tree[current];
+        for (int i = 0; edges != null && i < edges.size(); i++) {
+            int neighbor = edges.target(i);
+            if (marks[neighbor] != mark) {
+                marks[neighbor] = mark;
+                searchQueue[tail++] = neighbor;
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Moves the component of the given vertex to another label, walking the forest
+     */
+    private void relabel(int start, int label) {
+        int oldLabel = labels[start];
+        int head = 0;
+        int tail = 0;
+        labels[start] = label;
+        queue[tail++] = start;
+        while (head < tail) {
+            Adjacency edges = tree[queue[head++]];
+            for (int i = 0; edges != null && i < edges.size(); i++) {
+                int neighbor = edges.target(i);
+                if (labels[neighbor] != label) {
+                    labels[neighbor] = label;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        componentSizes[label] += tail;
+        freeLabel(oldLabel);
+        components--;
+    }
+
+    private void link(int a, int b) {
+        if (tree[a] == null) {
+            tree[a] = new Adjacency();
+        }
+        if (tree[b] == null) {
+            tree[b] = new Adjacency();
+        }
+        tree[a].put(b, 0);
+        tree[b].put(a, 0);
+    }
+
+    private void unlink(int a, int b) {
+        tree[a].remove(b);
+        tree[b].remove(a);
+    }
+
+    private int newLabel(int componentSize) {
+        int label;
+        if (freeCount > 0) {
+            label = freeLabels[--freeCount];
+        } else {
+            label = labelCount++;
+            if (label == componentSizes.length) {
+                componentSizes = Arrays.copyOf(componentSizes, Math.max(16, label + (label >> 1)));
+            }
+        }
+        componentSizes[label] = componentSize;
+        return label;
+    }
+
+    private void freeLabel(int label) {
+        if (freeCount == freeLabels.length) {
+            freeLabels = Arrays.copyOf(freeLabels, Math.max(16, freeCount + (freeCount >> 1)));
+        }
+        freeLabels[freeCount++] = label;
+    }
+
+    private int nextEpoch() {
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            epoch = 0;
+        }
+        return ++epoch;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= labels.length) {
+            return;
+        }
+        capacity = Math.max(capacity, Math.max(16, labels.length + (labels.length >> 1)));
+        labels = Arrays.copyOf(labels, capacity);
+        tree = Arrays.copyOf(tree, capacity);
+        marks = Arrays.copyOf(marks, capacity);
+        queue = new int[capacity];
+        otherQueue = new int[capacity];
+    }
+}
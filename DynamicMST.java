@@ -0,0 +1,301 @@
+import java.util.Arrays;
+
+/**
+ * Keeps a minimum spanning forest of a changing graph, so that the MST does not have to be rebuilt
+ * after every change. Works on dense indices, and reads the edges of the graph through {@link DenseGraph}
+ * when it looks for a replacement edge.
+ * <p>
+ * Updates only touch the trees involved:
+ * <ul>
+ * <li>A new edge, or a lighter non-tree edge, closes a cycle in the forest. It replaces the heaviest
+ * edge of that cycle if it is lighter. If it joins two trees, it is simply added.</li>
+ * <li>Removing a tree edge, or making it heavier, splits its tree. Both sides are searched in turns until
+ * the smaller one is exhausted, and the lightest edge leaving the smaller side joins them again.</li>
+ * <li>Removing a non-tree edge, or making a non-tree edge heavier, changes nothing.</li>
+ * </ul>
+ */
+class DynamicMST {
+    private final DenseGraph graph;
+    private int size;
+    //forest edges of every vertex by dense index, with their weights. Null for vertices without any
+    private Adjacency[] tree;
+    private long weight;
+    private int treeEdges;
+
+    //scratch space of the searches, marks are compared with the current epoch so they never need clearing
+    private int[] marks;
+    private int epoch;
+    private int[] queue;
+    private int[] otherQueue;
+    //dense index and edge weight towards the start of the last path search
+    private int[] parent;
+    private int[] parentWeight;
+
+    /**
+     * Starts from a minimum spanning forest of the graph in its current state. O(E log E)
+     */
+    DynamicMST(DenseGraph graph) {
+        this.graph = graph;
+        this.tree = new Adjacency[0];
+        this.marks = new int[0];
+        ensureCapacity(graph.size());
+        this.size = graph.size();
+        GraphAlgorithms.SpanningForest forest = GraphAlgorithms.kruskal(graph, true);
+        for (int e = 0; e < forest.size; e++) {
+            link(forest.from[e], forest.to[e], forest.weight[e]);
+        }
+    }
+
+    /**
+     * @return total weight of the forest edges
+     */
+    long weight() {
+        return weight;
+    }
+
+    /**
+     * @return number of forest edges
+     */
+    int edgeCount() {
+        return treeEdges;
+    }
+
+    /**
+     * @return copy of the forest edges. O(V)
+     */
+    GraphAlgorithms.SpanningForest forest() {
+        GraphAlgorithms.SpanningForest forest = new GraphAlgorithms.SpanningForest(size);
+        for (int index = 0; index < size; index++) {
+            Adjacency edges = tree[index];
+            for (int i = 0; edges != null && i < edges.size(); i++) {
+                //every edge is stored at both ends, keep the one at the smaller index
+                if (index < edges.target(i)) {
+                    forest.add(index, edges.target(i), edges.weight(i));
+                }
+            }
+        }
+        return forest;
+    }
+
+    /**
+     * Call after a vertex was added at the next dense index
+     */
+    void addVertex() {
+        ensureCapacity(size + 1);
+        size++;
+    }
+
+    /**
+     * Call after an edge was added between two dense indices, or after the weight of a non-tree edge
+     * changed
+     */
+    void addEdge(int a, int b, int edgeWeight) {
+        if (!findPath(a, b)) {
+            link(a, b, edgeWeight);
+            return;
+        }
+        //heaviest edge on the forest path from b back to a
+        int heaviest = -1;
+        for (int current = b; current != a; current = parent[current]) {
+            if (heaviest == -1 || parentWeight[current] > parentWeight[heaviest]) {
+                heaviest = current;
+            }
+        }
+        if (parentWeight[heaviest] > edgeWeight) {
+            cut(heaviest, parent[heaviest]);
+            link(a, b, edgeWeight);
+        }
+    }
+
+    /**
+     * Call after the edge between two dense indices was removed from the graph
+     */
+    void removeEdge(int a, int b) {
+        if (isTreeEdge(a, b)) {
+            cut(a, b);
+            reconnect(a, b);
+        }
+    }
+
+    /**
+     * Call after the weight of the edge between two dense indices was changed in the graph
+     */
+    void changeWeight(int a, int b, int edgeWeight) {
+        if (!isTreeEdge(a, b)) {
+            addEdge(a, b, edgeWeight);
+            return;
+        }
+        int old = tree[a].weight(tree[a].indexOf(b));
+        if (edgeWeight <= old) {
+            //a lighter tree edge keeps the forest minimal
+            tree[a].put(b, edgeWeight);
+            tree[b].put(a, edgeWeight);
+            weight += edgeWeight - old;
+        } else {
+            //the edge itself may still be the best way across
+            cut(a, b);
+            reconnect(a, b);
+        }
+    }
+
+    /**
+     * Call after a vertex without edges was removed from the graph, and the last dense vertex was moved
+     * into its slot
+     *
+     * @param index former dense index of the removed vertex
+     */
+    void removeVertex(int index) {
+        int last = size - 1;
+        if (index != last) {
+            tree[index] = tree[last];
+            Adjacency moved = tree[index];
+            for (int i = 0; moved != null && i < moved.size(); i++) {
+                Adjacency neighbor = tree[moved.target(i)];
+                neighbor.remove(last);
+                neighbor.put(index, moved.weight(i));
+            }
+        }
+        tree[last] = null;
+        size--;
+    }
+
+    /* Helper functions */
+
+    private boolean isTreeEdge(int a, int b) {
+        return tree[a] != null && tree[a].contains(b);
+    }
+
+    /**
+     * Breadth first search of the forest from a, filling in parent and parentWeight
+     *
+     * @return true if b is in the same tree as a
+     */
+    private boolean findPath(int a, int b) {
+        int mark = nextEpoch();
+        int head = 0;
+        int tail = 0;
+        marks[a] = mark;
+        queue[tail++] = a;
+        while (head < tail) {
+            int current = queue[head++];
+            Adjacency edges = tree[current];
+            for (int i = 0; edges != null && i < edges.size(); i++) {
+                int neighbor = edges.target(i);
+                if (marks[neighbor] != mark) {
+                    marks[neighbor] = mark;
+                    parent[neighbor] = current;
+                    parentWeight[neighbor] = edges.weight(i);
+                    if (neighbor == b) {
+                        return true;
+                    }
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Called once the forest edge between a and b is gone. Searches the forest from both ends in turns,
+     * then joins both sides again with the lightest edge leaving the smaller one, if there is any.
+     */
+    private void reconnect(int a, int b) {
+        int markA = nextEpoch();
+        int markB = nextEpoch();
+        marks[a] = markA;
+        marks[b] = markB;
+        queue[0] = a;
+        otherQueue[0] = b;
+        int headA = 0;
+        int tailA = 1;
+        int headB = 0;
+        int tailB = 1;
+        while (headA < tailA && headB < tailB) {
+            tailA = expand(queue[headA++], markA, queue, tailA);
+            tailB = expand(otherQueue[headB++], markB, otherQueue, tailB);
+        }
+        boolean sideA = headA == tailA;
+        int[] side = sideA ? queue : otherQueue;
+        int sideSize = sideA ? tailA : tailB;
+        int mark = sideA ? markA : markB;
+
+        //any edge leaving the smaller side goes to the other side
+        int bestFrom = -1;
+        int bestTo = -1;
+        int bestWeight = 0;
+        for (int s = 0; s < sideSize; s++) {
+            int current = side[s];
+            int degree = graph.degree(current);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.neighbor(current, i);
+                int edgeWeight = graph.weight(current, i);
+                if (marks[neighbor] != mark && (bestFrom == -1 || edgeWeight < bestWeight)) {
+                    bestFrom = current;
+                    bestTo = neighbor;
+                    bestWeight = edgeWeight;
+                }
+            }
+        }
+        if (bestFrom != -1) {
+            link(bestFrom, bestTo, bestWeight);
+        }
+    }
+
+    /**
+     * Adds the unmarked forest neighbors of a vertex to a search queue
+     *
+     * @return new tail of the queue
+     */
+    private int expand(int current, int mark, int[] searchQueue, int tail) {
+        Adjacency edges = tree[current];
+        for (int i = 0; edges != null && i < edges.size(); i++) {
+            int neighbor = edges.target(i);
+            if (marks[neighbor] != mark) {
+                marks[neighbor] = mark;
+                searchQueue[tail++] = neighbor;
+            }
+        }
+        return tail;
+    }
+
+    private void link(int a, int b, int edgeWeight) {
+        if (tree[a] == null) {
+            tree[a] = new Adjacency();
+        }
+        if (tree[b] == null) {
+            tree[b] = new Adjacency();
+        }
+        tree[a].put(b, edgeWeight);
+        tree[b].put(a, edgeWeight);
+        weight += edgeWeight;
+        treeEdges++;
+    }
+
+    private void cut(int a, int b) {
+        weight -= tree[a].weight(tree[a].indexOf(b));
+        tree[a].remove(b);
+        tree[b].remove(a);
+        treeEdges--;
+    }
+
+    private int nextEpoch() {
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            epoch = 0;
+        }
+        return ++epoch;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= tree.length) {
+            return;
+        }
+        capacity = Math.max(capacity, Math.max(16, tree.length + (tree.length >> 1)));
+        tree = Arrays.copyOf(tree, capacity);
+        marks = Arrays.copyOf(marks, capacity);
+        queue = new int[capacity];
+        otherQueue = new int[capacity];
+        parent = new int[capacity];
+        parentWeight = new int[capacity];
+    }
+}
@@ -0,0 +1,426 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Graph algorithms shared by every graph layout. They work on dense vertex indices through
+ * {@link DenseGraph}, and only use primitive arrays as scratch space.
+ */
+final class GraphAlgorithms {
+
+    private GraphAlgorithms() {
+    }
+
+    /**
+     * Checks connectivity with a single breadth first search. O(V + E)
+     *
+     * @return true if the graph is connected, false otherwise (including when it is empty)
+     */
+    static boolean isConnected(DenseGraph graph) {
+        int n = graph.size();
+        if (n == 0) {
+            return false;
+        }
+        int[] labels = new int[n];
+        Arrays.fill(labels, -1);
+        return labelComponent(graph, 0, 0, labels, new int[n]) == n;
+    }
+
+    /**
+     * Splits the graph into its connected components with one breadth first search per component. O(V + E)
+     *
+     * @param ids vertex ID of every dense index
+     * @return snapshot of the component of every vertex, and the size of every component
+     */
+    static ConnectedComponents connectedComponents(DenseGraph graph, int[] ids) {
+        int n = graph.size();
+        int[] labels = new int[n];
+        Arrays.fill(labels, -1);
+        int[] queue = new int[n];
+        int[] sizes = new int[n];
+        int count = 0;
+        for (int root = 0; root < n; root++) {
+            if (labels[root] == -1) {
+                sizes[count] = labelComponent(graph, root, count, labels, queue);
+                count++;
+            }
+        }
+        return new ConnectedComponents(ids, labels, Arrays.copyOf(sizes, count));
+    }
+
+    /**
+     * Breadth first search from one vertex that stops as soon as the other one is reached. O(V + E)
+     *
+     * @return true if both dense indices are in the same connected component
+     */
+    static boolean reachable(DenseGraph graph, int from, int to) {
+        if (from == to) {
+            return true;
+        }
+        int n = graph.size();
+        boolean[] visited = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        visited[from] = true;
+        queue[tail++] = from;
+        while (head < tail) {
+            int current = queue[head++];
+            int degree = graph.degree(current);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.neighbor(current, i);
+                if (neighbor == to) {
+                    return true;
+                }
+                if (!visited[neighbor]) {
+                    visited[neighbor] = true;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Breadth first search that marks every vertex reachable from the root with the given label
+     *
+     * @param root   dense index of the starting vertex, must not be labelled yet
+     * @param label  label given to every reached vertex
+     * @param labels label of every dense index, -1 if not labelled yet
+     * @param queue  scratch space with room for every vertex
+     * @return number of vertices that were labelled
+     */
+    static int labelComponent(DenseGraph graph, int root, int label, int[] labels, int[] queue) {
+        int head = 0;
+        int tail = 0;
+        labels[root] = label;
+        queue[tail++] = root;
+        while (head < tail) {
+            int current = queue[head++];
+            int degree = graph.degree(current);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.neighbor(current, i);
+                if (labels[neighbor] == -1) {
+                    labels[neighbor] = label;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Builds a minimum spanning tree (or forest) with the given algorithm
+     *
+     * @param strategy    algorithm used to build the tree
+     * @param allowForest true to keep going once it is known that the graph is disconnected
+     */
+    static SpanningForest spanningForest(DenseGraph graph, MyGraph.MSTStrategy strategy, boolean allowForest) {
+        switch (strategy) {
+            case KRUSKAL:
+                return kruskal(graph, allowForest);
+            case BORUVKA:
+                return boruvka(graph);
+            case PRIM:
+            default:
+                return prim(graph, allowForest);
+        }
+    }
+
+    /**
+     * Eager Prim's algorithm. Every vertex outside of the tree sits in the heap at most once,
+     * keyed by the cheapest known edge into the tree, which is lowered as the tree grows.
+     * Edges are compared by {@link DenseGraph#weightKey(int, int)}.
+     *
+     * @param allowForest true to restart from unreached vertices when the graph is disconnected
+     */
+    static SpanningForest prim(DenseGraph graph, boolean allowForest) {
+        int n = graph.size();
+        SpanningForest forest = new SpanningForest(n);
+        boolean[] inTree = new boolean[n];
+        //dense index of the tree vertex on the cheapest known edge, for every vertex in the heap
+        int[] via = new int[n];
+        int[] viaWeight = new int[n];
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+
+        for (int root = 0; root < n; root++) {
+            if (inTree[root]) {
+                continue;
+            }
+            //a second root means the first tree did not reach every vertex
+            if (root > 0 && !allowForest) {
+                return forest;
+            }
+            inTree[root] = true;
+            int current = root;
+            while (true) {
+                int degree = graph.degree(current);
+                for (int i = 0; i < degree; i++) {
+                    int neighbor = graph.neighbor(current, i);
+                    if (!inTree[neighbor] && heap.insertOrDecrease(neighbor, graph.weightKey(current, i))) {
+                        via[neighbor] = current;
+                        viaWeight[neighbor] = graph.weight(current, i);
+                    }
+                }
+                if (heap.isEmpty()) {
+                    break;
+                }
+                current = heap.pollMin();
+                inTree[current] = true;
+                forest.add(current, via[current], viaWeight[current]);
+            }
+        }
+        return forest;
+    }
+
+    /**
+     * Kruskal's algorithm. Every edge is sorted once by weight, then added unless a union-find
+     * shows that both ends are already in the same tree.
+     *
+     * @param allowForest true to keep going once it is known that the graph is disconnected
+     * @throws IllegalStateException if there are too many edges to copy into arrays
+     */
+    static SpanningForest kruskal(DenseGraph graph, boolean allowForest) {
+        int n = graph.size();
+        if (graph.edgeCount() > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many edges for Kruskal's algorithm");
+        }
+        int m = (int) graph.edgeCount();
+        int[] from = new int[m];
+        int[] to = new int[m];
+        //weight in the high half, edge number in the low half, so sorting never has to box
+        long[] order = new long[m];
+        m = 0;
+        for (int index = 0; index < n; index++) {
+            int degree = graph.degree(index);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.neighbor(index, i);
+                //every edge is stored on both ends, only take it once
+                if (index < neighbor) {
+                    from[m] = index;
+                    to[m] = neighbor;
+                    order[m] = ((long) graph.weight(index, i) << 32) | m;
+                    m++;
+                }
+            }
+        }
+        Arrays.sort(order, 0, m);
+
+        SpanningForest forest = new SpanningForest(n);
+        DisjointSet components = new DisjointSet(n);
+        for (int i = 0; i < m && components.numSets() > 1; i++) {
+            int e = (int) order[i];
+            if (components.union(from[e], to[e])) {
+                forest.add(from[e], to[e], (int) (order[i] >> 32));
+            }
+        }
+        return forest;
+    }
+
+    /**
+     * Parallel Boruvka's algorithm on the fork-join common pool. In every round, each component picks its
+     * lightest edge to another component, and all picked edges are added at once, which at least halves
+     * the number of components. O(E log V) work over at most log V rounds, each of which is spread
+     * over every vertex.
+     * <p>
+     * Edges of equal weight are ordered by the dense indices of their ends, so the tree does not depend
+     * on the order in which threads run. This is the order {@link #kruskal(DenseGraph, boolean)} uses
+     * whenever neighbors are listed by ascending dense index, so both return the same tree then.
+     * Disconnected graphs always give a forest.
+     */
+    static SpanningForest boruvka(DenseGraph graph) {
+        int n = graph.size();
+        SpanningForest forest = new SpanningForest(n);
+        //root of the component of every vertex, as of the start of the round
+        int[] component = new int[n];
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            component[i] = i;
+            parent.set(i, i);
+        }
+        //lightest edge from every vertex to another component, as a neighbor position, -1 if there is none
+        //and -2 before the first round
+        int[] best = new int[n];
+        Arrays.fill(best, -2);
+        //vertex holding the lightest edge of every component, by root, -1 if there is none
+        AtomicIntegerArray componentBest = new AtomicIntegerArray(n);
+        //roots of components that still have edges to others
+        int[] roots = IntStream.range(0, n).toArray();
+        while (roots.length > 0) {
+            for (int root : roots) {
+                componentBest.set(root, -1);
+            }
+            IntStream.range(0, n).parallel().forEach(v -> {
+                int pick = best[v];
+                //merging only ever removes candidates, so a pick that still leaves the component stays the lightest
+                if (pick == -2 || (pick != -1 && component[graph.neighbor(v, pick)] == component[v])) {
+                    pick = lightestEdgeOut(graph, component, v);
+                    best[v] = pick;
+                }
+                if (pick == -1) {
+                    return;
+                }
+                int root = component[v];
+                while (true) {
+                    int current = componentBest.get(root);
+                    if (current != -1 && !lighter(graph, v, pick, current, best[current])) {
+                        break;
+                    }
+                    if (componentBest.compareAndSet(root, current, v)) {
+                        break;
+                    }
+                }
+            });
+
+            //the picked edges form a forest, except that two components may pick the same edge
+            int[] picked = Arrays.stream(roots).filter(root -> componentBest.get(root) != -1).toArray();
+            int[] added = Arrays.stream(picked).parallel().filter(root -> {
+                int v = componentBest.get(root);
+                int u = graph.neighbor(v, best[v]);
+                int otherRoot = component[u];
+                int other = componentBest.get(otherRoot);
+                boolean duplicate = other != -1 && graph.neighbor(other, best[other]) == v && other == u;
+                //a shared edge is added by the component with the smaller root
+                if (duplicate && otherRoot < root) {
+                    return false;
+                }
+                union(parent, v, u);
+                return true;
+            }).toArray();
+            for (int root : added) {
+                int v = componentBest.get(root);
+                forest.add(v, graph.neighbor(v, best[v]), graph.weight(v, best[v]));
+            }
+            IntStream.range(0, n).parallel().forEach(v -> component[v] = find(parent, v));
+            roots = Arrays.stream(picked).filter(root -> component[root] == root).toArray();
+        }
+        return forest;
+    }
+
+    /**
+     * @return position of the lightest edge from v to another component, -1 if there is none
+     */
+    private static int lightestEdgeOut(DenseGraph graph, int[] component, int v) {
+        int degree = graph.degree(v);
+        int pick = -1;
+        for (int i = 0; i < degree; i++) {
+            if (component[graph.neighbor(v, i)] != component[v] && (pick == -1 || lighter(graph, v, i, v, pick))) {
+                pick = i;
+            }
+        }
+        return pick;
+    }
+
+    /**
+     * Total order of the edges used by Boruvka's algorithm: by weight key, then by the smaller dense index
+     * of their ends, then by the larger one
+     *
+     * @return true if the i-th edge of a comes before the j-th edge of b
+     */
+    private static boolean lighter(DenseGraph graph, int a, int i, int b, int j) {
+        long weightA = graph.weightKey(a, i);
+        long weightB = graph.weightKey(b, j);
+        if (weightA != weightB) {
+            return weightA < weightB;
+        }
+        int neighborA = graph.neighbor(a, i);
+        int neighborB = graph.neighbor(b, j);
+        int lowA = Math.min(a, neighborA);
+        int lowB = Math.min(b, neighborB);
+        if (lowA != lowB) {
+            return lowA < lowB;
+        }
+        return Math.max(a, neighborA) < Math.max(b, neighborB);
+    }
+
+    /**
+     * Lock-free find with path halving. Concurrent unions can only move a vertex closer to its root,
+     * so a failed shortcut is simply skipped.
+     */
+    private static int find(AtomicIntegerArray parent, int v) {
+        while (true) {
+            int p = parent.get(v);
+            if (p == v) {
+                return v;
+            }
+            int grandparent = parent.get(p);
+            parent.compareAndSet(v, p, grandparent);
+            v = p;
+        }
+    }
+
+    /**
+     * Lock-free union, always hanging the larger root under the smaller one
+     */
+    private static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            a = find(parent, a);
+            b = find(parent, b);
+            if (a == b) {
+                return;
+            }
+            if (a < b) {
+                int swap = a;
+                a = b;
+                b = swap;
+            }
+            if (parent.compareAndSet(a, a, b)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copies vertices and tree edges into a new graph
+     *
+     * @param n       number of vertices of the original graph
+     * @param idOf    vertex ID of a dense index
+     * @param valueOf vertex value of a dense index
+     */
+    static <V> MyGraph<V> toGraph(SpanningForest forest, int n, IntUnaryOperator idOf, IntFunction<V> valueOf) {
+        MyGraph<V> graph = new MyGraph<>();
+        for (int i = 0; i < n; i++) {
+            graph.addVertex(idOf.applyAsInt(i), valueOf.apply(i));
+        }
+        for (int e = 0; e < forest.size; e++) {
+            graph.addEdge(idOf.applyAsInt(forest.from[e]), idOf.applyAsInt(forest.to[e]), forest.weight[e]);
+        }
+        return graph;
+    }
+
+    /**
+     * Edges of a spanning tree or forest, as dense indices
+     */
+    static final class SpanningForest {
+        final int vertices;
+        final int[] from;
+        final int[] to;
+        final int[] weight;
+        int size;
+
+        SpanningForest(int vertices) {
+            int capacity = Math.max(vertices - 1, 0);
+            this.vertices = vertices;
+            this.from = new int[capacity];
+            this.to = new int[capacity];
+            this.weight = new int[capacity];
+            this.size = 0;
+        }
+
+        void add(int from, int to, int weight) {
+            this.from[size] = from;
+            this.to[size] = to;
+            this.weight[size] = weight;
+            size++;
+        }
+
+        /**
+         * @return true if the edges form a single tree over every vertex
+         */
+        boolean isSpanningTree() {
+            return vertices > 0 && size == vertices - 1;
+        }
+    }
+}
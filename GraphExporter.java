@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a {@link MyGraph} in the text formats read by {@link GraphImporter}. Numbers are formatted
+ * straight into a byte buffer, so no String is created per edge.
+ * <p>
+ * The edge list keeps the vertex IDs. DIMACS and METIS number vertices 1..n, so vertices are renumbered
+ * in ascending ID order, which keeps graphs with IDs 1..n unchanged.
+ */
+public final class GraphExporter {
+    private GraphExporter() {
+    }
+
+    /**
+     * Writes every edge once as "u v weight", with u &lt; v. Vertices without edges are not written.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeEdgeList(MyGraph<?> graph, Path file) throws IOException {
+        CsrGraph<?> csr = graph.toCsr();
+        try (ByteWriter out = open(file)) {
+            for (int v = 0; v < csr.numVertices(); v++) {
+                for (int e = csr.edgesStart(v); e < csr.edgesEnd(v); e++) {
+                    int u = csr.target(e);
+                    //indices are in ID order, so this writes each edge from its smaller endpoint
+                    if (u > v) {
+                        out.write(csr.idAt(v)).write(' ').write(csr.idAt(u)).write(' ').write(csr.weight(e)).write('\n');
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the graph as a DIMACS shortest path file, with an arc in each direction for every edge
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeDimacs(MyGraph<?> graph, Path file) throws IOException {
+        CsrGraph<?> csr = graph.toCsr();
+        try (ByteWriter out = open(file)) {
+            out.write("p sp ").write(csr.numVertices()).write(' ').write(2L * csr.numEdges()).write('\n');
+            for (int v = 0; v < csr.numVertices(); v++) {
+                for (int e = csr.edgesStart(v); e < csr.edgesEnd(v); e++) {
+                    out.write("a ").write(v + 1).write(' ').write(csr.target(e) + 1).write(' ').write(csr.weight(e)).write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the graph as a METIS file with edge weights
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeMetis(MyGraph<?> graph, Path file) throws IOException {
+        CsrGraph<?> csr = graph.toCsr();
+        try (ByteWriter out = open(file)) {
+            out.write(csr.numVertices()).write(' ').write(csr.numEdges()).write(" 001\n");
+            for (int v = 0; v < csr.numVertices(); v++) {
+                for (int e = csr.edgesStart(v); e < csr.edgesEnd(v); e++) {
+                    if (e > csr.edgesStart(v)) {
+                        out.write(' ');
+                    }
+                    out.write(csr.target(e) + 1).write(' ').write(csr.weight(e));
+                }
+                out.write('\n');
+            }
+        }
+    }
+
+    private static ByteWriter open(Path file) throws IOException {
+        return new ByteWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+}
@@ -0,0 +1,274 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary file format for graphs, which can be loaded back into a {@link MyGraph} or
+ * memory-mapped and queried in place with {@link MappedGraph}.
+ * <p>
+ * Layout, all numbers big-endian:
+ * <pre>
+ * header      magic "MYGR", version, vertex count, edge count, then the position of every section
+ * ids         vertex IDs in ascending order, 4 bytes each. A vertex's position here is its index
+ * adjacency   for every vertex: degree, then per edge the neighbor index as a gap from the previous
+ *             neighbor, and the zigzag weight, all as varints
+ * values      for every vertex, the bytes written by the {@link ValueCodec}
+ * adj index   position of every vertex in the adjacency section, plus the end, 8 bytes each
+ * value index position of every vertex in the values section, plus the end, 8 bytes each
+ * </pre>
+ * Each section must be smaller than 2 GB to be memory-mapped.
+ */
+public final class GraphFile {
+    static final int MAGIC = 0x4D594752; //"MYGR"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private GraphFile() {
+    }
+
+    /**
+     * Writes the graph to a file, replacing it if it exists
+     *
+     * @param graph graph to write
+     * @param codec writes the vertex values
+     * @param file  file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public static <V> void write(MyGraph<V> graph, ValueCodec<? super V> codec, Path file) throws IOException {
+        CsrGraph<V> csr = graph.toCsr();
+        int n = csr.numVertices();
+        long[] adjacencyIndex = new long[n + 1];
+        long[] valueIndex = new long[n + 1];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel, HEADER_SIZE);
+
+            long idsPosition = out.position();
+            for (int i = 0; i < n; i++) {
+                out.writeInt(csr.idAt(i));
+            }
+
+            long adjacencyPosition = out.position();
+            for (int i = 0; i < n; i++) {
+                adjacencyIndex[i] = out.position() - adjacencyPosition;
+                out.writeVarint(csr.edgesEnd(i) - csr.edgesStart(i));
+                int previous = -1;
+                for (int e = csr.edgesStart(i); e < csr.edgesEnd(i); e++) {
+                    //neighbors are sorted and distinct, so the gaps are never negative
+                    out.writeVarint(csr.target(e) - previous - 1);
+                    out.writeVarint(zigzag(csr.weight(e)));
+                    previous = csr.target(e);
+                }
+            }
+            adjacencyIndex[n] = out.position() - adjacencyPosition;
+
+            long valuesPosition = out.position();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream valueOut = new DataOutputStream(bytes);
+            for (int i = 0; i < n; i++) {
+                valueIndex[i] = out.position() - valuesPosition;
+                bytes.reset();
+                codec.write(csr.getVertexValue(csr.idAt(i)), valueOut);
+                valueOut.flush();
+                out.writeBytes(bytes.toByteArray());
+            }
+            valueIndex[n] = out.position() - valuesPosition;
+
+            long adjacencyIndexPosition = out.position();
+            for (long offset : adjacencyIndex) {
+                out.writeLong(offset);
+            }
+            long valueIndexPosition = out.position();
+            for (long offset : valueIndex) {
+                out.writeLong(offset);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(csr.numEdges())
+                    .putLong(idsPosition).putLong(adjacencyPosition).putLong(valuesPosition)
+                    .putLong(adjacencyIndexPosition).putLong(valueIndexPosition);
+            header.clear();
+            channel.write(header, 0);
+        }
+    }
+
+    /**
+     * Loads a whole file back into a new graph
+     *
+     * @param file  file written by {@link #write}
+     * @param codec reads the vertex values
+     * @return new graph with the same vertices, values and edges
+     * @throws IOException if the file cannot be read or is not a graph file
+     */
+    public static <V> MyGraph<V> read(Path file, ValueCodec<? extends V> codec) throws IOException {
+        try (MappedGraph<V> mapped = map(file, codec)) {
+            return mapped.toGraph();
+        }
+    }
+
+    /**
+     * Memory-maps a file for read-only queries. Only the parts of the file that are queried are read from disk.
+     *
+     * @param file  file written by {@link #write}
+     * @param codec reads the vertex values
+     * @return read-only graph backed by the file
+     * @throws IOException if the file cannot be read or is not a graph file
+     */
+    public static <V> MappedGraph<V> map(Path file, ValueCodec<? extends V> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a graph file: " + file);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                //keep reading until the header is full
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a graph file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported graph file version " + version + ": " + file);
+            }
+            int n = header.getInt();
+            int edges = header.getInt();
+            long idsPosition = header.getLong();
+            long adjacencyPosition = header.getLong();
+            long valuesPosition = header.getLong();
+            long adjacencyIndexPosition = header.getLong();
+            long valueIndexPosition = header.getLong();
+            //the mappings stay valid after the channel is closed
+            return new MappedGraph<>(n, edges, codec,
+                    map(channel, idsPosition, adjacencyPosition),
+                    map(channel, adjacencyPosition, valuesPosition),
+                    map(channel, valuesPosition, adjacencyIndexPosition),
+                    map(channel, adjacencyIndexPosition, valueIndexPosition),
+                    map(channel, valueIndexPosition, channel.size()));
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+        if (start < 0 || end < start || end > channel.size() || end - start > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt graph file");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Buffered writes to a file channel, starting at a given position
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long position;
+
+        private Output(FileChannel channel, long position) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            this.position = position;
+        }
+
+        private long position() {
+            return position + buffer.position();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        private void writeLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        private void writeVarint(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads a range of a buffer as a stream, without changing the buffer's position
+     */
+    static final class BufferInput extends InputStream {
+        private final ByteBuffer buffer;
+        private int position;
+        private final int end;
+
+        BufferInput(ByteBuffer buffer, int position, int end) {
+            this.buffer = buffer;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read() {
+            return position < end ? buffer.get(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (position >= end) {
+                return -1;
+            }
+            length = Math.min(length, end - position);
+            for (int i = 0; i < length; i++) {
+                bytes[offset + i] = buffer.get(position++);
+            }
+            return length;
+        }
+
+        DataInputStream data() {
+            return new DataInputStream(this);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates synthetic graphs, loaded through {@link MyGraph#addEdges(int[], int[], int[])}.
+ * Vertices get the IDs 0..n-1 and null values. Edge weights are drawn uniformly from 1 to 100.
+ */
+public final class GraphGenerator {
+    private static final int MAX_WEIGHT = 100;
+
+    private GraphGenerator() {
+    }
+
+    /**
+     * Erdos-Renyi G(n, p) graph: every pair of vertices is joined with probability p.
+     * Pairs are skipped geometrically, so this runs in O(V + E) rather than O(V^2).
+     */
+    public static <V> MyGraph<V> random(int n, double p, long seed) {
+        Random random = new Random(seed);
+        EdgeList list = new EdgeList(n, (long) (p * n * (n - 1) / 2));
+        if (p > 0) {
+            double logQ = Math.log(1 - Math.min(p, 1 - 1e-12));
+            //walk pairs (v, w) with w < v in order, jumping over the pairs that are not joined
+            int v = 1;
+            int w = -1;
+            while (v < n) {
+                w += 1 + (int) Math.floor(Math.log(1 - random.nextDouble()) / logQ);
+                while (w >= v && v < n) {
+                    w -= v;
+                    v++;
+                }
+                if (v < n) {
+                    list.add(v, w, random);
+                }
+            }
+        }
+        return list.build();
+    }
+
+    /**
+     * Barabasi-Albert graph: every new vertex joins edgesPerVertex existing ones, chosen with probability
+     * proportional to their degree, which gives a power-law degree distribution with a few large hubs.
+     */
+    public static <V> MyGraph<V> powerLaw(int n, int edgesPerVertex, long seed) {
+        Random random = new Random(seed);
+        EdgeList list = new EdgeList(n, (long) n * edgesPerVertex);
+        //every edge end is listed once, so picking a random entry is picking by degree
+        int[] ends = new int[2 * n * edgesPerVertex];
+        int size = 0;
+        for (int v = 1; v < n; v++) {
+            for (int j = 0; j < edgesPerVertex; j++) {
+                int w = size == 0 ? 0 : ends[random.nextInt(size)];
+                if (w != v) {
+                    list.add(v, w, random);
+                    ends[size++] = v;
+                    ends[size++] = w;
+                }
+            }
+        }
+        return list.build();
+    }
+
+    /**
+     * rows x columns grid, where every vertex is joined to the vertices right of and below it
+     */
+    public static <V> MyGraph<V> grid(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        int n = rows * columns;
+        EdgeList list = new EdgeList(n, 2L * n);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int v = r * columns + c;
+                if (c + 1 < columns) {
+                    list.add(v, v + 1, random);
+                }
+                if (r + 1 < rows) {
+                    list.add(v, v + columns, random);
+                }
+            }
+        }
+        return list.build();
+    }
+
+    /**
+     * Path 0 - 1 - ... - (n-1), the worst case for algorithms that iterate until nothing changes
+     */
+    public static <V> MyGraph<V> path(int n, long seed) {
+        Random random = new Random(seed);
+        EdgeList list = new EdgeList(n, n);
+        for (int v = 1; v < n; v++) {
+            list.add(v - 1, v, random);
+        }
+        return list.build();
+    }
+
+    /**
+     * Growable arrays of edges, loaded in one batch
+     */
+    private static final class EdgeList {
+        private final int n;
+        private int[] from;
+        private int[] to;
+        private int[] weights;
+        private int size;
+
+        private EdgeList(int n, long expected) {
+            int capacity = (int) Math.min(Math.max(expected, 16), Integer.MAX_VALUE - 8);
+            this.n = n;
+            this.from = new int[capacity];
+            this.to = new int[capacity];
+            this.weights = new int[capacity];
+        }
+
+        private void add(int v, int w, Random random) {
+            if (size == from.length) {
+                int capacity = size + (size >> 1);
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            from[size] = v;
+            to[size] = w;
+            weights[size] = 1 + random.nextInt(MAX_WEIGHT);
+            size++;
+        }
+
+        private <V> MyGraph<V> build() {
+            MyGraph<V> graph = new MyGraph<>();
+            int[] ids = new int[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = i;
+            }
+            graph.addVertices(ids);
+            graph.addEdges(Arrays.copyOf(from, size), Arrays.copyOf(to, size),
+                    Arrays.copyOf(weights, size));
+            return graph;
+        }
+    }
+}
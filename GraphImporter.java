@@ -0,0 +1,478 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Streams text graph files into a {@link MyGraph}. Files are read through NIO buffers and parsed byte by
+ * byte, and edges are handed to {@link MyGraph#addEdges(int[], int[], int[])} in batches, so no String
+ * or boxed number is created per line.
+ * <p>
+ * Supported formats:
+ * <ul>
+ * <li>Edge list: one "u v [weight]" per line, the weight defaults to 1. Lines starting with # or % are
+ * comments. Vertices are created for every ID that appears.</li>
+ * <li>DIMACS shortest path (.gr): "p sp n m", then "a u v weight" per arc, comments start with c.
+ * Vertices 1..n are created. Arcs in both directions collapse into one undirected edge.</li>
+ * <li>METIS: "n m [fmt [ncon]]", then one line per vertex 1..n with its neighbors, each followed by the
+ * edge weight if fmt ends with 1. Vertex sizes and weights are skipped. Comments start with %.</li>
+ * </ul>
+ * As with {@link MyGraph#addEdge(int, int, int)}, self loops and repeated edges are skipped.
+ * <p>
+ * Each format can also be read into an {@link OffHeapGraph.Builder} instead, for graphs too large for the
+ * heap: edges go straight to the builder's off-heap log, and only the vertex IDs are kept on the heap. The
+ * builder keeps the lightest of repeated edges, where a {@link MyGraph} keeps the first one. They can also be
+ * read into a {@link ShardedGraph.Builder}, which hands every edge straight to the shards of its ends.
+ */
+public final class GraphImporter {
+    /**
+     * Number of edges handed to the graph at once
+     */
+    static final int BATCH_SIZE = 1 << 20;
+    /**
+     * Largest number of bytes of a file parsed at once by one task of
+     * {@link #readEdgeListParallel(Path, MyGraph)}
+     */
+    static final int CHUNK_SIZE = 1 << 26;
+
+    private GraphImporter() {
+    }
+
+    /**
+     * Reads an edge list into the graph
+     *
+     * @return number of edges added
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static int readEdgeList(Path file, MyGraph<?> graph) throws IOException {
+        GraphSink sink = new GraphSink(graph, true);
+        parseEdgeList(file, sink);
+        return sink.finish();
+    }
+
+    /**
+     * Reads an edge list into a builder of an off-heap graph. The file is read twice: first for the vertex
+     * IDs, which the builder needs up front, then for the edges.
+     *
+     * @return builder with every vertex and edge of the file
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static OffHeapGraph.Builder edgeListBuilder(Path file) throws IOException {
+        IntIntMap vertices = new IntIntMap();
+        parseEdgeList(file, (u, v, weight) -> {
+            vertices.put(u, 0);
+            vertices.put(v, 0);
+        });
+        OffHeapGraph.Builder builder = OffHeapGraph.builder(vertices.keys());
+        parseEdgeList(file, builder::addEdge);
+        return builder;
+    }
+
+    /**
+     * Reads an edge list into a builder of a sharded graph
+     *
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static void readEdgeList(Path file, ShardedGraph.Builder builder) throws IOException {
+        parseEdgeList(file, builder::addEdge);
+    }
+
+    /**
+     * Reads an edge list into the graph, parsing chunks of the memory-mapped file in parallel on the
+     * fork-join common pool. Chunks are parsed in waves of one per thread, and each wave is added to the
+     * graph before the next one is parsed, so only the edges of one wave wait on the heap. Chunks are added
+     * in file order, so the result is the same as {@link #readEdgeList(Path, MyGraph)}.
+     *
+     * @return number of edges added
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static int readEdgeListParallel(Path file, MyGraph<?> graph) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int wave = ForkJoinPool.getCommonPoolParallelism();
+            //several chunks per thread for balance, and each chunk small enough that a wave stays small
+            int chunks = (int) Math.max(4L * wave, size / CHUNK_SIZE + 1);
+            long[] bounds = new long[chunks + 1];
+            for (int i = 1; i < chunks; i++) {
+                bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, size * i / chunks));
+            }
+            bounds[chunks] = size;
+            EdgeBatch[] parsed = new EdgeBatch[wave];
+            int added = 0;
+            for (int first = 0; first < chunks; first += wave) {
+                int count = Math.min(wave, chunks - first);
+                int offset = first;
+                try {
+                    IntStream.range(0, count).parallel().forEach(i -> {
+                        try {
+                            parsed[i] = parseChunk(channel, bounds[offset + i], bounds[offset + i + 1]);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                for (int i = 0; i < count; i++) {
+                    added += parsed[i].flush(graph, true);
+                    parsed[i] = null;
+                }
+            }
+            return added;
+        }
+    }
+
+    /**
+     * Reads a DIMACS shortest path file into the graph
+     *
+     * @return number of edges added
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static int readDimacs(Path file, MyGraph<?> graph) throws IOException {
+        GraphSink sink = new GraphSink(graph, false);
+        parseDimacs(file, n -> graph.addVertices(idRange(1, n)), sink);
+        return sink.finish();
+    }
+
+    /**
+     * Reads a DIMACS shortest path file into a builder of an off-heap graph
+     *
+     * @return builder with every vertex and edge of the file
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static OffHeapGraph.Builder dimacsBuilder(Path file) throws IOException {
+        OffHeapGraph.Builder[] builder = {OffHeapGraph.builder(new int[0])};
+        parseDimacs(file, n -> builder[0] = OffHeapGraph.builder(idRange(1, n)),
+                (u, v, weight) -> builder[0].addEdge(u, v, weight));
+        return builder[0];
+    }
+
+    /**
+     * Reads a DIMACS shortest path file into a builder of a sharded graph
+     *
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static void readDimacs(Path file, ShardedGraph.Builder builder) throws IOException {
+        parseDimacs(file, n -> addVertices(builder, n), builder::addEdge);
+    }
+
+    /**
+     * Reads a METIS graph file into the graph
+     *
+     * @return number of edges added
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static int readMetis(Path file, MyGraph<?> graph) throws IOException {
+        GraphSink sink = new GraphSink(graph, false);
+        parseMetis(file, n -> graph.addVertices(idRange(1, n)), sink);
+        return sink.finish();
+    }
+
+    /**
+     * Reads a METIS graph file into a builder of an off-heap graph
+     *
+     * @return builder with every vertex and edge of the file
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static OffHeapGraph.Builder metisBuilder(Path file) throws IOException {
+        OffHeapGraph.Builder[] builder = new OffHeapGraph.Builder[1];
+        parseMetis(file, n -> builder[0] = OffHeapGraph.builder(idRange(1, n)),
+                (u, v, weight) -> builder[0].addEdge(u, v, weight));
+        return builder[0];
+    }
+
+    /**
+     * Reads a METIS graph file into a builder of a sharded graph
+     *
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static void readMetis(Path file, ShardedGraph.Builder builder) throws IOException {
+        parseMetis(file, n -> addVertices(builder, n), builder::addEdge);
+    }
+
+    /* Helper functions and classes */
+
+    /**
+     * Parses one chunk of an edge list, which starts at the beginning of a line and ends at the end of one
+     *
+     * @return every edge of the chunk
+     */
+    private static EdgeBatch parseChunk(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        ByteReader reader = new ByteReader(chunk);
+        EdgeBatch batch = new EdgeBatch(1024);
+        while (parseEdgeListLine(reader, batch)) {
+            //the whole chunk is kept, and added in order with the rest of its wave
+        }
+        return batch;
+    }
+
+    /**
+     * Parses an edge list, handing every edge to the sink
+     */
+    private static void parseEdgeList(Path file, EdgeSink edges) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteReader reader = new ByteReader(channel);
+            while (parseEdgeListLine(reader, edges)) {
+                //every edge went to the sink
+            }
+        }
+    }
+
+    /**
+     * Parses a DIMACS shortest path file
+     *
+     * @param vertices given the number of vertices once the problem line is read
+     */
+    private static void parseDimacs(Path file, IntConsumer vertices, EdgeSink edges) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteReader reader = new ByteReader(channel);
+            boolean header = false;
+            while (!reader.atEnd()) {
+                reader.skipBlanks();
+                int c = reader.peek();
+                if (c == 'p') {
+                    skipWord(reader);
+                    skipWord(reader);
+                    vertices.accept(reader.readInt());
+                    reader.readLong();
+                    header = true;
+                } else if (c == 'a') {
+                    if (!header) {
+                        throw reader.error("Arc before the problem line");
+                    }
+                    skipWord(reader);
+                    edges.add(reader.readInt(), reader.readInt(), reader.readInt());
+                } else if (c != 'c' && c != '\n' && c != -1) {
+                    throw reader.error("Unknown line type");
+                }
+                reader.skipLine();
+            }
+        }
+    }
+
+    /**
+     * Parses a METIS graph file
+     *
+     * @param vertices given the number of vertices once the header is read
+     */
+    private static void parseMetis(Path file, IntConsumer vertices, EdgeSink edges) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteReader reader = new ByteReader(channel);
+            skipComments(reader);
+            int n = reader.readInt();
+            reader.readLong();
+            int format = reader.atEndOfLine() ? 0 : reader.readInt();
+            int constraints = reader.atEndOfLine() ? 1 : reader.readInt();
+            reader.skipLine();
+            boolean sizes = format / 100 % 10 == 1;
+            boolean vertexWeights = format / 10 % 10 == 1;
+            boolean edgeWeights = format % 10 == 1;
+            vertices.accept(n);
+
+            for (int v = 1; v <= n; v++) {
+                skipComments(reader);
+                if (reader.atEnd()) {
+                    throw reader.error("Missing vertex " + v);
+                }
+                if (sizes) {
+                    reader.readLong();
+                }
+                for (int i = 0; vertexWeights && i < constraints; i++) {
+                    reader.readLong();
+                }
+                while (!reader.atEndOfLine()) {
+                    int neighbor = reader.readInt();
+                    edges.add(v, neighbor, edgeWeights ? reader.readInt() : 1);
+                }
+                reader.skipLine();
+            }
+        }
+    }
+
+    /**
+     * Parses the next edge of an edge list into the sink, skipping blank and comment lines
+     *
+     * @return false at the end of the input
+     */
+    private static boolean parseEdgeListLine(ByteReader reader, EdgeSink edges) throws IOException {
+        while (!reader.atEnd()) {
+            reader.skipBlanks();
+            int c = reader.peek();
+            if (c == '#' || c == '%' || c == '\n') {
+                reader.skipLine();
+                continue;
+            }
+            if (c == -1) {
+                return false;
+            }
+            int u = reader.readInt();
+            int v = reader.readInt();
+            int weight = reader.atEndOfLine() ? 1 : reader.readInt();
+            reader.skipLine();
+            edges.add(u, v, weight);
+            return true;
+        }
+        return false;
+    }
+
+    private static void skipComments(ByteReader reader) throws IOException {
+        while (!reader.atEnd()) {
+            reader.skipBlanks();
+            if (reader.peek() != '%') {
+                return;
+            }
+            reader.skipLine();
+        }
+    }
+
+    private static void skipWord(ByteReader reader) throws IOException {
+        reader.skipBlanks();
+        int c;
+        while ((c = reader.peek()) != -1 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+            reader.skipByte();
+        }
+    }
+
+    /**
+     * @return position just after the first line break at or after the given position, or the file size
+     */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < channel.size()) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return channel.size();
+    }
+
+    /**
+     * Adds vertices 1..n to the builder
+     */
+    private static void addVertices(ShardedGraph.Builder builder, int n) {
+        for (int id = 1; id <= n; id++) {
+            builder.addVertex(id);
+        }
+    }
+
+    private static int[] idRange(int first, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+        }
+        return ids;
+    }
+
+    /**
+     * Where parsed edges go
+     */
+    @FunctionalInterface
+    private interface EdgeSink {
+        void add(int u, int v, int weight);
+    }
+
+    /**
+     * Batches edges, and hands every full batch to the graph
+     */
+    private static final class GraphSink implements EdgeSink {
+        private final MyGraph<?> graph;
+        private final boolean createVertices;
+        private final EdgeBatch batch = new EdgeBatch(BATCH_SIZE);
+        private int added;
+
+        private GraphSink(MyGraph<?> graph, boolean createVertices) {
+            this.graph = graph;
+            this.createVertices = createVertices;
+        }
+
+        @Override
+        public void add(int u, int v, int weight) {
+            batch.add(u, v, weight);
+            if (batch.size == BATCH_SIZE) {
+                added += batch.flush(graph, createVertices);
+            }
+        }
+
+        /**
+         * Hands the last edges to the graph
+         *
+         * @return number of edges added
+         */
+        private int finish() {
+            return added + batch.flush(graph, createVertices);
+        }
+    }
+
+    /**
+     * Growable arrays of edges, handed to the graph in one call
+     */
+    private static final class EdgeBatch implements EdgeSink {
+        private int[] from;
+        private int[] to;
+        private int[] weights;
+        private int size;
+
+        private EdgeBatch(int capacity) {
+            from = new int[capacity];
+            to = new int[capacity];
+            weights = new int[capacity];
+        }
+
+        @Override
+        public void add(int u, int v, int weight) {
+            if (size == from.length) {
+                int capacity = size + (size >> 1) + 1;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            from[size] = u;
+            to[size] = v;
+            weights[size] = weight;
+            size++;
+        }
+
+        /**
+         * Adds the edges to the graph and empties the batch
+         *
+         * @param createVertices true to first add every vertex that appears in the batch
+         * @return number of edges added
+         */
+        private int flush(MyGraph<?> graph, boolean createVertices) {
+            if (size == 0) {
+                return 0;
+            }
+            int[] batchFrom = size == from.length ? from : Arrays.copyOf(from, size);
+            int[] batchTo = size == to.length ? to : Arrays.copyOf(to, size);
+            int[] batchWeights = size == weights.length ? weights : Arrays.copyOf(weights, size);
+            if (createVertices) {
+                //vertices are created in order of first appearance, however the edges were batched
+                int[] endpoints = new int[2 * size];
+                for (int i = 0; i < size; i++) {
+                    endpoints[2 * i] = from[i];
+                    endpoints[2 * i + 1] = to[i];
+                }
+                graph.addVertices(endpoints);
+            }
+            int added = graph.addEdges(batchFrom, batchTo, batchWeights);
+            size = 0;
+            return added;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.Arrays;
+
+/**
+ * Operation counts and latencies of one graph, see {@link MyGraph#trackMetrics(boolean)}.
+ * <p>
+ * Every timed operation costs two calls to {@link System#nanoTime()} and one histogram increment.
+ * A {@link Listener} can forward each operation elsewhere, for example as a Java Flight Recorder event.
+ * <p>
+ * Not thread safe, like {@link MyGraph}: read it, or take a {@link MyGraph#metricsSnapshot() snapshot},
+ * on the thread that uses the graph.
+ */
+public final class GraphMetrics {
+    /**
+     * Operations of {@link MyGraph} that are counted and timed
+     */
+    public enum Operation {
+        ADD_VERTEX,
+        REMOVE_VERTEX,
+        /**
+         * {@link MyGraph#removeVertices(int[])}, timed once per batch
+         */
+        REMOVE_VERTICES,
+        ADD_EDGE,
+        /**
+         * {@link MyGraph#addEdges(int[], int[], int[], boolean) addEdges}, timed once per batch
+         */
+        ADD_EDGES,
+        REMOVE_EDGE,
+        CHANGE_EDGE_VALUE,
+        IS_CONNECTED,
+        CONNECTED_COMPONENTS,
+        /**
+         * Every {@code createMST} method
+         */
+        CREATE_MST,
+        /**
+         * {@link MyGraph#mstWeight()} and {@link MyGraph#mstEdges()}, which are O(1) and O(V) when the MST is tracked
+         */
+        MST_QUERY,
+        HOP_DISTANCES,
+        SHORTEST_PATHS,
+        SHORTEST_PATH,
+        /**
+         * {@link MyGraph#compute(VertexProgram, int)}, timed once per run
+         */
+        COMPUTE
+    }
+
+    /**
+     * Called after every timed operation, on the thread that ran it
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param operation operation that completed, or threw
+         * @param nanos     time it took
+         */
+        void completed(Operation operation, long nanos);
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    //one histogram per operation, created on its first use
+    private final LatencyHistogram[] latencies;
+    private Listener listener;
+
+    GraphMetrics() {
+        this.latencies = new LatencyHistogram[OPERATIONS.length];
+    }
+
+    /**
+     * Records an operation that started at the given {@link System#nanoTime()}
+     */
+    void record(Operation operation, long start) {
+        long nanos = System.nanoTime() - start;
+        LatencyHistogram histogram = latencies[operation.ordinal()];
+        if (histogram == null) {
+            histogram = latencies[operation.ordinal()] = new LatencyHistogram();
+        }
+        histogram.record(nanos);
+        if (listener != null) {
+            listener.completed(operation, nanos);
+        }
+    }
+
+    /**
+     * @param listener called after every timed operation, null for none
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return number of times the operation ran
+     */
+    public long count(Operation operation) {
+        LatencyHistogram histogram = latencies[operation.ordinal()];
+        return histogram == null ? 0 : histogram.count();
+    }
+
+    /**
+     * @return copy of the latencies of the operation
+     */
+    public LatencyHistogram latency(Operation operation) {
+        LatencyHistogram histogram = latencies[operation.ordinal()];
+        return histogram == null ? new LatencyHistogram() : histogram.copy();
+    }
+
+    /**
+     * Forgets every recorded operation. The listener is kept.
+     */
+    public void reset() {
+        Arrays.fill(latencies, null);
+    }
+
+    /**
+     * @return copy of the latencies of every operation, by ordinal
+     */
+    LatencyHistogram[] latencies() {
+        LatencyHistogram[] copies = new LatencyHistogram[OPERATIONS.length];
+        for (Operation operation : OPERATIONS) {
+            copies[operation.ordinal()] = latency(operation);
+        }
+        return copies;
+    }
+}
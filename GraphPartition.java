@@ -0,0 +1,210 @@
+import java.util.Arrays;
+
+/**
+ * Assignment of every vertex of a graph to one of a number of shards, as used by {@link ShardedGraph}.
+ * Edges between vertices of different shards are cut edges: the fewer there are, the fewer messages
+ * the shards exchange. Later changes to the graph are not reflected.
+ */
+public final class GraphPartition {
+    //vertex IDs in ascending order, and the shard of each one
+    private final int[] ids;
+    private final int[] shards;
+    private final int[] sizes;
+    private final int edgeCut;
+
+    private GraphPartition(CsrGraph<?> csr, int[] shards, int count) {
+        int n = csr.numVertices();
+        this.ids = new int[n];
+        this.shards = shards;
+        this.sizes = new int[count];
+        int cut = 0;
+        for (int v = 0; v < n; v++) {
+            ids[v] = csr.idAt(v);
+            sizes[shards[v]]++;
+            for (int e = csr.edgesStart(v); e < csr.edgesEnd(v); e++) {
+                //every edge is seen from both ends
+                if (v < csr.target(e) && shards[v] != shards[csr.target(e)]) {
+                    cut++;
+                }
+            }
+        }
+        this.edgeCut = cut;
+    }
+
+    /**
+     * Spreads the vertices over the shards by a hash of their IDs. O(V + E), and the shards are balanced,
+     * but about (shards - 1) / shards of the edges are cut.
+     *
+     * @param graph  graph to partition
+     * @param shards number of shards
+     * @return partition of the graph
+     * @throws IllegalArgumentException if there are less than 1 shards
+     */
+    public static GraphPartition hash(MyGraph<?> graph, int shards) {
+        checkShards(shards);
+        CsrGraph<?> csr = graph.toCsr();
+        int[] assignment = new int[csr.numVertices()];
+        for (int v = 0; v < assignment.length; v++) {
+            assignment[v] = hashShard(csr.idAt(v), shards);
+        }
+        return new GraphPartition(csr, assignment, shards);
+    }
+
+    /**
+     * @return shard of the vertex with the given ID in a {@link #hash(MyGraph, int) hash} partition
+     */
+    static int hashShard(int id, int shards) {
+        //Fibonacci hashing, so that sequential IDs do not land in sequential shards
+        return (int) (((id * 0x9E3779B9L) & 0xFFFFFFFFL) * shards >>> 32);
+    }
+
+    /**
+     * Splits the graph into shards of at most 3% above the average size that cut few edges, in the style
+     * of the refinement phase of METIS: the vertices are first cut into consecutive runs of a breadth first
+     * order, so that neighbors start out together, then every round moves each vertex to the shard that
+     * holds most of its neighbors, if that shard has room. Stops after the given number of rounds, or once
+     * a round moves nothing. O(rounds * (V + E))
+     *
+     * @param graph  graph to partition
+     * @param shards number of shards
+     * @param rounds largest number of refinement rounds
+     * @return partition of the graph
+     * @throws IllegalArgumentException if there are less than 1 shards
+     */
+    public static GraphPartition labelPropagation(MyGraph<?> graph, int shards, int rounds) {
+        checkShards(shards);
+        CsrGraph<?> csr = graph.toCsr();
+        int n = csr.numVertices();
+        int[] assignment = new int[n];
+        int[] sizes = new int[shards];
+        int[] order = breadthFirstOrder(csr);
+        for (int position = 0; position < n; position++) {
+            int shard = (int) ((long) position * shards / n);
+            assignment[order[position]] = shard;
+            sizes[shard]++;
+        }
+        int capacity = (int) Math.ceil(1.03 * n / shards);
+        //number of neighbors of the current vertex in each shard, and the shards that have any
+        int[] counts = new int[shards];
+        int[] touched = new int[shards];
+        for (int round = 0; round < rounds; round++) {
+            int moved = 0;
+            for (int v : order) {
+                int current = assignment[v];
+                int distinct = 0;
+                for (int e = csr.edgesStart(v); e < csr.edgesEnd(v); e++) {
+                    int shard = assignment[csr.target(e)];
+                    if (counts[shard]++ == 0) {
+                        touched[distinct++] = shard;
+                    }
+                }
+                int best = current;
+                for (int t = 0; t < distinct; t++) {
+                    int shard = touched[t];
+                    if (counts[shard] > counts[best] && sizes[shard] < capacity) {
+                        best = shard;
+                    }
+                }
+                for (int t = 0; t < distinct; t++) {
+                    counts[touched[t]] = 0;
+                }
+                if (best != current) {
+                    assignment[v] = best;
+                    sizes[current]--;
+                    sizes[best]++;
+                    moved++;
+                }
+            }
+            if (moved == 0) {
+                break;
+            }
+        }
+        return new GraphPartition(csr, assignment, shards);
+    }
+
+    /**
+     * @return number of shards
+     */
+    public int numShards() {
+        return sizes.length;
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int numVertices() {
+        return ids.length;
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return shard of the vertex, -1 if the vertex was not in the graph
+     */
+    public int shardOf(int id) {
+        int i = Arrays.binarySearch(ids, id);
+        return i < 0 ? -1 : shards[i];
+    }
+
+    /**
+     * @param shard number of the shard, from 0 to {@link #numShards()} - 1
+     * @return number of vertices in the shard
+     */
+    public int size(int shard) {
+        return sizes[shard];
+    }
+
+    /**
+     * @return number of edges between vertices of different shards
+     */
+    public int edgeCut() {
+        return edgeCut;
+    }
+
+    /**
+     * @return vertex IDs in ascending order, for {@link ShardedGraph}
+     */
+    int[] ids() {
+        return ids;
+    }
+
+    /**
+     * @return shard of the vertex at every position of {@link #ids()}
+     */
+    int[] shards() {
+        return shards;
+    }
+
+    private static void checkShards(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("There must be at least 1 shard");
+        }
+    }
+
+    /**
+     * @return dense indices in the order of a breadth first search from each unvisited vertex in turn
+     */
+    private static int[] breadthFirstOrder(CsrGraph<?> csr) {
+        int n = csr.numVertices();
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int size = 0;
+        for (int root = 0; root < n; root++) {
+            if (visited[root]) {
+                continue;
+            }
+            visited[root] = true;
+            order[size++] = root;
+            for (int head = size - 1; head < size; head++) {
+                int v = order[head];
+                for (int e = csr.edgesStart(v); e < csr.edgesEnd(v); e++) {
+                    int next = csr.target(e);
+                    if (!visited[next]) {
+                        visited[next] = true;
+                        order[size++] = next;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+}
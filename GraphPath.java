@@ -0,0 +1,40 @@
+import java.util.Arrays;
+
+/**
+ * A path through a graph: the IDs of the vertices along it, from source to target, and its total weight.
+ */
+public final class GraphPath {
+    private final int[] vertices;
+    private final long weight;
+
+    GraphPath(int[] vertices, long weight) {
+        this.vertices = vertices;
+        this.weight = weight;
+    }
+
+    /**
+     * @return IDs of the vertices along the path, source first
+     */
+    public int[] vertices() {
+        return vertices.clone();
+    }
+
+    /**
+     * @return sum of the edge weights along the path
+     */
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * @return number of edges along the path
+     */
+    public int numEdges() {
+        return vertices.length - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Path (weight %d): %s", weight, Arrays.toString(vertices));
+    }
+}
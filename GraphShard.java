@@ -0,0 +1,60 @@
+/**
+ * One shard of a {@link ShardedGraph}: the vertices it owns, their edges, and a table of ghost vertices,
+ * the vertices of other shards at the far end of cut edges.
+ * <p>
+ * Every vertex of the sharded graph has a global index, and every shard owns a consecutive range of them.
+ * Local indices 0..owned-1 are the owned vertices in the same order, and owned..owned+ghosts-1 are the
+ * ghosts. Edges are stored in CSR form on local indices, and only for owned vertices: a cut edge is
+ * stored once in each of the two shards, each time from its owned end to a ghost.
+ */
+final class GraphShard {
+    final int index;
+    //global index of the first owned vertex
+    final int offset;
+    final int owned;
+    //edges of owned vertex i are at offsets[i] to offsets[i + 1] - 1
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+    //global index and owning shard of every ghost, by local index - owned
+    final int[] ghostGlobal;
+    final int[] ghostShard;
+
+    GraphShard(int index, int offset, int owned, int[] offsets, int[] targets, int[] weights,
+               int[] ghostGlobal, int[] ghostShard) {
+        this.index = index;
+        this.offset = offset;
+        this.owned = owned;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.ghostGlobal = ghostGlobal;
+        this.ghostShard = ghostShard;
+    }
+
+    int ghosts() {
+        return ghostGlobal.length;
+    }
+
+    int edgeCount() {
+        return offsets[owned];
+    }
+
+    boolean isGhost(int local) {
+        return local >= owned;
+    }
+
+    /**
+     * @return global index of an owned vertex or ghost
+     */
+    int global(int local) {
+        return local < owned ? offset + local : ghostGlobal[local - owned];
+    }
+
+    /**
+     * @return local index of a vertex owned by this shard
+     */
+    int local(int global) {
+        return global - offset;
+    }
+}
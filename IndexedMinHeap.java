@@ -0,0 +1,151 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap over the dense indices 0..capacity-1 with long keys.
+ * Keeps the position of every index in the heap so that keys can be decreased in O(log n),
+ * which is what Prim's and Dijkstra's algorithms need.
+ */
+class IndexedMinHeap {
+    private final int[] heap;   //heap position -> index
+    private final int[] pos;    //index -> heap position, -1 if not in the heap
+    private final long[] keys;  //index -> key
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        pos = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(pos, -1);
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int index) {
+        return pos[index] != -1;
+    }
+
+    long keyOf(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Inserts the index with the given key
+     *
+     * @param index index to be inserted, must not already be in the heap
+     * @param key   key of the index
+     */
+    void insert(int index, long key) {
+        keys[index] = key;
+        heap[size] = index;
+        pos[index] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the key of an index that is already in the heap. Larger keys are ignored.
+     *
+     * @return true if the key was lowered, false otherwise
+     */
+    boolean decreaseKey(int index, long key) {
+        if (key >= keys[index]) {
+            return false;
+        }
+        keys[index] = key;
+        siftUp(pos[index]);
+        return true;
+    }
+
+    /**
+     * Inserts the index, or lowers its key if it is already in the heap
+     *
+     * @return true if the heap changed, false otherwise
+     */
+    boolean insertOrDecrease(int index, long key) {
+        if (contains(index)) {
+            return decreaseKey(index, key);
+        }
+        insert(index, key);
+        return true;
+    }
+
+    /**
+     * @return index with the smallest key
+     */
+    int peekMin() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Removes the index with the smallest key
+     *
+     * @return index with the smallest key
+     */
+    int pollMin() {
+        int min = peekMin();
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        pos[min] = -1;
+        return min;
+    }
+
+    /**
+     * Empties the heap so the instance can be reused. Only touches the indices still in the heap.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int index = heap[i];
+        long key = keys[index];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[heap[parent]] <= key) {
+                break;
+            }
+            heap[i] = heap[parent];
+            pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = index;
+        pos[index] = i;
+    }
+
+    private void siftDown(int i) {
+        int index = heap[i];
+        long key = keys[index];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (key <= keys[heap[child]]) {
+                break;
+            }
+            heap[i] = heap[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = index;
+        pos[index] = i;
+    }
+}
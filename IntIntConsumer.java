@@ -0,0 +1,8 @@
+/**
+ * Callback that takes two ints, such as a neighbor ID and the weight of the edge to it.
+ * Used to visit edges without boxing or allocating a list.
+ */
+@FunctionalInterface
+public interface IntIntConsumer {
+    void accept(int neighbor, int weight);
+}
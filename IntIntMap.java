@@ -0,0 +1,210 @@
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from int keys to int values. Keys and values live in two flat arrays,
+ * so nothing is boxed and there is no entry object per mapping.
+ * <p>
+ * Uses linear probing and backward shift deletion, so there are no tombstones to clean up.
+ * Key 0 marks an empty slot in the table and is stored on the side.
+ */
+class IntIntMap {
+    private static final int FREE = 0;
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int shift;
+    private boolean hasFreeKey;
+    private int freeValue;
+    private int size;
+
+    IntIntMap() {
+        this(0);
+    }
+
+    /**
+     * @param expected number of mappings the map should hold without growing
+     */
+    IntIntMap(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean containsKey(int key) {
+        if (key == FREE) {
+            return hasFreeKey;
+        }
+        return keys[find(key)] != FREE;
+    }
+
+    /**
+     * @param key          key to look up
+     * @param defaultValue value returned if the key is not in the map
+     * @return value mapped to the key, or the default value
+     */
+    int get(int key, int defaultValue) {
+        if (key == FREE) {
+            return hasFreeKey ? freeValue : defaultValue;
+        }
+        int slot = find(key);
+        return keys[slot] == FREE ? defaultValue : values[slot];
+    }
+
+    /**
+     * Maps the key to the value, overwriting any previous value
+     *
+     * @return true if the key was not in the map before, false otherwise
+     */
+    boolean put(int key, int value) {
+        if (key == FREE) {
+            freeValue = value;
+            if (hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = true;
+            size++;
+            return true;
+        }
+        int slot = find(key);
+        if (keys[slot] != FREE) {
+            values[slot] = value;
+            return false;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        //load factor of 3/4
+        if (size - (hasFreeKey ? 1 : 0) > (keys.length >> 2) * 3) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the key from the map
+     *
+     * @return true if the key was removed, false if it was not in the map
+     */
+    boolean remove(int key) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = false;
+            size--;
+            return true;
+        }
+        int slot = find(key);
+        if (keys[slot] == FREE) {
+            return false;
+        }
+        //shift later keys of the same probe run back, so lookups never stop early
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = hash(keys[next]);
+            //move the key if its home slot is not within (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    /**
+     * Grows the table so that it can hold the expected number of mappings without growing again
+     */
+    void ensureCapacity(int expected) {
+        int capacity = capacityFor(expected);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, FREE);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    /**
+     * @return every key in the map, in no particular order
+     */
+    int[] keys() {
+        int[] result = new int[size];
+        int count = 0;
+        if (hasFreeKey) {
+            result[count++] = FREE;
+        }
+        for (int key : keys) {
+            if (key != FREE) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return estimated number of bytes held by the arrays of this map
+     */
+    long sizeInBytes() {
+        return 8L * keys.length;
+    }
+
+    private int hash(int key) {
+        //Fibonacci hashing, spreads strided and sequential keys alike
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * @return slot holding the key, or the empty slot where it would go
+     */
+    private int find(int key) {
+        int slot = hash(key);
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private static int capacityFor(int expected) {
+        int capacity = MIN_CAPACITY;
+        while ((capacity >> 2) * 3 < expected) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Histogram of latencies in nanoseconds, in the style of HdrHistogram: every power of two is split into
+ * 32 linear buckets, so any value is counted with less than 3.2% error, recording is one array increment,
+ * and the whole range up to hours takes about 10 KB.
+ * <p>
+ * The histograms returned by {@link GraphMetrics} and {@link MetricsSnapshot} are copies, which later
+ * operations do not change.
+ */
+public final class LatencyHistogram {
+    //values below 2^(SUB_BITS + 1) get a bucket each, larger ones keep their SUB_BITS + 1 highest bits
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    //values are clamped to the bucket of this value, about 4.9 hours
+    private static final long HIGHEST = (1L << 44) - 1;
+
+    private final long[] counts;
+    private long count;
+    private long total;
+    private long min;
+    private long max;
+
+    LatencyHistogram() {
+        this.counts = new long[bucket(HIGHEST) + 1];
+        this.min = Long.MAX_VALUE;
+    }
+
+    private LatencyHistogram(LatencyHistogram other) {
+        this.counts = other.counts.clone();
+        this.count = other.count;
+        this.total = other.total;
+        this.min = other.min;
+        this.max = other.max;
+    }
+
+    /**
+     * @param nanos latency of one operation, negative values are counted as 0
+     */
+    void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        counts[bucket(Math.min(nanos, HIGHEST))]++;
+        count++;
+        total += nanos;
+        min = Math.min(min, nanos);
+        max = Math.max(max, nanos);
+    }
+
+    LatencyHistogram copy() {
+        return new LatencyHistogram(this);
+    }
+
+    /**
+     * @return number of recorded latencies
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return sum of the recorded latencies in nanoseconds
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * @return smallest recorded latency in nanoseconds, 0 if there are none
+     */
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return largest recorded latency in nanoseconds, 0 if there are none
+     */
+    public long max() {
+        return max;
+    }
+
+    /**
+     * @return average of the recorded latencies in nanoseconds, 0 if there are none
+     */
+    public double mean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Finds the latency that the given percentage of the recorded latencies do not exceed. Like HdrHistogram,
+     * the highest value of its bucket is returned, so the result is never below the exact percentile.
+     *
+     * @param percentile between 0 and 100
+     * @return latency in nanoseconds, 0 if there are none
+     * @throws IllegalArgumentException if percentile is not between 0 and 100
+     */
+    public long percentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                //the last bucket also holds the clamped values
+                return i == counts.length - 1 ? max : Math.min(highestInBucket(i), max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %d, mean %.0f ns, p50 %d ns, p99 %d ns, max %d ns",
+                count, mean(), percentile(50), percentile(99), max);
+    }
+
+    private static int bucket(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return shift * SUB_COUNT + (int) (value >>> shift);
+    }
+
+    private static long highestInBucket(int bucket) {
+        if (bucket < 2 * SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_COUNT - 1;
+        long lowest = (long) (bucket % SUB_COUNT + SUB_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
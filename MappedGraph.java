@@ -0,0 +1,271 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only graph served straight from a memory-mapped {@link GraphFile}. Nothing is decoded up front:
+ * IDs are binary searched in the file, and the edges and value of a vertex are decoded when queried.
+ * Every read uses absolute positions, so one instance can be queried from many threads.
+ * <p>
+ * Edges are delta-encoded, so looking up one edge decodes the edges of the vertex up to it. O(degree)
+ */
+public final class MappedGraph<V> implements Closeable {
+    private final int n;
+    private final int edges;
+    private final ValueCodec<? extends V> codec;
+    private ByteBuffer ids;
+    private ByteBuffer adjacency;
+    private ByteBuffer values;
+    private ByteBuffer adjacencyIndex;
+    private ByteBuffer valueIndex;
+
+    MappedGraph(int n, int edges, ValueCodec<? extends V> codec, ByteBuffer ids, ByteBuffer adjacency,
+                ByteBuffer values, ByteBuffer adjacencyIndex, ByteBuffer valueIndex) {
+        this.n = n;
+        this.edges = edges;
+        this.codec = codec;
+        this.ids = ids;
+        this.adjacency = adjacency;
+        this.values = values;
+        this.adjacencyIndex = adjacencyIndex;
+        this.valueIndex = valueIndex;
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int numVertices() {
+        return n;
+    }
+
+    /**
+     * @return number of edges
+     */
+    public int numEdges() {
+        return edges;
+    }
+
+    /**
+     * Checks whether or not the vertex with the given ID exists in the graph
+     *
+     * @param id ID of the vertex
+     * @return true if vertex is in graph, false otherwise
+     */
+    public boolean containsVertex(int id) {
+        return indexOf(id) != -1;
+    }
+
+    /**
+     * Decodes the value of the vertex of the given ID
+     *
+     * @param id ID of the vertex
+     * @return Value of the vertex. Null if vertex does not exist
+     * @throws UncheckedIOException if the codec fails to read the value
+     */
+    public V getVertexValue(int id) {
+        int index = indexOf(id);
+        return index == -1 ? null : valueAt(index);
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return number of edges connected to the vertex, -1 if vertex does not exist
+     */
+    public int degree(int id) {
+        int index = indexOf(id);
+        if (index == -1) {
+            return -1;
+        }
+        return readVarint(adjacency, new int[]{edgesPosition(index)});
+    }
+
+    /**
+     * Checks whether or not an edge between vertices denoted by ID1 and ID2 exists
+     *
+     * @return true if edge exists, false otherwise
+     */
+    public boolean isAdjacent(int id1, int id2) {
+        if (id1 == id2) {
+            return true;
+        }
+        return getEdgeValue(id1, id2) != null;
+    }
+
+    /**
+     * Gets value of the edge between vertices of ID1 and ID2
+     *
+     * @return value of the edge, null if the edge does not exist
+     */
+    public Integer getEdgeValue(int id1, int id2) {
+        int index1 = indexOf(id1);
+        int index2 = indexOf(id2);
+        if (index1 == -1 || index2 == -1) {
+            return null;
+        }
+        int[] position = {edgesPosition(index1)};
+        int degree = readVarint(adjacency, position);
+        int target = -1;
+        for (int i = 0; i < degree; i++) {
+            target += readVarint(adjacency, position) + 1;
+            int weight = GraphFile.unzigzag(readVarint(adjacency, position));
+            if (target == index2) {
+                return weight;
+            }
+            if (target > index2) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lists all vertices that are connected a vertex specified by the user
+     *
+     * @return List of the ID's of all the vertices adjacent to the specified vertex, in ascending order.
+     * Returns null if vertex does not exist
+     */
+    public List<Integer> getNeighbors(int id) {
+        int index = indexOf(id);
+        if (index == -1) {
+            return null;
+        }
+        List<Integer> neighbors = new ArrayList<>();
+        forEachEdge(index, (neighbor, weight) -> neighbors.add(neighbor));
+        return neighbors;
+    }
+
+    /**
+     * Visits every neighbor of a vertex, in ascending order of IDs, decoding edges straight from the file
+     *
+     * @param id     ID of the vertex specified by the user
+     * @param action called with the ID of each neighbor and the weight of the edge to it
+     * @return true if the vertex exists, false otherwise
+     */
+    public boolean forEachNeighbor(int id, IntIntConsumer action) {
+        int index = indexOf(id);
+        if (index == -1) {
+            return false;
+        }
+        forEachEdge(index, action);
+        return true;
+    }
+
+    /**
+     * Decodes the whole file into a new graph
+     *
+     * @return new graph with the same vertices, values and edges
+     */
+    public MyGraph<V> toGraph() {
+        MyGraph<V> graph = new MyGraph<>();
+        int[] vertexIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            vertexIds[i] = idAt(i);
+        }
+        graph.addVertices(vertexIds, this::valueAt);
+        int[] ids1 = new int[2 * edges];
+        int[] ids2 = new int[2 * edges];
+        int[] weights = new int[2 * edges];
+        int[] e = {0};
+        for (int i = 0; i < n; i++) {
+            int id = vertexIds[i];
+            forEachEdge(i, (neighbor, weight) -> {
+                ids1[e[0]] = id;
+                ids2[e[0]] = neighbor;
+                weights[e[0]] = weight;
+                e[0]++;
+            });
+        }
+        //every edge is listed from both ends, addEdges keeps the first copy
+        graph.addEdges(ids1, ids2, weights);
+        return graph;
+    }
+
+    /**
+     * Drops the mappings. The file is unmapped once they are garbage collected.
+     */
+    @Override
+    public void close() {
+        ids = null;
+        adjacency = null;
+        values = null;
+        adjacencyIndex = null;
+        valueIndex = null;
+    }
+
+    /* Helper functions */
+
+    private int idAt(int index) {
+        return mapped(ids).getInt(4 * index);
+    }
+
+    /**
+     * @return index of the vertex, found by binary search over the sorted IDs in the file. -1 if it does not exist
+     */
+    private int indexOf(int id) {
+        ByteBuffer buffer = mapped(ids);
+        int low = 0;
+        int high = n - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = buffer.getInt(4 * mid);
+            if (value < id) {
+                low = mid + 1;
+            } else if (value > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int edgesPosition(int index) {
+        return (int) mapped(adjacencyIndex).getLong(8 * index);
+    }
+
+    private void forEachEdge(int index, IntIntConsumer action) {
+        ByteBuffer buffer = mapped(adjacency);
+        int[] position = {edgesPosition(index)};
+        int degree = readVarint(buffer, position);
+        int target = -1;
+        for (int i = 0; i < degree; i++) {
+            target += readVarint(buffer, position) + 1;
+            action.accept(idAt(target), GraphFile.unzigzag(readVarint(buffer, position)));
+        }
+    }
+
+    private V valueAt(int index) {
+        ByteBuffer offsets = mapped(valueIndex);
+        int start = (int) offsets.getLong(8 * index);
+        int end = (int) offsets.getLong(8 * (index + 1));
+        try {
+            return codec.read(new GraphFile.BufferInput(mapped(values), start, end).data());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer mapped(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalStateException("This graph is closed");
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads a varint at position[0], and moves position[0] past it
+     */
+    private static int readVarint(ByteBuffer buffer, int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Operation metrics and structural gauges of a graph at one point in time, as returned by
+ * {@link MyGraph#metricsSnapshot()}. Later changes to the graph are not reflected.
+ */
+public final class MetricsSnapshot {
+    private final int vertices;
+    private final int edges;
+    private final int maxDegree;
+    //number of vertices with degree 0, 1, 2-3, 4-7, 8-15...
+    private final int[] degrees;
+    private final long memory;
+    //by operation ordinal, empty histograms when metrics are not tracked
+    private final LatencyHistogram[] latencies;
+
+    MetricsSnapshot(int vertices, int edges, int maxDegree, int[] degrees, long memory, LatencyHistogram[] latencies) {
+        this.vertices = vertices;
+        this.edges = edges;
+        this.maxDegree = maxDegree;
+        this.degrees = degrees;
+        this.memory = memory;
+        this.latencies = latencies;
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int numVertices() {
+        return vertices;
+    }
+
+    /**
+     * @return number of edges
+     */
+    public int numEdges() {
+        return edges;
+    }
+
+    /**
+     * @return largest degree of any vertex, 0 for an empty graph
+     */
+    public int maxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * @return average degree of the vertices, 0 for an empty graph
+     */
+    public double averageDegree() {
+        return vertices == 0 ? 0 : 2.0 * edges / vertices;
+    }
+
+    /**
+     * Degree distribution on a log scale. Position 0 counts the vertices without edges, and position k > 0
+     * counts the vertices with a degree from 2^(k-1) to 2^k - 1.
+     *
+     * @return number of vertices in each degree range, up to the range of the largest degree
+     */
+    public int[] degreeDistribution() {
+        return degrees.clone();
+    }
+
+    /**
+     * @return estimated bytes held by the vertex table, the adjacency arrays and the vertex columns.
+     * Vertex values are not included
+     */
+    public long estimatedMemory() {
+        return memory;
+    }
+
+    /**
+     * @return number of times the operation ran, 0 if metrics are not tracked
+     */
+    public long count(GraphMetrics.Operation operation) {
+        return latencies[operation.ordinal()].count();
+    }
+
+    /**
+     * @return latencies of the operation, empty if metrics are not tracked
+     */
+    public LatencyHistogram latency(GraphMetrics.Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder(String.format(
+                "%d vertices, %d edges, max degree %d, average degree %.2f, about %d bytes\n",
+                vertices, edges, maxDegree, averageDegree(), memory));
+        for (GraphMetrics.Operation operation : GraphMetrics.Operation.values()) {
+            LatencyHistogram latency = latencies[operation.ordinal()];
+            if (latency.count() > 0) {
+                s.append(operation).append(": ").append(latency).append('\n');
+            }
+        }
+        return s.toString();
+    }
+}
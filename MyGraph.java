@@ -1,4 +1,12 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
 
 public class MyGraph<V> {
     /*
@@ -8,14 +16,91 @@ public class MyGraph<V> {
     * - checking connectivity
     * - create MST
     * - TSP Algorithms (Prim's and Christofides') -- NOTE: graph must follow triangle inequality... may be difficult to check
+    *   (see TspSolver, which can sample triples instead)
     * - Print current
     * */
 
-    private Map<Integer, MyVertex> vertices;
+    /**
+     * Algorithms that {@link #createMST(MSTStrategy, boolean) createMST} can use
+     */
+    public enum MSTStrategy {
+        /**
+         * Eager Prim's algorithm on an indexed heap with decrease-key. O(E log V)
+         */
+        PRIM,
+        /**
+         * Kruskal's algorithm on a union-find. O(E log E), good for sparse graphs
+         */
+        KRUSKAL,
+        /**
+         * Boruvka's algorithm, run in parallel on the fork-join common pool. O(E log V) work over at most
+         * log V rounds. Ties between equal weights are broken by vertex, so the tree is the same on every run.
+         */
+        BORUVKA
+    }
+
+    /**
+     * Algorithms that {@link #shortestPaths(int, PathStrategy) shortestPaths} and
+     * {@link #shortestPath(int, int, PathStrategy) shortestPath} can use. Edge weights must not be negative.
+     */
+    public enum PathStrategy {
+        /**
+         * Dijkstra's algorithm on an indexed heap with decrease-key. O(E log V)
+         */
+        DIJKSTRA,
+        /**
+         * Dial's algorithm, Dijkstra's algorithm on one bucket per distance. O(E + V * maxWeight),
+         * best for small integer weights
+         */
+        DIAL,
+        /**
+         * Dijkstra's algorithm from both ends at once, point to point queries only
+         */
+        BIDIRECTIONAL
+    }
+
+    //estimated bytes of a vertex object, its adjacency object and its slot in denseVertices
+    private static final long VERTEX_OVERHEAD = 72;
+
+    //vertex ID -> dense index
+    private IntIntMap vertices;
+    //all vertices, where each vertex is stored at its dense index
+    private ArrayList<MyVertex> denseVertices;
+    private DenseGraph denseView;
     private int edges;
+    //null unless connectivity is tracked
+    private DynamicConnectivity connectivity;
+    //null unless the MST is tracked
+    private DynamicMST mst;
+    //named primitive vertex attributes, null until the first column is added
+    private VertexColumns columns;
+    //names of the extra edge columns in the order every adjacency stores them, whether each one holds
+    //doubles, and the value of each one for new edges. All null until the first edge column is added
+    private List<String> edgeColumns;
+    private boolean[] doubleEdgeColumns;
+    private long[] edgeColumnDefaults;
+    //threads used by traversals, and their pool. The pool is created on first use
+    private int parallelism = 1;
+    private ForkJoinPool pool;
+    //bumped by every change to the vertices, edges or weights, so cached results can tell they are stale
+    private long version;
+    //null unless results are cached
+    private ResultCache cache;
+    //null unless operations are counted and timed
+    private GraphMetrics metrics;
+    //true if removed vertices leave their edges behind until the next sweep
+    private boolean lazyRemoval;
+    //IDs of lazily removed vertices whose edges may still be in other adjacencies, and those vertices.
+    //Both null when there is nothing to sweep
+    private IntIntMap tombstones;
+    private List<MyVertex> removedVertices;
+    //edges left behind in the adjacencies of the vertices that are left
+    private long staleEdges;
 
     public MyGraph() {
-        vertices = new HashMap<>();
+        vertices = new IntIntMap();
+        denseVertices = new ArrayList<>();
+        denseView = new DenseView();
         edges = 0;
     }
 
@@ -33,6 +118,13 @@ public class MyGraph<V> {
         return edges;
     }
 
+    /**
+     * @return number that changes whenever a vertex or edge is added or removed, or an edge weight is changed
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Adds a vertex if and only if the vertex ID does not already exist.
      *
@@ -40,38 +132,153 @@ public class MyGraph<V> {
      * @return true if vertex was added, false if not.
      */
     public boolean addVertex(int id, V val) {
-        if (vertices.containsKey(id)) {
-            return false;
+        long started = start();
+        try {
+            if (vertices.containsKey(id)) {
+                return false;
+            }
+            if (tombstones != null && tombstones.containsKey(id)) {
+                //the edges of the removed vertex with this ID must not come back with the new one
+                sweep();
+            }
+            MyVertex vertex = new MyVertex(id, val);
+            if (edgeColumns != null) {
+                vertex.weightedEdges = new Adjacency(edgeColumnDefaults);
+            }
+            vertex.index = denseVertices.size();
+            denseVertices.add(vertex);
+            vertices.put(id, vertex.index);
+            if (connectivity != null) {
+                connectivity.addVertex();
+            }
+            if (mst != null) {
+                mst.addVertex();
+            }
+            if (columns != null) {
+                columns.addVertex();
+            }
+            version++;
+            return true;
+        } finally {
+            finish(GraphMetrics.Operation.ADD_VERTEX, started);
         }
-        vertices.put(id, new MyVertex(id, val));
-        return true;
+    }
+
+    /**
+     * {@link #addVertices(int[], IntFunction) addVertices} with every value set to null
+     */
+    public int addVertices(int[] ids) {
+        return addVertices(ids, null);
+    }
+
+    /**
+     * Adds many vertices at once, sizing the vertex table once up front. Like {@link #addVertex(int, Object)},
+     * IDs that already exist (or appear earlier in the batch) are skipped.
+     *
+     * @param ids    unique IDs of the vertices to be added
+     * @param values gives the value of the vertex at each position of ids, null for null values
+     * @return number of vertices that were added
+     */
+    public int addVertices(int[] ids, IntFunction<V> values) {
+        denseVertices.ensureCapacity(denseVertices.size() + ids.length);
+        vertices.ensureCapacity(vertices.size() + ids.length);
+        if (columns != null) {
+            columns.ensureCapacity(denseVertices.size() + ids.length);
+        }
+        int added = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (addVertex(ids[i], values == null ? null : values.apply(i))) {
+                added++;
+            }
+        }
+        return added;
     }
 
     /**
      * Removes the vertex with the specified ID, along with all edges that are connected to it.
+     * With {@link #setLazyRemoval(boolean) lazy removal}, the edges are only dropped from the
+     * other vertices by the next sweep.
      *
      * @param id unique ID of the vertex to be removed.
      * @return true if vertex was removed, false if not.
      */
     public boolean removeVertex(int id) {
-        if (!vertices.containsKey(id)) {
-            return false;
+        long started = start();
+        try {
+            boolean removed = removeVertex(id, lazyRemoval);
+            sweepIfStale();
+            return removed;
+        } finally {
+            finish(GraphMetrics.Operation.REMOVE_VERTEX, started);
         }
-        List<Integer> otherVertices = new ArrayList<>();
-        MyVertex temp = vertices.get(id);
-        //for each edge, get the other vertex that it is connected to
-        temp.weightedEdges.forEach((k, v) -> {
-            otherVertices.add(k);
-        });
-        //remove these edges from other vertices
-        for (int i : otherVertices) {
-            if (containsVertex(i)) {
-                vertices.get(i).removeEdge(id);
+    }
+
+    /**
+     * Removes many vertices at once. The edges of all of them are dropped from the other vertices in
+     * one sweep, which passes over each affected adjacency once, however many of its neighbors are removed.
+     * With {@link #setLazyRemoval(boolean) lazy removal}, the sweep is left to the next query.
+     *
+     * @param ids unique IDs of the vertices to be removed
+     * @return number of vertices that were removed
+     */
+    public int removeVertices(int[] ids) {
+        long started = start();
+        try {
+            int removed = 0;
+            for (int id : ids) {
+                if (removeVertex(id, true)) {
+                    removed++;
+                }
             }
+            if (lazyRemoval) {
+                sweepIfStale();
+            } else {
+                sweep();
+            }
+            return removed;
+        } finally {
+            finish(GraphMetrics.Operation.REMOVE_VERTICES, started);
         }
-        //remove vertex
-        vertices.remove(id);
-        return true;
+    }
+
+    /**
+     * Turns lazy vertex removal on or off. While it is on, {@link #removeVertex(int)} takes the vertex out
+     * without touching its neighbors, so removing a vertex of degree d costs O(1) instead of O(d) searches
+     * in other adjacencies. Its edges stay behind as tombstones: they are no longer counted, and queries of
+     * single vertices skip them. They are all dropped in one sweep by {@link #compact()}, by algorithms over
+     * the whole graph, which read every edge anyway, when a removed ID is added again, or once they outnumber
+     * the edges that are left.
+     * <p>
+     * Tracked connectivity and MSTs need to see every edge go, so while either is tracked vertices are
+     * always removed eagerly. Off by default.
+     *
+     * @param lazy true to leave the edges of removed vertices for the next sweep, false to sweep now
+     *             and remove eagerly from then on
+     */
+    public void setLazyRemoval(boolean lazy) {
+        lazyRemoval = lazy;
+        if (!lazy) {
+            sweep();
+        }
+    }
+
+    /**
+     * @return true if vertices are removed lazily, see {@link #setLazyRemoval(boolean)}
+     */
+    public boolean isLazyRemoval() {
+        return lazyRemoval;
+    }
+
+    /**
+     * Drops the edges left behind by lazily removed vertices, then shrinks every adjacency and the vertex
+     * list to their sizes, releasing the slack left by growth and removals. O(V + E)
+     */
+    public void compact() {
+        sweep();
+        for (MyVertex vertex : denseVertices) {
+            vertex.weightedEdges.trim();
+        }
+        denseVertices.trimToSize();
     }
 
     /**
@@ -82,7 +289,7 @@ public class MyGraph<V> {
      */
     public V getVertexValue(int id) {
         if (containsVertex(id)) {
-            return vertices.get(id).value;
+            return vertex(id).value;
         }
         return null;
     }
@@ -96,12 +303,133 @@ public class MyGraph<V> {
      */
     public boolean changeVertexValue(int id, V val) {
         if (containsVertex(id)) {
-            vertices.get(id).value = val;
+            vertex(id).value = val;
             return true;
         }
         return false;
     }
 
+    /**
+     * Adds a column of int attributes. Every vertex, including the ones added later, starts with the
+     * default value. The column is stored as one int array, so values are never boxed.
+     *
+     * @param name         unique name of the column
+     * @param defaultValue value of every vertex until it is set
+     * @return true if the column was added, false if there is already a column with that name
+     */
+    public boolean addIntColumn(String name, int defaultValue) {
+        return columns().add(name, new VertexColumns.IntColumn(defaultValue));
+    }
+
+    /**
+     * Adds a column of long attributes, see {@link #addIntColumn(String, int)}
+     */
+    public boolean addLongColumn(String name, long defaultValue) {
+        return columns().add(name, new VertexColumns.LongColumn(defaultValue));
+    }
+
+    /**
+     * Adds a column of double attributes, see {@link #addIntColumn(String, int)}
+     */
+    public boolean addDoubleColumn(String name, double defaultValue) {
+        return columns().add(name, new VertexColumns.DoubleColumn(defaultValue));
+    }
+
+    /**
+     * Removes a column of attributes along with its values
+     *
+     * @param name name of the column
+     * @return true if the column was removed, false if it did not exist
+     */
+    public boolean removeColumn(String name) {
+        if (columns == null || !columns.remove(name)) {
+            return false;
+        }
+        if (columns.isEmpty()) {
+            columns = null;
+        }
+        return true;
+    }
+
+    /**
+     * @param name name of the column
+     * @return true if there is a column of attributes with that name
+     */
+    public boolean hasColumn(String name) {
+        return columns != null && columns.contains(name);
+    }
+
+    /**
+     * Returns the value of an int attribute of a vertex
+     *
+     * @param id     ID of the vertex
+     * @param column name of an int column
+     * @return value of the attribute
+     * @throws IllegalArgumentException if the vertex or the int column does not exist
+     */
+    public int getIntValue(int id, String column) {
+        return columns(column).ints(column).get(index(id));
+    }
+
+    /**
+     * Returns the value of a long attribute of a vertex, see {@link #getIntValue(int, String)}
+     */
+    public long getLongValue(int id, String column) {
+        return columns(column).longs(column).get(index(id));
+    }
+
+    /**
+     * Returns the value of a double attribute of a vertex, see {@link #getIntValue(int, String)}
+     */
+    public double getDoubleValue(int id, String column) {
+        return columns(column).doubles(column).get(index(id));
+    }
+
+    /**
+     * Changes the value of an int attribute of a vertex
+     *
+     * @param id     ID of the vertex
+     * @param column name of an int column
+     * @param value  new value of the attribute
+     * @return true if operation was successful, false if the vertex does not exist
+     * @throws IllegalArgumentException if the int column does not exist
+     */
+    public boolean setIntValue(int id, String column, int value) {
+        VertexColumns.IntColumn values = columns(column).ints(column);
+        int index = vertices.get(id, -1);
+        if (index == -1) {
+            return false;
+        }
+        values.set(index, value);
+        return true;
+    }
+
+    /**
+     * Changes the value of a long attribute of a vertex, see {@link #setIntValue(int, String, int)}
+     */
+    public boolean setLongValue(int id, String column, long value) {
+        VertexColumns.LongColumn values = columns(column).longs(column);
+        int index = vertices.get(id, -1);
+        if (index == -1) {
+            return false;
+        }
+        values.set(index, value);
+        return true;
+    }
+
+    /**
+     * Changes the value of a double attribute of a vertex, see {@link #setIntValue(int, String, int)}
+     */
+    public boolean setDoubleValue(int id, String column, double value) {
+        VertexColumns.DoubleColumn values = columns(column).doubles(column);
+        int index = vertices.get(id, -1);
+        if (index == -1) {
+            return false;
+        }
+        values.set(index, value);
+        return true;
+    }
+
     /**
      * Adds an edge of a specified weight between the vertices with ID1 and ID2
      *
@@ -110,16 +438,30 @@ public class MyGraph<V> {
      * @return true if operation was successful, false otherwise
      */
     public boolean addEdge(int id1, int id2, int weight) {
-        if (id1 == id2 || isAdjacent(id1, id2)) {
+        long started = start();
+        try {
+            if (id1 == id2 || isAdjacent(id1, id2)) {
+                return false;
+            }
+            if (containsVertex(id1) && containsVertex(id2)) {
+                MyVertex vert1 = vertex(id1);
+                MyVertex vert2 = vertex(id2);
+                vert1.addEdge(id2, weight);
+                vert2.addEdge(id1, weight);
+                edges++;
+                if (connectivity != null) {
+                    connectivity.addEdge(vert1.index, vert2.index);
+                }
+                if (mst != null) {
+                    mst.addEdge(vert1.index, vert2.index, weight);
+                }
+                version++;
+                return true;
+            }
             return false;
+        } finally {
+            finish(GraphMetrics.Operation.ADD_EDGE, started);
         }
-        if (containsVertex(id1) && containsVertex(id2)) {
-            vertices.get(id1).addEdge(id2, weight);
-            vertices.get(id2).addEdge(id1, weight);
-            edges++;
-            return true;
-        }
-        return false;
     }
 
     /**
@@ -129,6 +471,114 @@ public class MyGraph<V> {
         return addEdge(id1, id2, 1);
     }
 
+    /**
+     * {@link #addEdges(int[], int[], int[], boolean) addEdges} on the calling thread only
+     */
+    public int addEdges(int[] ids1, int[] ids2, int[] weights) {
+        return addEdges(ids1, ids2, weights, false);
+    }
+
+    /**
+     * Adds many edges at once. The edges are grouped by vertex, so every adjacency is sorted and
+     * grown only once, instead of once per edge.
+     * <p>
+     * The result is the same as calling {@link #addEdge(int, int, int) addEdge} for each edge in order:
+     * self loops, edges to missing vertices, and edges that already exist (or appear earlier in the batch)
+     * are skipped.
+     *
+     * @param ids1     ID of one of the vertices of each edge
+     * @param ids2     ID of the other vertex of each edge
+     * @param weights  weight of each edge, null to give every edge a weight of 1
+     * @param parallel true to resolve and merge the edges of different vertices on the fork-join common pool
+     * @return number of edges that were added
+     * @throws IllegalArgumentException if the arrays do not have the same length
+     */
+    public int addEdges(int[] ids1, int[] ids2, int[] weights, boolean parallel) {
+        long started = start();
+        try {
+            int m = ids1.length;
+            if (ids2.length != m || (weights != null && weights.length != m)) {
+                throw new IllegalArgumentException("Edge arrays must have the same length");
+            }
+            int n = denseVertices.size();
+            //dense index of the ends of each edge, -1 for edges that are skipped
+            int[] from = new int[m];
+            int[] to = new int[m];
+            range(m, parallel).forEach(e -> {
+                int a = vertices.get(ids1[e], -1);
+                int b = vertices.get(ids2[e], -1);
+                boolean valid = a != -1 && b != -1 && a != b;
+                from[e] = valid ? a : -1;
+                to[e] = valid ? b : -1;
+            });
+
+            //group both halves of every edge by vertex with a counting sort
+            int[] start = new int[n + 1];
+            for (int e = 0; e < m; e++) {
+                if (from[e] != -1) {
+                    start[from[e] + 1]++;
+                    start[to[e] + 1]++;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                start[i + 1] += start[i];
+            }
+            //neighbor ID in the high half, edge number in the low half
+            long[] halves = new long[start[n]];
+            int[] fill = Arrays.copyOf(start, n);
+            for (int e = 0; e < m; e++) {
+                if (from[e] != -1) {
+                    halves[fill[from[e]]++] = ((long) ids2[e] << 32) | e;
+                    halves[fill[to[e]]++] = ((long) ids1[e] << 32) | e;
+                }
+            }
+
+            //each vertex only touches its own adjacency, so vertices can be merged independently
+            int added = range(n, parallel).filter(i -> start[i] < start[i + 1]).map(i -> {
+                MyVertex vertex = denseVertices.get(i);
+                //sorting by neighbor, then edge number, puts the first occurrence of each edge first
+                Arrays.sort(halves, start[i], start[i + 1]);
+                int[] newTargets = new int[start[i + 1] - start[i]];
+                int[] newWeights = new int[newTargets.length];
+                int count = 0;
+                int owned = 0;
+                for (int h = start[i]; h < start[i + 1]; h++) {
+                    int target = (int) (halves[h] >> 32);
+                    if ((count > 0 && newTargets[count - 1] == target) || vertex.containsEdge(target)) {
+                        continue;
+                    }
+                    newTargets[count] = target;
+                    newWeights[count] = weights == null ? 1 : weights[(int) halves[h]];
+                    count++;
+                    //count every edge at only one of its ends
+                    if (vertex.id < target) {
+                        owned++;
+                    }
+                }
+                vertex.weightedEdges.addAll(newTargets, newWeights, count);
+                return owned;
+            }).sum();
+            edges += added;
+            if (added > 0) {
+                version++;
+            }
+            if (connectivity != null) {
+                for (int e = 0; e < m; e++) {
+                    if (from[e] != -1) {
+                        connectivity.addEdge(from[e], to[e]);
+                    }
+                }
+            }
+            if (mst != null && added > 0) {
+                //one rebuild is cheaper than a tree path search per edge
+                mst = new DynamicMST(denseView);
+            }
+            return added;
+        } finally {
+            finish(GraphMetrics.Operation.ADD_EDGES, started);
+        }
+    }
+
     /**
      * Removes edge between vertices with ID1 and ID2
      *
@@ -137,16 +587,23 @@ public class MyGraph<V> {
      * @return true if the edge was removed, false otherwise
      */
     public boolean removeEdge(int id1, int id2) {
-        if (!(containsVertex(id1) && containsVertex(id2))) {
+        long started = start();
+        try {
+            if (!(containsVertex(id1) && containsVertex(id2))) {
+                return false;
+            }
+            MyVertex vert1 = vertex(id1);
+            MyVertex vert2 = vertex(id2);
+            if (vert1.removeEdge(id2) && vert2.removeEdge(id1)) {
+                edges--;
+                edgeRemoved(vert1, vert2);
+                version++;
+                return true;
+            }
             return false;
+        } finally {
+            finish(GraphMetrics.Operation.REMOVE_EDGE, started);
         }
-        MyVertex vert1 = vertices.get(id1);
-        MyVertex vert2 = vertices.get(id2);
-        if (vert1.removeEdge(id2) && vert2.removeEdge(id1)) {
-            edges--;
-            return true;
-        }
-        return false;
     }
 
     /**
@@ -159,22 +616,140 @@ public class MyGraph<V> {
      */
     public Integer getEdgeValue(int id1, int id2) {
         if (containsVertex(id1) && containsVertex(id2)) {
-            return vertices.get(id1).getEdgeValue(id2);
+            return vertex(id1).getEdgeValue(id2);
         }
         return null;
     }
 
     public boolean changeEdgeValue(int id1, int id2, int weight){
-        //Check if edge exists
-        if(!(containsVertex(id1) && containsVertex(id2) && isAdjacent(id1, id2))){
+        long started = start();
+        try {
+            //Check if edge exists
+            if(!(containsVertex(id1) && containsVertex(id2) && isAdjacent(id1, id2))){
+                return false;
+            }
+            //overwrite existing edge
+            MyVertex vert1 = vertex(id1);
+            MyVertex vert2 = vertex(id2);
+            vert1.addEdge(id2, weight);
+            vert2.addEdge(id1, weight);
+            if (mst != null) {
+                mst.changeWeight(vert1.index, vert2.index, weight);
+            }
+            version++;
+            return true;
+        } finally {
+            finish(GraphMetrics.Operation.CHANGE_EDGE_VALUE, started);
+        }
+    }
+
+    /**
+     * Adds a column of long attributes to every edge, stored next to the weights in the adjacency arrays,
+     * so values are never boxed. Every edge, including the ones added later, starts with the default value.
+     *
+     * @param name         unique name of the column
+     * @param defaultValue value of every edge until it is set
+     * @return true if the column was added, false if there is already an edge column with that name
+     */
+    public boolean addLongEdgeColumn(String name, long defaultValue) {
+        return addEdgeColumn(name, false, defaultValue);
+    }
+
+    /**
+     * Adds a column of double attributes to every edge, see {@link #addLongEdgeColumn(String, long)}
+     */
+    public boolean addDoubleEdgeColumn(String name, double defaultValue) {
+        return addEdgeColumn(name, true, Double.doubleToRawLongBits(defaultValue));
+    }
+
+    /**
+     * Removes a column of edge attributes along with its values
+     *
+     * @param name name of the column
+     * @return true if the column was removed, false if it did not exist
+     */
+    public boolean removeEdgeColumn(String name) {
+        int column = edgeColumns == null ? -1 : edgeColumns.indexOf(name);
+        if (column == -1) {
             return false;
         }
-        //overwrite existing edge
-        vertices.get(id1).addEdge(id2, weight);
-        vertices.get(id2).addEdge(id1, weight);
+        edgeColumns.remove(column);
+        boolean[] doubles = new boolean[edgeColumns.size()];
+        long[] defaults = new long[edgeColumns.size()];
+        for (int c = 0, old = 0; c < defaults.length; c++, old++) {
+            if (old == column) {
+                old++;
+            }
+            doubles[c] = doubleEdgeColumns[old];
+            defaults[c] = edgeColumnDefaults[old];
+        }
+        for (MyVertex vertex : denseVertices) {
+            vertex.weightedEdges.removeColumn(column, defaults);
+        }
+        if (edgeColumns.isEmpty()) {
+            edgeColumns = null;
+            doubleEdgeColumns = null;
+            edgeColumnDefaults = null;
+        } else {
+            doubleEdgeColumns = doubles;
+            edgeColumnDefaults = defaults;
+        }
         return true;
     }
 
+    /**
+     * @param name name of the column
+     * @return true if there is an edge column with that name
+     */
+    public boolean hasEdgeColumn(String name) {
+        return edgeColumns != null && edgeColumns.contains(name);
+    }
+
+    /**
+     * Returns the value of a long attribute of an edge
+     *
+     * @param id1    ID of one of the vertices
+     * @param id2    ID of the other vertex
+     * @param column name of a long edge column
+     * @return value of the attribute
+     * @throws IllegalArgumentException if the edge or the long column does not exist
+     */
+    public long getLongEdgeValue(int id1, int id2, String column) {
+        int c = edgeColumn(column, false);
+        Adjacency adjacency = edge(id1, id2);
+        return adjacency.column(c, adjacency.indexOf(id2));
+    }
+
+    /**
+     * Returns the value of a double attribute of an edge, see {@link #getLongEdgeValue(int, int, String)}
+     */
+    public double getDoubleEdgeValue(int id1, int id2, String column) {
+        int c = edgeColumn(column, true);
+        Adjacency adjacency = edge(id1, id2);
+        return Double.longBitsToDouble(adjacency.column(c, adjacency.indexOf(id2)));
+    }
+
+    /**
+     * Changes the value of a long attribute of an edge
+     *
+     * @param id1    ID of one of the vertices
+     * @param id2    ID of the other vertex
+     * @param column name of a long edge column
+     * @param value  new value of the attribute
+     * @return true if operation was successful, false if the edge does not exist
+     * @throws IllegalArgumentException if the long column does not exist
+     */
+    public boolean setLongEdgeValue(int id1, int id2, String column, long value) {
+        return setEdgeColumn(id1, id2, edgeColumn(column, false), value);
+    }
+
+    /**
+     * Changes the value of a double attribute of an edge, see {@link #setLongEdgeValue(int, int, String, long)}
+     */
+    public boolean setDoubleEdgeValue(int id1, int id2, String column, double value) {
+        return setEdgeColumn(id1, id2, edgeColumn(column, true), Double.doubleToRawLongBits(value));
+    }
+
     /**
      * Checks whether or not the vertex with the given ID exists in the graph
      *
@@ -199,7 +774,7 @@ public class MyGraph<V> {
         if (!containsVertex(id1) || !containsVertex(id2)) {
             return false;
         }
-        return vertices.get(id1).containsEdge(id2) && vertices.get(id2).containsEdge(id1);
+        return vertex(id1).containsEdge(id2) && vertex(id2).containsEdge(id1);
     }
 
     /**
@@ -212,14 +787,48 @@ public class MyGraph<V> {
         if (!containsVertex(id)) {
             return null;
         }
-        List<Integer> neighbors = new ArrayList<>();
-        MyVertex vertex = vertices.get(id);
-        vertex.weightedEdges.forEach((k, v) -> {
-            neighbors.add(k);
-        });
+        Adjacency adjacency = vertex(id).weightedEdges;
+        List<Integer> neighbors = new ArrayList<>(adjacency.size());
+        for (int i = 0; i < adjacency.size(); i++) {
+            if (!isTombstone(adjacency.target(i))) {
+                neighbors.add(adjacency.target(i));
+            }
+        }
         return neighbors;
     }
 
+    /**
+     * Visits every neighbor of a vertex, in ascending order of IDs. Unlike {@link #getNeighbors(int)}
+     * and {@link #getEdges(int)}, nothing is allocated per edge. The graph must not be changed
+     * by the action.
+     *
+     * @param id     ID of the vertex specified by the user
+     * @param action called with the ID of each neighbor and the weight of the edge to it
+     * @return true if the vertex exists, false otherwise
+     */
+    public boolean forEachNeighbor(int id, IntIntConsumer action) {
+        MyVertex vertex = vertex(id);
+        if (vertex == null) {
+            return false;
+        }
+        Adjacency adjacency = vertex.weightedEdges;
+        for (int i = 0; i < adjacency.size(); i++) {
+            if (!isTombstone(adjacency.target(i))) {
+                action.accept(adjacency.target(i), adjacency.weight(i));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return number of edges connected to the vertex, -1 if vertex does not exist
+     */
+    public int degree(int id) {
+        MyVertex vertex = vertex(id);
+        return vertex == null ? -1 : liveDegree(vertex.weightedEdges);
+    }
+
     /**
      * Lists all neighbors of the specified vertex and the respective edge weights between them.
      * Index 0 is the neighbor vertex's ID, Index 1 is the edge weight
@@ -231,132 +840,982 @@ public class MyGraph<V> {
         if (!containsVertex(id)) {
             return null;
         }
-        return vertices.get(id).getEdges();
+        return vertex(id).getEdges();
     }
 
     /**
      * A graph is connected if and only if you can get from any one vertex in the graph
-     * to any other vertex. In this method, we will choose a vertex at random, and then
-     * check connectivity to all other vertices.
+     * to any other vertex. In this method, we will choose a vertex, do a breadth first search
+     * from it and check that every other vertex was reached. O(V + E)
      *
      * @return true if the graph is connected, false otherwise
      */
     public boolean isConnected() {
-        if (!vertices.isEmpty()) {
-            Set<Integer> connectedSet = new HashSet<>();
-            Set<Integer> foundNeighbors = new HashSet<>();
-            //get all vertex ID's in an set
-            Set<Integer> keySet = vertices.keySet();
-            //choose a random vertex
-            int temp = (Integer) keySet.toArray()[0];
-            connectedSet.add(temp);
-            //Iterate until the sets are equal, or there are no more neighbors to be added
-            while (!connectedSet.equals(keySet)) {
-                boolean added = false;
-                //for each vertex in connected set, get their neighbors and add to our connected set
-                for (int key : connectedSet) {
-                    //if already found that vertex's neighbors, skip this iteration
-                    if (foundNeighbors.contains(key)) {
-                        continue;
-                    }
-                    foundNeighbors.add(key);
-                    List<Integer> neighbors = getNeighbors(key);
-                    //add them all to the connected set
-                    for (int neighbor : neighbors) {
-                        if (!connectedSet.contains(neighbor)) {
-                            added = true;
-                            connectedSet.add(neighbor);
-                        }
-                    }
-                }
-                //did not add any neighbors, but the sets are not equal
-                if (!added) {
-                    return false;
-                }
+        long started = start();
+        try {
+            sweep();
+            if (connectivity != null) {
+                return !vertices.isEmpty() && connectivity.count() == 1;
             }
-            return true;
+            return cached(Collections.singletonList("isConnected"), () -> {
+                if (parallelism > 1 && !vertices.isEmpty()) {
+                    return inPool(() -> new ParallelBfs(denseView, true, false).search(0) == denseVertices.size());
+                }
+                return GraphAlgorithms.isConnected(denseView);
+            }, connected -> 0);
+        } finally {
+            finish(GraphMetrics.Operation.IS_CONNECTED, started);
         }
-        return false;
     }
 
     /**
-     * A MST (Minimum Spanning Tree) is a tree in which the branches are all of minimum weight.
-     * This method will use Prim's algorithm. It is a greedy algorithm that starts at an
-     * arbitrary vertex and at each step, choosing
-     * the cheapest possible connection from the tree to another vertex not in the tree.
+     * Checks whether there is a path between two vertices. O(1) when connectivity is tracked,
+     * otherwise a breadth first search that stops once the second vertex is reached. O(V + E)
      *
-     * @return returns a MyGraph instance containing one of the possible MST
+     * @param id1 ID of the first vertex
+     * @param id2 ID of the second vertex
+     * @return true if both vertices are in the same connected component, false otherwise
+     * (including when a vertex does not exist)
      */
-    public MyGraph createMST() throws IllegalStateException {
-        //Tree must be connected
-        if (!isConnected()) {
-            throw new IllegalStateException("This graph is disconnected");
-        }
-
-        //create new graph, and 2 sets to ensure all vertices match
-        MyGraph<V> MST = new MyGraph<>();
-        Set<Integer> keySet = vertices.keySet();
-        Set<Integer> current = new HashSet<>();
-
-        //start at a random vertex
-        int temp = (Integer) keySet.toArray()[0];
-        MST.addVertex(temp, getVertexValue(temp));
-        current.add(temp);
-
-        //while the vertices of both sets don't match, add a new neighbor
-        while (!current.equals(keySet)) {
-            //get all possible neighbors and edge weights
-            List<int[]> possibleNeighbors = new ArrayList<>();
-            //for each vertex, get all neighbors that are not already in the tree
-            for (int vertexID : current) {
-                MyVertex vertex = vertices.get(vertexID);
-                vertex.weightedEdges.forEach((k, v) -> {
-                    if (!current.contains(k)) {
-                        //int array of size 3...
-                        //0: neighbor ID
-                        //1: edge weight
-                        //2: current vertex
-                        possibleNeighbors.add(new int[]{k, v, vertexID});
-                    }
-                });
-            }
+    public boolean sameComponent(int id1, int id2) {
+        sweep();
+        int index1 = vertices.get(id1, -1);
+        int index2 = vertices.get(id2, -1);
+        if (index1 == -1 || index2 == -1) {
+            return false;
+        }
+        if (connectivity != null) {
+            return connectivity.connected(index1, index2);
+        }
+        return GraphAlgorithms.reachable(denseView, index1, index2);
+    }
+
+    /**
+     * Turns incremental connectivity on or off. While it is on, every change to the graph keeps the
+     * connected components up to date, so {@link #isConnected()} and {@link #sameComponent(int, int)}
+     * answer in O(1) instead of searching the graph. Adding edges and vertices costs close to nothing
+     * extra until the first removal, after which a spanning forest is maintained: removing one of its
+     * edges searches the smaller side of the split for a replacement edge.
+     * <p>
+     * Off by default, so graphs that do not need it pay nothing.
+     *
+     * @param track true to track connectivity, starting from the current graph. O(V + E)
+     */
+    public void trackConnectivity(boolean track) {
+        sweep();
+        connectivity = track ? new DynamicConnectivity(denseView) : null;
+    }
+
+    /**
+     * @return true if connectivity is tracked, see {@link #trackConnectivity(boolean)}
+     */
+    public boolean isTrackingConnectivity() {
+        return connectivity != null;
+    }
+
+    /**
+     * Splits the graph into its connected components with one breadth first search per component. O(V + E)
+     *
+     * @return snapshot of the component of every vertex, and the size of every component
+     */
+    public ConnectedComponents connectedComponents() {
+        long started = start();
+        try {
+            sweep();
+            return cached(Collections.singletonList("connectedComponents"), () -> {
+                if (parallelism > 1) {
+                    return inPool(() -> {
+                        int n = denseVertices.size();
+                        ParallelBfs bfs = new ParallelBfs(denseView, true, false);
+                        int[] sizes = new int[n];
+                        for (int root = 0; root < n; root++) {
+                            if (!bfs.isVisited(root)) {
+                                sizes[bfs.searchCount()] = bfs.search(root);
+                            }
+                        }
+                        return new ConnectedComponents(denseIds(), bfs.searches(), Arrays.copyOf(sizes, bfs.searchCount()));
+                    });
+                }
+                return GraphAlgorithms.connectedComponents(denseView, denseIds());
+            }, components -> 8L * denseVertices.size() + 4L * components.count());
+        } finally {
+            finish(GraphMetrics.Operation.CONNECTED_COMPONENTS, started);
+        }
+    }
+
+    /**
+     * Breadth first search that counts the edges on the way to every vertex, instead of their weights.
+     * Each level is expanded from the frontier or, once the frontier is large, by letting unvisited vertices
+     * look for a parent in it, whichever is cheaper. With {@link #setParallelism(int)} above 1, large levels
+     * are expanded in parallel. O(V + E)
+     *
+     * @param source ID of the source vertex
+     * @return number of edges on a shortest path to every vertex, and the breadth first search tree.
+     * Null if the source does not exist
+     */
+    public ShortestPaths hopDistances(int source) {
+        long started = start();
+        try {
+            sweep();
+            int index = vertices.get(source, -1);
+            if (index == -1) {
+                return null;
+            }
+            return cached(Arrays.asList("hopDistances", source), () -> {
+                ParallelBfs bfs = new ParallelBfs(denseView, parallelism > 1, true);
+                if (parallelism > 1) {
+                    inPool(() -> bfs.search(index));
+                } else {
+                    bfs.search(index);
+                }
+                int[] hops = bfs.distances();
+                long[] distances = new long[hops.length];
+                for (int i = 0; i < hops.length; i++) {
+                    distances[i] = hops[i];
+                }
+                return new ShortestPaths(source, denseIds(), distances, bfs.parents());
+            }, paths -> 16L * denseVertices.size());
+        } finally {
+            finish(GraphMetrics.Operation.HOP_DISTANCES, started);
+        }
+    }
+
+    /**
+     * Runs a vertex-centric program over a snapshot of the graph, see {@link VertexProgram}. Vertices are
+     * computed in parallel with {@link #setParallelism(int)}. O(supersteps * (V + E)) for programs that
+     * message every neighbor
+     *
+     * @param program       program to run
+     * @param maxSupersteps largest number of supersteps to run
+     * @return value of every vertex once the program ended
+     * @throws IllegalArgumentException if maxSupersteps is negative
+     */
+    public VertexValues compute(VertexProgram program, int maxSupersteps) {
+        if (maxSupersteps < 0) {
+            throw new IllegalArgumentException("The number of supersteps cannot be negative");
+        }
+        long started = start();
+        try {
+            VertexComputation computation = new VertexComputation(toCsr(), program, parallelism > 1);
+            if (parallelism > 1) {
+                return inPool(() -> computation.run(maxSupersteps));
+            }
+            return computation.run(maxSupersteps);
+        } finally {
+            finish(GraphMetrics.Operation.COMPUTE, started);
+        }
+    }
+
+    /**
+     * Sets the number of threads used by {@link #isConnected()}, {@link #connectedComponents()},
+     * {@link #hopDistances(int)} and {@link #compute(VertexProgram, int)}. With 1, the default, they run
+     * on the calling thread only. Otherwise they run on a fork-join pool of this size, owned by the graph.
+     *
+     * @param parallelism number of threads
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        if (parallelism != this.parallelism && pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return number of threads used by traversals, see {@link #setParallelism(int)}
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Turns result caching on or off. While it is on, {@link #isConnected()}, {@link #connectedComponents()},
+     * {@link #hopDistances(int)}, {@link #shortestPaths(int, PathStrategy) shortestPaths},
+     * {@link #shortestPath(int, int, PathStrategy) shortestPath}, {@link #mstWeight()}, {@link #mstEdges()}
+     * and {@link #createMST(MSTStrategy, boolean) createMST} remember their results, and repeated queries
+     * are answered without searching the graph. createMST still copies the cached tree into a new graph.
+     * <p>
+     * Results are dropped automatically once a vertex or edge is added or removed, or an edge weight is changed
+     * (see {@link #getVersion()}). When the results take more than the capacity, the least recently used ones
+     * are dropped. Off by default, so graphs that do not need it pay nothing.
+     *
+     * @param capacity estimated bytes that the cached results may take, 0 to turn caching off
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public void cacheResults(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        cache = capacity == 0 ? null : new ResultCache(capacity);
+    }
+
+    /**
+     * @return the result cache, with its hit and miss counts. Null if results are not cached,
+     * see {@link #cacheResults(long)}
+     */
+    public ResultCache getResultCache() {
+        return cache;
+    }
+
+    /**
+     * Turns operation metrics on or off. While they are on, every change to the vertices or edges, and every
+     * connectivity, MST and path query, is counted and timed in a latency histogram (see {@link GraphMetrics}).
+     * Off by default: each of those operations then only checks one field.
+     *
+     * @param track true to record metrics, starting from zero
+     */
+    public void trackMetrics(boolean track) {
+        metrics = track ? new GraphMetrics() : null;
+    }
+
+    /**
+     * @return true if metrics are recorded, see {@link #trackMetrics(boolean)}
+     */
+    public boolean isTrackingMetrics() {
+        return metrics != null;
+    }
+
+    /**
+     * @return the operation metrics, to read them or set a listener. Null if metrics are not recorded,
+     * see {@link #trackMetrics(boolean)}
+     */
+    public GraphMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Takes a snapshot of the operation metrics, if they are recorded, and measures the structure of the graph:
+     * degree distribution, largest degree and estimated memory of the vertex table and adjacency arrays. O(V)
+     *
+     * @return snapshot that later changes to the graph do not affect
+     */
+    public MetricsSnapshot metricsSnapshot() {
+        sweep();
+        int maxDegree = 0;
+        int[] degrees = new int[33];
+        long memory = vertices.sizeInBytes() + (columns == null ? 0 : columns.sizeInBytes());
+        for (MyVertex vertex : denseVertices) {
+            int degree = vertex.weightedEdges.size();
+            maxDegree = Math.max(maxDegree, degree);
+            //0 for degree 0, k for degrees 2^(k-1) to 2^k - 1
+            degrees[32 - Integer.numberOfLeadingZeros(degree)]++;
+            //the vertex and adjacency objects, the list slot, and the arrays
+            memory += VERTEX_OVERHEAD + vertex.weightedEdges.sizeInBytes();
+        }
+        LatencyHistogram[] latencies = metrics != null ? metrics.latencies()
+                : new GraphMetrics().latencies();
+        return new MetricsSnapshot(vertices.size(), edges, maxDegree,
+                Arrays.copyOf(degrees, 33 - Integer.numberOfLeadingZeros(maxDegree)), memory, latencies);
+    }
+
+    /**
+     * A MST (Minimum Spanning Tree) is a tree in which the branches are all of minimum weight.
+     * This method will use Prim's algorithm. It is a greedy algorithm that starts at an
+     * arbitrary vertex and at each step, choosing
+     * the cheapest possible connection from the tree to another vertex not in the tree.
+     *
+     * @return returns a MyGraph instance containing one of the possible MST
+     * @throws IllegalStateException if the graph is empty or disconnected
+     */
+    public MyGraph<V> createMST() throws IllegalStateException {
+        return createMST(MSTStrategy.PRIM, false);
+    }
 
-            //sort based on weight of edge (index 1)
-            possibleNeighbors.sort(Comparator.comparingInt(o -> o[1]));
+    /**
+     * {@link #createMST(MSTStrategy, boolean) createMST} that throws if the graph is disconnected
+     */
+    public MyGraph<V> createMST(MSTStrategy strategy) throws IllegalStateException {
+        return createMST(strategy, false);
+    }
+
+    /**
+     * Builds a MST with the given algorithm. Disconnection is detected while the tree is being
+     * built, so there is no need to call {@link #isConnected()} beforehand.
+     * <p>
+     * If the graph is disconnected and forests are allowed, a minimum spanning forest is returned
+     * instead: it contains every vertex, and one MST for each connected component.
+     *
+     * If the MST is tracked (see {@link #trackMST(boolean)}), the tracked tree is copied instead of built.
+     *
+     * @param strategy    algorithm used to build the tree
+     * @param allowForest true to return a minimum spanning forest for disconnected graphs
+     * @return returns a MyGraph instance containing one of the possible MST (or forest)
+     * @throws IllegalStateException if the graph is empty or disconnected, and forests are not allowed
+     */
+    public MyGraph<V> createMST(MSTStrategy strategy, boolean allowForest) throws IllegalStateException {
+        long started = start();
+        try {
+            sweep();
+            if (vertices.isEmpty() && !allowForest) {
+                throw new IllegalStateException("This graph is empty");
+            }
 
-            //add to current set and MST
-            int[] arr = possibleNeighbors.get(0);
-            current.add(arr[0]);
-            MST.addVertex(arr[0], getVertexValue(arr[0]));
-            MST.addEdge(arr[0], arr[2], arr[1]);
+            GraphAlgorithms.SpanningForest forest = spanningForest(strategy, allowForest);
+            if (!forest.isSpanningTree() && !allowForest) {
+                throw new IllegalStateException("This graph is disconnected");
+            }
+            return GraphAlgorithms.toGraph(forest, denseVertices.size(),
+                    index -> denseVertices.get(index).id, index -> denseVertices.get(index).value);
+        } finally {
+            finish(GraphMetrics.Operation.CREATE_MST, started);
         }
+    }
+
+    /**
+     * Turns MST tracking on or off. While it is on, the graph keeps a minimum spanning forest up to date
+     * through every change, so {@link #mstWeight()}, {@link #mstEdges()} and {@link #createMST()} do not
+     * rebuild it:
+     * <ul>
+     * <li>a new or lighter edge replaces the heaviest edge on the tree path between its ends, if that
+     * one is heavier</li>
+     * <li>removing a tree edge or making it heavier splits its tree, and the lightest edge between the
+     * two sides joins them again. Only the smaller side is searched.</li>
+     * </ul>
+     * {@link #addEdges(int[], int[], int[], boolean) addEdges} rebuilds the forest once instead.
+     * Off by default, so graphs that do not need it pay nothing.
+     *
+     * @param track true to track the MST, starting from the current graph. O(E log E)
+     */
+    public void trackMST(boolean track) {
+        sweep();
+        mst = track ? new DynamicMST(denseView) : null;
+    }
+
+    /**
+     * @return true if the MST is tracked, see {@link #trackMST(boolean)}
+     */
+    public boolean isTrackingMST() {
+        return mst != null;
+    }
+
+    /**
+     * Total weight of a minimum spanning forest: the MST if the graph is connected, otherwise the MSTs
+     * of every connected component. O(1) if the MST is tracked, O(E log V) otherwise.
+     *
+     * @return sum of the weights of the forest edges, 0 for an empty graph
+     */
+    public long mstWeight() {
+        long started = start();
+        try {
+            if (mst != null) {
+                return mst.weight();
+            }
+            GraphAlgorithms.SpanningForest forest = spanningForest(MSTStrategy.PRIM, true);
+            long total = 0;
+            for (int e = 0; e < forest.size; e++) {
+                total += forest.weight[e];
+            }
+            return total;
+        } finally {
+            finish(GraphMetrics.Operation.MST_QUERY, started);
+        }
+    }
+
+    /**
+     * Lists the edges of a minimum spanning forest. Index 0 and 1 are the IDs of the vertices of the
+     * edge, Index 2 is the edge weight. O(V) if the MST is tracked, O(E log V) otherwise.
+     *
+     * @return List of int arrays of size 3
+     */
+    public List<int[]> mstEdges() {
+        long started = start();
+        try {
+            GraphAlgorithms.SpanningForest forest = spanningForest(MSTStrategy.PRIM, true);
+            List<int[]> edges = new ArrayList<>(forest.size);
+            for (int e = 0; e < forest.size; e++) {
+                edges.add(new int[]{denseVertices.get(forest.from[e]).id, denseVertices.get(forest.to[e]).id, forest.weight[e]});
+            }
+            return edges;
+        } finally {
+            finish(GraphMetrics.Operation.MST_QUERY, started);
+        }
+    }
+
+    /**
+     * Builds a MST that minimizes the total of a long or double edge column instead of the int weights,
+     * with Prim's algorithm. The column values are compared without rounding or boxing.
+     * Every edge column, and the int weight, is copied into the tree.
+     *
+     * @param weightColumn name of a long or double edge column
+     * @param allowForest  true to return a minimum spanning forest for disconnected graphs
+     * @return returns a MyGraph instance containing one of the possible MST (or forest)
+     * @throws IllegalStateException    if the graph is empty or disconnected, and forests are not allowed
+     * @throws IllegalArgumentException if the edge column does not exist
+     */
+    public MyGraph<V> createMST(String weightColumn, boolean allowForest) throws IllegalStateException {
+        long started = start();
+        try {
+            sweep();
+            int c = edgeColumns == null ? -1 : edgeColumns.indexOf(weightColumn);
+            if (c == -1) {
+                throw new IllegalArgumentException("There is no edge column " + weightColumn);
+            }
+            if (vertices.isEmpty() && !allowForest) {
+                throw new IllegalStateException("This graph is empty");
+            }
+            boolean doubles = doubleEdgeColumns[c];
+            GraphAlgorithms.SpanningForest forest = GraphAlgorithms.prim(new DenseView() {
+                @Override
+                public long weightKey(int index, int i) {
+                    long value = denseVertices.get(index).weightedEdges.column(c, i);
+                    //flipping the value bits of negative doubles makes their raw bits sort like the doubles
+                    return doubles && value < 0 ? value ^ Long.MAX_VALUE : value;
+                }
+            }, allowForest);
+            if (!forest.isSpanningTree() && !allowForest) {
+                throw new IllegalStateException("This graph is disconnected");
+            }
+            MyGraph<V> tree = GraphAlgorithms.toGraph(forest, denseVertices.size(),
+                    index -> denseVertices.get(index).id, index -> denseVertices.get(index).value);
+            for (int column = 0; column < edgeColumns.size(); column++) {
+                tree.addEdgeColumn(edgeColumns.get(column), doubleEdgeColumns[column], edgeColumnDefaults[column]);
+            }
+            for (int e = 0; e < forest.size; e++) {
+                MyVertex from = denseVertices.get(forest.from[e]);
+                Adjacency adjacency = from.weightedEdges;
+                int position = adjacency.indexOf(denseVertices.get(forest.to[e]).id);
+                for (int column = 0; column < edgeColumns.size(); column++) {
+                    tree.setEdgeColumn(from.id, adjacency.target(position), column, adjacency.column(column, position));
+                }
+            }
+            return tree;
+        } finally {
+            finish(GraphMetrics.Operation.CREATE_MST, started);
+        }
+    }
+
+    /**
+     * {@link #shortestPaths(int, PathStrategy) shortestPaths} using Dijkstra's algorithm
+     */
+    public ShortestPaths shortestPaths(int source) {
+        return shortestPaths(source, PathStrategy.DIJKSTRA);
+    }
+
+    /**
+     * Finds the shortest path from the source to every other vertex, where the length of a path is
+     * the sum of its edge weights.
+     *
+     * @param source   ID of the source vertex
+     * @param strategy algorithm used for the search, {@link PathStrategy#BIDIRECTIONAL} is not supported
+     * @return distances and shortest path tree. Null if the source does not exist
+     * @throws IllegalStateException    if the graph has a negative edge weight
+     * @throws IllegalArgumentException if the strategy is {@link PathStrategy#BIDIRECTIONAL}
+     */
+    public ShortestPaths shortestPaths(int source, PathStrategy strategy) throws IllegalStateException {
+        long started = start();
+        try {
+            sweep();
+            if (strategy == PathStrategy.BIDIRECTIONAL) {
+                throw new IllegalArgumentException("Bidirectional search needs a target");
+            }
+            int index = vertices.get(source, -1);
+            if (index == -1) {
+                return null;
+            }
+            return cached(Arrays.asList("shortestPaths", source, strategy), () -> {
+                int n = denseVertices.size();
+                long[] distances = new long[n];
+                int[] predecessors = new int[n];
+                ShortestPathSearch.search(denseView, strategy, index, -1, distances, predecessors);
+                return new ShortestPaths(source, denseIds(), distances, predecessors);
+            }, paths -> 16L * denseVertices.size());
+        } finally {
+            finish(GraphMetrics.Operation.SHORTEST_PATHS, started);
+        }
+    }
+
+    /**
+     * {@link #shortestPath(int, int, PathStrategy) shortestPath} using Dijkstra's algorithm
+     */
+    public GraphPath shortestPath(int source, int target) {
+        return shortestPath(source, target, PathStrategy.DIJKSTRA);
+    }
+
+    /**
+     * Finds the shortest path between two vertices. The search stops as soon as the target is settled.
+     *
+     * @param source   ID of the first vertex
+     * @param target   ID of the last vertex
+     * @param strategy algorithm used for the search
+     * @return shortest path. Null if a vertex does not exist, or there is no path between them
+     * @throws IllegalStateException if the graph has a negative edge weight
+     */
+    public GraphPath shortestPath(int source, int target, PathStrategy strategy) throws IllegalStateException {
+        long started = start();
+        try {
+            sweep();
+            int from = vertices.get(source, -1);
+            int to = vertices.get(target, -1);
+            if (from == -1 || to == -1) {
+                return null;
+            }
+            return cached(Arrays.asList("shortestPath", source, target, strategy), () -> {
+                IntUnaryOperator idOf = index -> denseVertices.get(index).id;
+                if (strategy == PathStrategy.BIDIRECTIONAL) {
+                    return ShortestPathSearch.bidirectional(denseView, from, to, idOf);
+                }
+                int n = denseVertices.size();
+                long[] distances = new long[n];
+                int[] predecessors = new int[n];
+                ShortestPathSearch.search(denseView, strategy, from, to, distances, predecessors);
+                return ShortestPathSearch.path(to, distances, predecessors, idOf);
+            }, path -> 4L * (path.numEdges() + 1));
+        } finally {
+            finish(GraphMetrics.Operation.SHORTEST_PATH, started);
+        }
+    }
+
+    /**
+     * Compacts the graph into an immutable CSR (compressed sparse row) snapshot: the edges of all
+     * vertices are laid out back to back in flat int arrays. Good for graphs that are built once and
+     * then queried many times. Later changes to this graph are not reflected in the snapshot.
+     *
+     * @return read-only snapshot of this graph
+     */
+    public CsrGraph<V> toCsr() {
+        sweep();
+        int n = denseVertices.size();
+        //sort dense indices by vertex ID, so that CSR indices are in the same order as IDs
+        long[] order = new long[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = ((long) denseVertices.get(i).id << 32) | i;
+        }
+        Arrays.sort(order);
+        int[] rank = new int[n];
+        int[] ids = new int[n];
+        Object[] values = new Object[n];
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            MyVertex vertex = denseVertices.get((int) order[i]);
+            rank[vertex.index] = i;
+            ids[i] = vertex.id;
+            values[i] = vertex.value;
+            offsets[i + 1] = offsets[i] + vertex.weightedEdges.size();
+        }
+        int[] targets = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            Adjacency adjacency = denseVertices.get((int) order[i]).weightedEdges;
+            //neighbors are sorted by ID, so their CSR indices come out sorted too
+            for (int e = 0; e < adjacency.size(); e++) {
+                targets[offsets[i] + e] = rank[vertices.get(adjacency.target(e), -1)];
+                weights[offsets[i] + e] = adjacency.weight(e);
+            }
+        }
+        return new CsrGraph<>(ids, values, offsets, targets, weights);
+    }
 
-        return MST;
+    /**
+     * Copies the vertex IDs and edges of the graph into direct memory, outside of the heap. Values are not copied,
+     * and later changes to this graph are not reflected. Graphs too large for the heap are read straight into
+     * an {@link OffHeapGraph.Builder} by {@link GraphImporter} instead
+     *
+     * @return off-heap snapshot of the graph
+     */
+    public OffHeapGraph toOffHeap() {
+        return offHeapBuilder().build();
+    }
+
+    /**
+     * Copies the vertex IDs and edges of the graph into a memory-mapped file, which can be opened again with
+     * {@link OffHeapGraph#open(Path)}. Values are not copied
+     *
+     * @param file file to write to, replaced if it exists
+     * @return off-heap snapshot of the graph, backed by the file
+     * @throws IOException if the file cannot be written
+     */
+    public OffHeapGraph toOffHeap(Path file) throws IOException {
+        return offHeapBuilder().build(file);
     }
 
     @Override
     public String toString() {
-        final String[] s = {String.format("This graph has %d vertices and %d edges\n\n", vertices.size(), edges)};
-        vertices.forEach((k, v) -> { //WOW MUCH FUNCTIONAL
-            s[0] = s[0].concat(v.toString() + "\n\n");
-        });
-        return s[0];
+        sweep();
+        StringBuilder s = new StringBuilder(String.format("This graph has %d vertices and %d edges\n\n", vertices.size(), edges));
+        for (MyVertex v : denseVertices) {
+            v.appendTo(s).append("\n\n");
+        }
+        return s.toString();
     }
     /* Helper functions and classes */
 
+    /**
+     * @return the vertex with the given ID, or null if it does not exist
+     */
+    private MyVertex vertex(int id) {
+        int index = vertices.get(id, -1);
+        return index == -1 ? null : denseVertices.get(index);
+    }
+
+    /**
+     * @return dense index of the vertex with the given ID
+     * @throws IllegalArgumentException if the vertex does not exist
+     */
+    private int index(int id) {
+        int index = vertices.get(id, -1);
+        if (index == -1) {
+            throw new IllegalArgumentException("There is no vertex " + id);
+        }
+        return index;
+    }
+
+    private boolean addEdgeColumn(String name, boolean doubles, long defaultValue) {
+        if (hasEdgeColumn(name)) {
+            return false;
+        }
+        if (edgeColumns == null) {
+            edgeColumns = new ArrayList<>();
+            doubleEdgeColumns = new boolean[0];
+            edgeColumnDefaults = new long[0];
+        }
+        int column = edgeColumns.size();
+        edgeColumns.add(name);
+        doubleEdgeColumns = Arrays.copyOf(doubleEdgeColumns, column + 1);
+        doubleEdgeColumns[column] = doubles;
+        edgeColumnDefaults = Arrays.copyOf(edgeColumnDefaults, column + 1);
+        edgeColumnDefaults[column] = defaultValue;
+        for (MyVertex vertex : denseVertices) {
+            vertex.weightedEdges.addColumn(edgeColumnDefaults);
+        }
+        return true;
+    }
+
+    /**
+     * @param doubles true for a double column, false for a long column
+     * @return position of the edge column in every adjacency
+     * @throws IllegalArgumentException if there is no edge column with that name and type
+     */
+    private int edgeColumn(String name, boolean doubles) {
+        int column = edgeColumns == null ? -1 : edgeColumns.indexOf(name);
+        if (column == -1) {
+            throw new IllegalArgumentException("There is no edge column " + name);
+        }
+        if (doubleEdgeColumns[column] != doubles) {
+            throw new IllegalArgumentException("Edge column " + name + " does not hold " + (doubles ? "doubles" : "longs"));
+        }
+        return column;
+    }
+
+    /**
+     * @return adjacency of the first vertex, which has an edge to the second one
+     * @throws IllegalArgumentException if the edge does not exist
+     */
+    private Adjacency edge(int id1, int id2) {
+        MyVertex vertex = vertex(id1);
+        if (vertex == null || !vertex.containsEdge(id2)) {
+            throw new IllegalArgumentException("There is no edge between " + id1 + " and " + id2);
+        }
+        return vertex.weightedEdges;
+    }
+
+    /**
+     * Sets an edge column at both ends of the edge
+     *
+     * @return false if the edge does not exist
+     */
+    private boolean setEdgeColumn(int id1, int id2, int column, long value) {
+        MyVertex vert1 = vertex(id1);
+        MyVertex vert2 = vertex(id2);
+        if (vert1 == null || vert2 == null || !vert1.containsEdge(id2)) {
+            return false;
+        }
+        vert1.weightedEdges.setColumn(column, vert1.weightedEdges.indexOf(id2), value);
+        vert2.weightedEdges.setColumn(column, vert2.weightedEdges.indexOf(id1), value);
+        return true;
+    }
+
+    /**
+     * @return the attribute columns, created if there are none yet
+     */
+    private VertexColumns columns() {
+        if (columns == null) {
+            columns = new VertexColumns(denseVertices.size());
+        }
+        return columns;
+    }
+
+    /**
+     * @return the attribute columns
+     * @throws IllegalArgumentException if there are none, naming the column that was asked for
+     */
+    private VertexColumns columns(String column) {
+        if (columns == null) {
+            throw new IllegalArgumentException("There is no column " + column);
+        }
+        return columns;
+    }
+
+    /**
+     * @return builder holding every vertex and edge, each edge once
+     */
+    private OffHeapGraph.Builder offHeapBuilder() {
+        sweep();
+        OffHeapGraph.Builder builder = OffHeapGraph.builder(denseIds());
+        for (MyVertex vertex : denseVertices) {
+            Adjacency adjacency = vertex.weightedEdges;
+            for (int e = 0; e < adjacency.size(); e++) {
+                if (vertex.id < adjacency.target(e)) {
+                    builder.addEdge(vertex.id, adjacency.target(e), adjacency.weight(e));
+                }
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * @return vertex ID of every dense index
+     */
+    private int[] denseIds() {
+        int[] ids = new int[denseVertices.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = denseVertices.get(i).id;
+        }
+        return ids;
+    }
+
+    /**
+     * Removes a vertex, and drops its edges from the other vertices unless the removal is lazy.
+     * Removals are never lazy while connectivity or the MST is tracked.
+     */
+    private boolean removeVertex(int id, boolean lazy) {
+        MyVertex temp = vertex(id);
+        if (temp == null) {
+            return false;
+        }
+        Adjacency adjacency = temp.weightedEdges;
+        if (connectivity != null || mst != null) {
+            //edges are removed one at a time, so that the trackers see the graph after each removal
+            while (!adjacency.isEmpty()) {
+                MyVertex other = vertex(adjacency.target(0));
+                temp.removeEdge(other.id);
+                other.removeEdge(id);
+                edges--;
+                edgeRemoved(temp, other);
+            }
+        } else if (lazy) {
+            //edges to vertices that were removed before are already gone from the count
+            int live = liveDegree(adjacency);
+            edges -= live;
+            staleEdges += live;
+            if (tombstones == null) {
+                tombstones = new IntIntMap();
+                removedVertices = new ArrayList<>();
+            }
+            tombstones.put(id, 0);
+            removedVertices.add(temp);
+        } else {
+            //for each edge, remove it from the other vertex that it is connected to
+            for (int i = 0; i < adjacency.size(); i++) {
+                vertex(adjacency.target(i)).removeEdge(id);
+            }
+            edges -= adjacency.size();
+        }
+        //remove vertex, moving the last dense vertex into its slot
+        MyVertex last = denseVertices.remove(denseVertices.size() - 1);
+        if (last != temp) {
+            last.index = temp.index;
+            denseVertices.set(temp.index, last);
+            vertices.put(last.id, last.index);
+        }
+        vertices.remove(id);
+        if (connectivity != null) {
+            connectivity.removeVertex(temp.index);
+        }
+        if (mst != null) {
+            mst.removeVertex(temp.index);
+        }
+        if (columns != null) {
+            columns.removeVertex(temp.index);
+        }
+        version++;
+        return true;
+    }
+
+    /**
+     * @return number of edges in the adjacency that do not lead to a lazily removed vertex
+     */
+    private int liveDegree(Adjacency adjacency) {
+        if (tombstones == null) {
+            return adjacency.size();
+        }
+        int stale = 0;
+        if (removedVertices.size() < adjacency.size()) {
+            //few tombstones: look each one up in the adjacency
+            for (MyVertex removed : removedVertices) {
+                if (adjacency.contains(removed.id)) {
+                    stale++;
+                }
+            }
+        } else {
+            for (int i = 0; i < adjacency.size(); i++) {
+                if (tombstones.containsKey(adjacency.target(i))) {
+                    stale++;
+                }
+            }
+        }
+        return adjacency.size() - stale;
+    }
+
+    /**
+     * @return true if the ID is of a lazily removed vertex, whose edges may still be in other adjacencies
+     */
+    private boolean isTombstone(int id) {
+        return tombstones != null && tombstones.containsKey(id);
+    }
+
+    /**
+     * Sweeps once the edges left behind by lazily removed vertices outnumber the edges that are left, so
+     * that they never take more than half of the adjacencies. Each sweep costs about as much as the removals
+     * that led to it saved
+     */
+    private void sweepIfStale() {
+        if (staleEdges > edges) {
+            sweep();
+        }
+    }
+
+    /**
+     * Drops the edges of lazily removed vertices from the vertices that are left. Every affected adjacency
+     * is filtered once, however many removed vertices it had edges to. Called before algorithms that read
+     * every adjacency.
+     */
+    private void sweep() {
+        if (tombstones == null) {
+            return;
+        }
+        IntIntMap removed = tombstones;
+        List<MyVertex> sweeping = removedVertices;
+        tombstones = null;
+        removedVertices = null;
+        staleEdges = 0;
+        boolean[] swept = new boolean[denseVertices.size()];
+        for (MyVertex vertex : sweeping) {
+            Adjacency adjacency = vertex.weightedEdges;
+            for (int i = 0; i < adjacency.size(); i++) {
+                //neighbors that were removed too have nothing to sweep
+                int index = vertices.get(adjacency.target(i), -1);
+                if (index != -1 && !swept[index]) {
+                    swept[index] = true;
+                    denseVertices.get(index).weightedEdges.removeIf(removed::containsKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells the trackers that the edge between both vertices is gone from both adjacencies
+     */
+    private void edgeRemoved(MyVertex vert1, MyVertex vert2) {
+        if (connectivity != null) {
+            connectivity.removeEdge(vert1.index, vert2.index);
+        }
+        if (mst != null) {
+            mst.removeEdge(vert1.index, vert2.index);
+        }
+    }
+
+    /**
+     * @return start time of an operation for {@link #finish}, 0 if metrics are not recorded
+     */
+    private long start() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records an operation that started at the given time, if metrics are recorded
+     */
+    private void finish(GraphMetrics.Operation operation, long start) {
+        if (metrics != null && start != 0) {
+            metrics.record(operation, start);
+        }
+    }
+
+    /**
+     * Looks the result up in the cache, if there is one, or computes it
+     *
+     * @param weigher estimated size of the result in bytes
+     */
+    private <T> T cached(Object key, Supplier<T> compute, ToLongFunction<T> weigher) {
+        return cache == null ? compute.get() : cache.get(key, version, compute, weigher);
+    }
+
+    /**
+     * Minimum spanning forest from the MST tracker, the cache, or the given algorithm
+     */
+    private GraphAlgorithms.SpanningForest spanningForest(MSTStrategy strategy, boolean allowForest) {
+        sweep();
+        if (mst != null) {
+            return mst.forest();
+        }
+        return cached(Arrays.asList("spanningForest", strategy, allowForest),
+                () -> GraphAlgorithms.spanningForest(denseView, strategy, allowForest),
+                forest -> 12L * forest.from.length);
+    }
+
+    /**
+     * Runs the task on the pool of this graph, so that parallel streams inside of it use the pool's threads
+     */
+    private <T> T inPool(Supplier<T> task) {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool.submit(task::get).join();
+    }
+
+    private static IntStream range(int size, boolean parallel) {
+        IntStream range = IntStream.range(0, size);
+        return parallel ? range.parallel() : range;
+    }
+
+    /**
+     * Exposes the vertices by dense index, so that {@link GraphAlgorithms} can run on this graph
+     */
+    private class DenseView implements DenseGraph {
+        @Override
+        public int size() {
+            return denseVertices.size();
+        }
+
+        @Override
+        public long edgeCount() {
+            return edges;
+        }
+
+        @Override
+        public int degree(int index) {
+            return denseVertices.get(index).weightedEdges.size();
+        }
+
+        @Override
+        public int neighbor(int index, int i) {
+            return vertices.get(denseVertices.get(index).weightedEdges.target(i), -1);
+        }
+
+        @Override
+        public int weight(int index, int i) {
+            return denseVertices.get(index).weightedEdges.weight(i);
+        }
+    }
+
     /**
      * Private class that denotes a vertex. Each vertex should have a unique integer ID.
      * The vertex will also store all edges associated to it, along with their weights.
      */
     private class MyVertex {
         private int id;
+        //position in denseVertices, changes when another vertex is removed
+        private int index;
         private V value;
-        private Map<Integer, Integer> weightedEdges;
+        private Adjacency weightedEdges;
 
         private MyVertex(int id, V val) {
             this.id = id;
             this.value = val;
-            this.weightedEdges = new HashMap<>();
+            this.weightedEdges = new Adjacency();
         }
 
         /**
@@ -378,11 +1837,7 @@ public class MyGraph<V> {
          * @return true if the edge was removed, false if not
          */
         private boolean removeEdge(int id) {
-            if (!containsEdge(id)) {
-                return false;
-            }
-            weightedEdges.remove(id);
-            return true;
+            return weightedEdges.remove(id);
         }
 
         /**
@@ -392,11 +1847,13 @@ public class MyGraph<V> {
          * @return list of int arrays of size 2
          */
         private List<int[]> getEdges() {
-            List<int[]> edges = new ArrayList<>();
-            weightedEdges.forEach((k, v) -> {
-                int[] temp = {k, v};
-                edges.add(temp);
-            });
+            List<int[]> edges = new ArrayList<>(weightedEdges.size());
+            for (int i = 0; i < weightedEdges.size(); i++) {
+                if (!isTombstone(weightedEdges.target(i))) {
+                    int[] temp = {weightedEdges.target(i), weightedEdges.weight(i)};
+                    edges.add(temp);
+                }
+            }
             return edges;
         }
 
@@ -408,8 +1865,9 @@ public class MyGraph<V> {
          * @return weight of the edge
          */
         private Integer getEdgeValue(int id) {
-            if (containsEdge(id)) {
-                return weightedEdges.get(id);
+            int i = weightedEdges.indexOf(id);
+            if (i >= 0) {
+                return weightedEdges.weight(i);
             }
             return null;
         }
@@ -422,17 +1880,24 @@ public class MyGraph<V> {
          * @return true if the edge exists, false otherwise
          */
         private boolean containsEdge(int id) {
-            return weightedEdges.containsKey(id);
+            return weightedEdges.contains(id);
         }
 
         @Override
         public String toString() {
-            String s = "Vertex (ID, value): " + String.format("(%s, %s)", String.valueOf(this.id), String.valueOf(this.value)) + "\nEdges(vertex, weight): ";
+            return appendTo(new StringBuilder()).toString();
+        }
+
+        /**
+         * Appends the same text as {@link #toString()}, without building intermediate strings
+         */
+        private StringBuilder appendTo(StringBuilder s) {
+            s.append("Vertex (ID, value): (").append(this.id).append(", ").append(this.value).append(")\nEdges(vertex, weight): ");
             if (weightedEdges.isEmpty()) {
-                return s + "n/a";
+                return s.append("n/a");
             }
-            for (Map.Entry<Integer, Integer> entry : weightedEdges.entrySet()) {
-                s = s.concat("(" + String.valueOf(entry.getKey()) + ", " + String.valueOf(entry.getValue()) + "), ");
+            for (int i = 0; i < weightedEdges.size(); i++) {
+                s.append('(').append(weightedEdges.target(i)).append(", ").append(weightedEdges.weight(i)).append("), ");
             }
             return s;
         }
@@ -1,6 +1,11 @@
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,6 +38,118 @@ class MyGraphTest {
         }
     }
 
+    @Test
+    void lazyRemoval() {
+        //a hub joined to every other vertex, and a path through the others
+        for (int i = 0; i < 10; i++) {
+            g.addVertex(i, null);
+        }
+        for (int i = 1; i < 10; i++) {
+            g.addEdge(0, i, i);
+        }
+        for (int i = 1; i < 9; i++) {
+            g.addEdge(i, i + 1, 1);
+        }
+        assertEquals(17, g.numEdges());
+        //eager removals keep the edge count exact
+        assertTrue(g.removeVertex(9));
+        assertEquals(15, g.numEdges());
+
+        g.setLazyRemoval(true);
+        assertTrue(g.isLazyRemoval());
+        assertTrue(g.removeVertex(0));
+        assertEquals(7, g.numEdges());
+        //the tombstone of 0 is not counted again when a neighbor is removed too
+        assertTrue(g.removeVertex(1));
+        assertEquals(6, g.numEdges());
+        assertFalse(g.isAdjacent(2, 0));
+        assertEquals(Arrays.asList(3), g.getNeighbors(2));
+        assertEquals(2, g.degree(3));
+        assertTrue(g.isConnected());
+        assertEquals(6, g.mstWeight());
+
+        //a new vertex with the ID of a removed one does not inherit its edges
+        assertTrue(g.removeVertex(4));
+        assertTrue(g.addVertex(4, "new"));
+        assertEquals(0, g.degree(4));
+        assertEquals(Arrays.asList(2), g.getNeighbors(3));
+        assertEquals(4, g.numEdges());
+
+        assertEquals(2, g.removeVertices(new int[]{5, 7, 42}));
+        assertEquals(1, g.numEdges());
+        g.compact();
+        assertEquals(Arrays.asList(3), g.getNeighbors(2));
+        assertEquals(0, g.degree(6));
+        assertEquals(0, g.degree(8));
+        assertEquals(5, g.numVertices());
+        g.setLazyRemoval(false);
+        assertFalse(g.isLazyRemoval());
+
+        //queries of single vertices skip the tombstones that are left before a sweep
+        MyGraph<String> grid = GraphGenerator.grid(10, 10, 3);
+        grid.setLazyRemoval(true);
+        List<Integer> neighbors = grid.getNeighbors(11);
+        assertTrue(grid.removeVertex(neighbors.get(0)));
+        assertEquals(neighbors.subList(1, neighbors.size()), grid.getNeighbors(11));
+        assertEquals(neighbors.size() - 1, grid.degree(11));
+        assertEquals(neighbors.size() - 1, grid.getEdges(11).size());
+        int[] visited = {0};
+        grid.forEachNeighbor(11, (neighbor, weight) -> {
+            assertNotEquals(neighbors.get(0), neighbor);
+            visited[0]++;
+        });
+        assertEquals(neighbors.size() - 1, visited[0]);
+        //removing most of the grid sweeps along the way
+        for (int id = 20; id < 90; id++) {
+            grid.removeVertex(id);
+        }
+        int degrees = 0;
+        for (int id = 0; id < 100; id++) {
+            degrees += Math.max(0, grid.degree(id));
+        }
+        assertEquals(2 * grid.numEdges(), degrees);
+
+        //random lazy and batched removals end up with the same graph as eager ones
+        Random random = new Random(7);
+        MyGraph<String> eager = GraphGenerator.powerLaw(500, 4, 7);
+        MyGraph<String> lazy = GraphGenerator.powerLaw(500, 4, 7);
+        lazy.setLazyRemoval(true);
+        for (int round = 0; round < 20; round++) {
+            int[] batch = random.ints(10, 0, 500).toArray();
+            for (int id : batch) {
+                eager.removeVertex(id);
+            }
+            if (round % 2 == 0) {
+                lazy.removeVertices(batch);
+            } else {
+                for (int id : batch) {
+                    lazy.removeVertex(id);
+                }
+            }
+            assertEquals(eager.numEdges(), lazy.numEdges());
+            for (int k = 0; k < 5; k++) {
+                int id = random.nextInt(500);
+                assertEquals(eager.addVertex(id, null), lazy.addVertex(id, null));
+                int other = random.nextInt(500);
+                assertEquals(eager.addEdge(id, other), lazy.addEdge(id, other));
+            }
+            if (round % 5 == 0) {
+                int id = random.nextInt(500);
+                assertEquals(eager.getNeighbors(id), lazy.getNeighbors(id));
+            }
+        }
+        assertEquals(eager.mstWeight(), lazy.mstWeight());
+        assertEquals(eager.connectedComponents().count(), lazy.connectedComponents().count());
+        for (int id = 0; id < 500; id++) {
+            assertEquals(eager.getNeighbors(id), lazy.getNeighbors(id));
+        }
+        int total = 0;
+        for (int id = 0; id < 500; id++) {
+            total += Math.max(0, lazy.degree(id));
+        }
+        assertEquals(2 * lazy.numEdges(), total);
+    }
+
     @Test
     void changeVertexValue() {
         for (int i = 0; i < 5; i++) {
@@ -52,6 +169,55 @@ class MyGraphTest {
         assertFalse(g.addEdge(1, 1, 20));
     }
 
+    @Test
+    void addEdges() {
+        Random random = new Random(7);
+        int m = 5000;
+        int[] ids1 = new int[m];
+        int[] ids2 = new int[m];
+        int[] weights = new int[m];
+        for (int e = 0; e < m; e++) {
+            //includes self loops, duplicates in both directions and missing vertices
+            ids1[e] = random.nextInt(210) - 5;
+            ids2[e] = random.nextInt(210) - 5;
+            weights[e] = random.nextInt(100);
+        }
+        for (boolean parallel : new boolean[]{false, true}) {
+            MyGraph<String> expected = new MyGraph<>();
+            MyGraph<String> bulk = new MyGraph<>();
+            int[] ids = new int[200];
+            for (int i = 0; i < 200; i++) {
+                ids[i] = i;
+                expected.addVertex(i, String.valueOf(i));
+            }
+            assertEquals(200, bulk.addVertices(ids, String::valueOf));
+            assertEquals(0, bulk.addVertices(new int[]{0, 1}));
+            assertEquals(2, bulk.addVertices(new int[]{500, 500, 501}));
+            expected.addVertex(500, null);
+            expected.addVertex(501, null);
+            //edges that exist before the batch are skipped too
+            expected.addEdge(1, 2, 77);
+            bulk.addEdge(1, 2, 77);
+            int added = 0;
+            for (int e = 0; e < m; e++) {
+                if (expected.addEdge(ids1[e], ids2[e], weights[e])) {
+                    added++;
+                }
+            }
+            assertEquals(added, bulk.addEdges(ids1, ids2, weights, parallel));
+            assertEquals(expected.numEdges(), bulk.numEdges());
+            for (int i = 0; i < 200; i++) {
+                assertEquals(expected.getNeighbors(i), bulk.getNeighbors(i));
+                for (int j : expected.getNeighbors(i)) {
+                    assertEquals(expected.getEdgeValue(i, j), bulk.getEdgeValue(i, j));
+                }
+                assertEquals(String.valueOf(i), bulk.getVertexValue(i));
+            }
+        }
+        assertEquals(1, g.addVertices(new int[]{1}));
+        assertThrows(IllegalArgumentException.class, () -> g.addEdges(new int[1], new int[2], null));
+    }
+
     @Test
     void removeEdge() {
         assertTrue(g.addVertex(1, String.valueOf("Hello World!")));
@@ -64,6 +230,32 @@ class MyGraphTest {
         assertFalse(g.isAdjacent(1, 2));
     }
 
+    @Test
+    void manyVertices() {
+        //strided and negative IDs, to exercise the vertex table
+        for (int i = -500; i < 500; i++) {
+            assertTrue(g.addVertex(i * 1024, String.valueOf(i)));
+        }
+        for (int i = -500; i < 499; i++) {
+            assertTrue(g.addEdge(i * 1024, (i + 1) * 1024, i));
+        }
+        assertEquals(1000, g.numVertices());
+        assertEquals(999, g.numEdges());
+        for (int i = -500; i < 500; i += 2) {
+            assertTrue(g.removeVertex(i * 1024));
+        }
+        assertEquals(500, g.numVertices());
+        for (int i = -499; i < 500; i += 2) {
+            assertTrue(g.containsVertex(i * 1024));
+            assertFalse(g.containsVertex((i - 1) * 1024));
+            assertEquals(String.valueOf(i), g.getVertexValue(i * 1024));
+            assertTrue(g.getNeighbors(i * 1024).isEmpty());
+        }
+        assertTrue(g.addEdge(1024, 3 * 1024, 5));
+        assertEquals(new Integer(5), g.getEdgeValue(3 * 1024, 1024));
+        assertNull(g.getEdgeValue(1024, 5 * 1024));
+    }
+
     @Test
     void isAdjacent() {
         for (int i = 0; i < 5; i++) {
@@ -90,6 +282,30 @@ class MyGraphTest {
         assertEquals(Arrays.asList(1), g.getNeighbors(0));
     }
 
+    @Test
+    void forEachNeighbor() {
+        for (int i = 0; i < 4; i++) {
+            g.addVertex(i, "");
+        }
+        for (int i = 1; i < 4; i++) {
+            g.addEdge(0, i, i * 10);
+        }
+        int[] visited = new int[2];
+        assertTrue(g.forEachNeighbor(0, (neighbor, weight) -> {
+            assertEquals(neighbor * 10, weight);
+            visited[0]++;
+            visited[1] += weight;
+        }));
+        assertArrayEquals(new int[]{3, 60}, visited);
+        assertFalse(g.forEachNeighbor(4, (neighbor, weight) -> fail("vertex does not exist")));
+        assertEquals(3, g.degree(0));
+        assertEquals(1, g.degree(2));
+        assertEquals(-1, g.degree(4));
+        g.removeVertex(0);
+        assertEquals(0, g.degree(2));
+        assertEquals(0, g.toCsr().degree(3));
+    }
+
     @Test
     void isConnected() {
         for (int i = 1; i < 10; i++) {
@@ -114,6 +330,35 @@ class MyGraphTest {
         assertFalse(g.isConnected());
     }
 
+    @Test
+    void connectedComponents() {
+        for (int i = 1; i < 10; i++) {
+            g.addVertex(i, "");
+        }
+        g.addEdge(1, 2);
+        g.addEdge(2, 3);
+        g.addEdge(4, 5);
+        g.addEdge(6, 7);
+        g.addEdge(7, 8);
+        g.addEdge(8, 6);
+        ConnectedComponents c = g.connectedComponents();
+        assertEquals(4, c.count());
+        assertTrue(c.sameComponent(1, 3));
+        assertTrue(c.sameComponent(6, 8));
+        assertFalse(c.sameComponent(3, 4));
+        assertFalse(c.sameComponent(1, 10));
+        assertEquals(-1, c.componentOf(10));
+        assertEquals(3, c.size(c.componentOf(2)));
+        assertEquals(1, c.size(c.componentOf(9)));
+        assertEquals(9, Arrays.stream(c.sizes()).sum());
+        g.addEdge(3, 4);
+        g.addEdge(5, 6);
+        g.addEdge(9, 1);
+        assertEquals(1, g.connectedComponents().count());
+        assertTrue(g.isConnected());
+        assertEquals(0, new MyGraph<String>().connectedComponents().count());
+    }
+
     @Test
     void createMST() {
         // how tf do i test this?????
@@ -136,6 +381,758 @@ class MyGraphTest {
         assertTrue(f.numEdges() == f.numVertices() - 1);
     }
 
+    @Test
+    void createMSTStrategies() {
+        for (int i = 1; i < 10; i++) {
+            g.addVertex(i, String.valueOf(i));
+        }
+        g.addEdge(1, 2, 3);
+        g.addEdge(1, 3, 1);
+        g.addEdge(1, 4, 4);
+        g.addEdge(4, 2, 7);
+        g.addEdge(3, 4, 3);
+        g.addEdge(4, 5, 5);
+        g.addEdge(4, 6, 2);
+        g.addEdge(4, 7, 1);
+        g.addEdge(4, 8, 2);
+        g.addEdge(4, 9, 5);
+        for (MyGraph.MSTStrategy strategy : MyGraph.MSTStrategy.values()) {
+            MyGraph<String> f = g.createMST(strategy);
+            assertTrue(f.isConnected());
+            assertEquals(f.numVertices() - 1, f.numEdges());
+            assertEquals(22, totalWeight(f));
+            assertEquals("5", f.getVertexValue(5));
+            assertFalse(f.isAdjacent(1, 4));
+            assertFalse(f.isAdjacent(2, 4));
+        }
+    }
+
+    @Test
+    void parallelBoruvka() {
+        Random random = new Random(5);
+        for (int i = 0; i < 2000; i++) {
+            g.addVertex(i, null);
+        }
+        for (int i = 0; i < 10000; i++) {
+            //few distinct weights, so that many edges tie
+            g.addEdge(random.nextInt(2000), random.nextInt(2000), random.nextInt(4));
+        }
+        CsrGraph<String> csr = g.toCsr();
+        MyGraph<String> kruskal = csr.createMST(MyGraph.MSTStrategy.KRUSKAL, true);
+        String boruvka = csr.createMST(MyGraph.MSTStrategy.BORUVKA, true).toString();
+        //ties are broken the same way on every run, and the same way as Kruskal's algorithm here
+        assertEquals(kruskal.toString(), boruvka);
+        for (int run = 0; run < 3; run++) {
+            assertEquals(boruvka, g.createMST(MyGraph.MSTStrategy.BORUVKA, true).toString());
+        }
+    }
+
+    @Test
+    void createMinimumSpanningForest() {
+        for (int i = 1; i < 7; i++) {
+            g.addVertex(i, "");
+        }
+        g.addEdge(1, 2, 4);
+        g.addEdge(2, 3, 1);
+        g.addEdge(1, 3, 2);
+        g.addEdge(4, 5, 6);
+        for (MyGraph.MSTStrategy strategy : MyGraph.MSTStrategy.values()) {
+            assertThrows(IllegalStateException.class, () -> g.createMST(strategy));
+            MyGraph<String> f = g.createMST(strategy, true);
+            assertEquals(6, f.numVertices());
+            assertEquals(3, f.numEdges());
+            assertEquals(9, totalWeight(f));
+            assertTrue(f.containsVertex(6));
+        }
+        assertThrows(IllegalStateException.class, () -> new MyGraph<String>().createMST());
+    }
+
+    @Test
+    void toCsr() {
+        for (int i = 1; i < 10; i++) {
+            g.addVertex(i, String.valueOf(i));
+        }
+        g.addEdge(1, 2, 3);
+        g.addEdge(1, 3, 1);
+        g.addEdge(1, 4, 4);
+        g.addEdge(4, 2, 7);
+        g.addEdge(3, 4, 3);
+        g.addEdge(4, 5, 5);
+        g.addEdge(4, 6, 2);
+        g.addEdge(4, 7, 1);
+        g.addEdge(4, 8, 2);
+        CsrGraph<String> csr = g.toCsr();
+        assertEquals(9, csr.numVertices());
+        assertEquals(9, csr.numEdges());
+        assertEquals("4", csr.getVertexValue(4));
+        assertNull(csr.getVertexValue(10));
+        assertTrue(csr.isAdjacent(2, 4));
+        assertFalse(csr.isAdjacent(2, 3));
+        assertEquals(new Integer(7), csr.getEdgeValue(4, 2));
+        assertNull(csr.getEdgeValue(2, 3));
+        assertEquals(g.getNeighbors(4), csr.getNeighbors(4));
+        assertEquals(Arrays.asList(1, 4), csr.getNeighbors(2));
+        assertFalse(csr.isConnected());
+        assertEquals(2, csr.connectedComponents().count());
+        assertThrows(IllegalStateException.class, csr::createMST);
+        assertEquals(17, totalWeight(csr.createMST(MyGraph.MSTStrategy.KRUSKAL, true)));
+
+        //snapshot does not see later changes
+        g.addEdge(4, 9, 5);
+        assertFalse(csr.isAdjacent(4, 9));
+        csr = g.toCsr();
+        assertTrue(csr.isConnected());
+        assertEquals(22, totalWeight(csr.createMST()));
+
+        int index = csr.indexOf(4);
+        int total = 0;
+        for (int e = csr.edgesStart(index); e < csr.edgesEnd(index); e++) {
+            total += csr.weight(e);
+            assertTrue(g.isAdjacent(4, csr.idAt(csr.target(e))));
+        }
+        assertEquals(29, total);
+    }
+
+    @Test
+    void shortestPaths() {
+        for (int i = 1; i < 8; i++) {
+            g.addVertex(i, "");
+        }
+        g.addEdge(1, 2, 7);
+        g.addEdge(1, 3, 9);
+        g.addEdge(1, 6, 14);
+        g.addEdge(2, 3, 10);
+        g.addEdge(2, 4, 15);
+        g.addEdge(3, 4, 11);
+        g.addEdge(3, 6, 2);
+        g.addEdge(4, 5, 6);
+        g.addEdge(5, 6, 9);
+        for (MyGraph.PathStrategy strategy : new MyGraph.PathStrategy[]{MyGraph.PathStrategy.DIJKSTRA, MyGraph.PathStrategy.DIAL}) {
+            ShortestPaths paths = g.shortestPaths(1, strategy);
+            assertEquals(0, paths.distanceTo(1));
+            assertEquals(9, paths.distanceTo(3));
+            assertEquals(20, paths.distanceTo(4));
+            assertEquals(20, paths.distanceTo(5));
+            assertEquals(11, paths.distanceTo(6));
+            assertFalse(paths.hasPathTo(7));
+            assertEquals(ShortestPaths.UNREACHABLE, paths.distanceTo(8));
+            assertArrayEquals(new int[]{1, 3, 6, 5}, paths.pathTo(5).vertices());
+            assertNull(paths.pathTo(7));
+            assertArrayEquals(new long[]{0, 7, 9, 20, 20, 11, -1}, paths.distances());
+            assertEquals(0, paths.predecessors()[2]);
+        }
+        for (MyGraph.PathStrategy strategy : MyGraph.PathStrategy.values()) {
+            GraphPath path = g.shortestPath(1, 5, strategy);
+            assertEquals(20, path.weight());
+            assertArrayEquals(new int[]{1, 3, 6, 5}, path.vertices());
+            assertEquals(3, path.numEdges());
+            assertEquals(0, g.shortestPath(4, 4, strategy).weight());
+            assertNull(g.shortestPath(1, 7, strategy));
+            assertNull(g.shortestPath(1, 8, strategy));
+            assertEquals(20, g.toCsr().shortestPath(5, 1, strategy).weight());
+        }
+        assertNull(g.shortestPaths(8));
+        assertThrows(IllegalArgumentException.class, () -> g.shortestPaths(1, MyGraph.PathStrategy.BIDIRECTIONAL));
+        g.addEdge(6, 7, -1);
+        assertThrows(IllegalStateException.class, () -> g.shortestPaths(1));
+    }
+
+    @Test
+    void tsp() {
+        //corners of a 3x4 rectangle, with Euclidean distances
+        int[][] corners = {{0, 0}, {3, 0}, {3, 4}, {0, 4}, {0, 2}, {3, 2}};
+        for (int i = 0; i < corners.length; i++) {
+            g.addVertex(i, "");
+        }
+        for (int i = 0; i < corners.length; i++) {
+            for (int j = i + 1; j < corners.length; j++) {
+                double d = Math.hypot(corners[i][0] - corners[j][0], corners[i][1] - corners[j][1]);
+                g.addEdge(i, j, (int) Math.ceil(d * 10));
+            }
+        }
+        assertTrue(TspSolver.satisfiesTriangleInequality(g, 1000, 42));
+        GraphPath tour = TspSolver.solve(g, 1000, 1000);
+        int[] cities = tour.vertices();
+        assertEquals(corners.length + 1, cities.length);
+        assertEquals(cities[0], cities[corners.length]);
+        assertEquals(corners.length, Arrays.stream(cities).distinct().count());
+        //the perimeter is optimal
+        assertEquals(140, tour.weight());
+
+        g.changeEdgeValue(0, 2, 1000);
+        assertFalse(TspSolver.satisfiesTriangleInequality(g, 10000, 42));
+        assertThrows(IllegalStateException.class, () -> TspSolver.solve(g, 1000, 10000));
+        g.removeEdge(0, 2);
+        assertThrows(IllegalStateException.class, () -> TspSolver.solve(g, 1000));
+    }
+
+    @Test
+    void graphFile() throws IOException {
+        for (int i = -3; i < 200; i++) {
+            g.addVertex(i * 3, i % 7 == 0 ? null : "v" + i);
+        }
+        for (int i = -3; i < 199; i++) {
+            g.addEdge(i * 3, (i + 1) * 3, i * 1000);
+            g.addEdge(i * 3, ((i * 31) % 150) * 3, -i);
+        }
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            GraphFile.write(g, ValueCodec.strings(), file);
+            MyGraph<String> read = GraphFile.read(file, ValueCodec.strings());
+            //vertices were added in ascending order of IDs, so both graphs print the same
+            assertEquals(g.toString(), read.toString());
+            assertEquals(g.numVertices(), read.numVertices());
+            assertEquals(g.numEdges(), read.numEdges());
+            try (MappedGraph<String> mapped = GraphFile.map(file, ValueCodec.strings())) {
+                assertEquals(g.numEdges(), mapped.numEdges());
+                for (int i = -3; i < 200; i++) {
+                    int id = i * 3;
+                    assertEquals(g.getVertexValue(id), mapped.getVertexValue(id));
+                    assertEquals(g.getVertexValue(id), read.getVertexValue(id));
+                    assertEquals(g.getNeighbors(id), mapped.getNeighbors(id));
+                    assertEquals(g.getNeighbors(id), read.getNeighbors(id));
+                    assertEquals(g.degree(id), mapped.degree(id));
+                    for (int neighbor : g.getNeighbors(id)) {
+                        assertEquals(g.getEdgeValue(id, neighbor), mapped.getEdgeValue(id, neighbor));
+                        assertEquals(g.getEdgeValue(id, neighbor), read.getEdgeValue(id, neighbor));
+                    }
+                }
+                assertFalse(mapped.containsVertex(1));
+                assertNull(mapped.getEdgeValue(0, 600));
+                assertFalse(mapped.isAdjacent(0, 597));
+            }
+            Files.write(file, new byte[64]);
+            assertThrows(IOException.class, () -> GraphFile.map(file, ValueCodec.strings()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void textFormats() throws IOException {
+        Path file = Files.createTempFile("graph", ".txt");
+        try {
+            Files.write(file, ("# comment\n1 2 5\n\n2\t3\n% other comment\n3 1 -4\r\n2 1 9\n4 4 1\n-7 2 3").getBytes());
+            MyGraph<String> read = new MyGraph<>();
+            assertEquals(4, GraphImporter.readEdgeList(file, read));
+            assertEquals(5, read.numVertices());
+            assertEquals(5, (int) read.getEdgeValue(1, 2));
+            assertEquals(1, (int) read.getEdgeValue(2, 3));
+            assertEquals(-4, (int) read.getEdgeValue(1, 3));
+            assertEquals(3, (int) read.getEdgeValue(-7, 2));
+            assertTrue(read.containsVertex(4));
+            MyGraph<String> parallel = new MyGraph<>();
+            assertEquals(4, GraphImporter.readEdgeListParallel(file, parallel));
+            assertEquals(read.toString(), parallel.toString());
+
+            Files.write(file, "1 2\n3 x\n".getBytes());
+            assertThrows(IOException.class, () -> GraphImporter.readEdgeList(file, new MyGraph<>()));
+
+            //a 0xFF byte, such as a Latin-1 y with diaeresis, is not the end of the input
+            Files.write(file, new byte[]{'#', ' ', (byte) 0xFF, '\n', '1', ' ', '2', '\n', '2', ' ', '3', '\n'});
+            MyGraph<String> highBytes = new MyGraph<>();
+            assertEquals(2, GraphImporter.readEdgeList(file, highBytes));
+            assertTrue(highBytes.isAdjacent(2, 3));
+            highBytes = new MyGraph<>();
+            assertEquals(2, GraphImporter.readEdgeListParallel(file, highBytes));
+            assertTrue(highBytes.isAdjacent(2, 3));
+
+            Random random = new Random(12);
+            for (int i = 1; i <= 300; i++) {
+                g.addVertex(i, null);
+            }
+            for (int i = 0; i < 1000; i++) {
+                g.addEdge(random.nextInt(300) + 1, random.nextInt(300) + 1, random.nextInt(100) - 10);
+            }
+            GraphExporter.writeEdgeList(g, file);
+            read = new MyGraph<>();
+            GraphImporter.readEdgeList(file, read);
+            assertEquals(g.numEdges(), read.numEdges());
+            parallel = new MyGraph<>();
+            GraphImporter.readEdgeListParallel(file, parallel);
+            assertEquals(read.toString(), parallel.toString());
+            GraphExporter.writeDimacs(g, file);
+            MyGraph<String> dimacs = new MyGraph<>();
+            assertEquals(g.numEdges(), GraphImporter.readDimacs(file, dimacs));
+            GraphExporter.writeMetis(g, file);
+            MyGraph<String> metis = new MyGraph<>();
+            assertEquals(g.numEdges(), GraphImporter.readMetis(file, metis));
+            //IDs are already 1..n, so renumbering keeps them
+            assertEquals(g.toString(), dimacs.toString());
+            assertEquals(g.toString(), metis.toString());
+            for (int i = 1; i <= 300; i++) {
+                for (int neighbor : g.getNeighbors(i)) {
+                    assertEquals(g.getEdgeValue(i, neighbor), read.getEdgeValue(i, neighbor));
+                }
+            }
+
+            Files.write(file, "c comment\np sp 4 3\na 1 2 7\na 2 1 7\nc more\na 3 4 2\n".getBytes());
+            dimacs = new MyGraph<>();
+            assertEquals(2, GraphImporter.readDimacs(file, dimacs));
+            assertEquals(4, dimacs.numVertices());
+            assertEquals(7, (int) dimacs.getEdgeValue(2, 1));
+
+            Files.write(file, "% comment\n3 1 011 2\n4 5 2 3\n1 1 1 3\n2 2\n".getBytes());
+            metis = new MyGraph<>();
+            assertEquals(1, GraphImporter.readMetis(file, metis));
+            assertEquals(3, metis.numVertices());
+            assertEquals(3, (int) metis.getEdgeValue(1, 2));
+            assertTrue(metis.getNeighbors(3).isEmpty());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void trackConnectivity() {
+        assertFalse(g.isTrackingConnectivity());
+        for (int i = 1; i < 7; i++) {
+            g.addVertex(i, null);
+        }
+        g.addEdge(1, 2);
+        g.trackConnectivity(true);
+        assertTrue(g.isTrackingConnectivity());
+        assertTrue(g.sameComponent(1, 2));
+        assertFalse(g.sameComponent(1, 3));
+        assertFalse(g.sameComponent(1, 7));
+        g.addEdges(new int[]{2, 3, 4}, new int[]{3, 4, 5}, null);
+        g.addEdge(5, 6);
+        g.addEdge(1, 6);
+        assertTrue(g.isConnected());
+        //1-6 is a cycle edge, so the graph stays connected
+        assertTrue(g.removeEdge(3, 4));
+        assertTrue(g.isConnected());
+        assertTrue(g.removeEdge(1, 6));
+        assertFalse(g.isConnected());
+        assertTrue(g.sameComponent(1, 3));
+        assertTrue(g.sameComponent(4, 6));
+        assertFalse(g.sameComponent(3, 4));
+        g.addEdge(2, 5);
+        assertTrue(g.isConnected());
+        assertTrue(g.removeVertex(2));
+        assertFalse(g.isConnected());
+        assertTrue(g.sameComponent(4, 6));
+        assertFalse(g.sameComponent(1, 3));
+        g.addVertex(7, null);
+        g.addEdge(7, 1);
+        g.addEdge(7, 3);
+        g.addEdge(7, 4);
+        assertTrue(g.isConnected());
+
+        //the same answers without tracking
+        g.trackConnectivity(false);
+        assertTrue(g.isConnected());
+        assertTrue(g.sameComponent(1, 6));
+        g.removeEdge(7, 4);
+        assertFalse(g.sameComponent(1, 6));
+        assertTrue(g.sameComponent(3, 3));
+    }
+
+    @Test
+    void trackMST() {
+        for (int i = 1; i < 6; i++) {
+            g.addVertex(i, "v" + i);
+        }
+        g.addEdge(1, 2, 4);
+        g.addEdge(2, 3, 5);
+        g.addEdge(3, 4, 6);
+        g.addEdge(4, 5, 7);
+        g.addEdge(5, 1, 8);
+        g.trackMST(true);
+        assertTrue(g.isTrackingMST());
+        assertEquals(22, g.mstWeight());
+        assertEquals(4, g.mstEdges().size());
+        //cheaper than the heaviest edge on the cycle 1-2-3-4
+        g.addEdge(1, 4, 1);
+        assertEquals(17, g.mstWeight());
+        assertTrue(g.isAdjacent(1, 4));
+        //tree edge made heavier, 4-5 is lighter
+        g.changeEdgeValue(1, 4, 20);
+        assertEquals(22, g.mstWeight());
+        //non-tree edge made lighter
+        g.changeEdgeValue(5, 1, 2);
+        assertEquals(17, g.mstWeight());
+        //tree edge removed, 4-5 replaces it
+        g.removeEdge(2, 3);
+        assertEquals(19, g.mstWeight());
+        g.removeVertex(4);
+        assertEquals(6, g.mstWeight());
+        assertEquals(2, g.mstEdges().size());
+        MyGraph<String> forest = g.createMST(MyGraph.MSTStrategy.PRIM, true);
+        assertEquals(4, forest.numVertices());
+        assertEquals(2, forest.numEdges());
+        assertEquals("v5", forest.getVertexValue(5));
+        assertThrows(IllegalStateException.class, () -> g.createMST());
+
+        //the same answers without tracking
+        long tracked = g.mstWeight();
+        g.trackMST(false);
+        assertEquals(tracked, g.mstWeight());
+        for (int[] edge : g.mstEdges()) {
+            assertEquals(edge[2], (int) g.getEdgeValue(edge[0], edge[1]));
+        }
+    }
+
+    @Test
+    void parallelTraversals() {
+        assertThrows(IllegalArgumentException.class, () -> g.setParallelism(0));
+        //a long path, then a dense blob large enough for bottom-up levels
+        for (int i = 0; i < 6000; i++) {
+            g.addVertex(i, null);
+        }
+        for (int i = 1; i < 100; i++) {
+            g.addEdge(i - 1, i, 50);
+        }
+        Random random = new Random(3);
+        for (int i = 0; i < 40000; i++) {
+            g.addEdge(99 + random.nextInt(5000), 99 + random.nextInt(5000), 1);
+        }
+        g.addEdge(5200, 5201);
+        ShortestPaths sequential = g.hopDistances(0);
+        ConnectedComponents components = g.connectedComponents();
+        boolean connected = g.isConnected();
+        g.setParallelism(4);
+        assertEquals(4, g.getParallelism());
+        ShortestPaths parallel = g.hopDistances(0);
+        assertArrayEquals(sequential.distances(), parallel.distances());
+        assertEquals(99, parallel.distanceTo(99));
+        assertEquals(99, parallel.pathTo(99).numEdges());
+        assertEquals(ShortestPaths.UNREACHABLE, parallel.distanceTo(5200));
+        assertNull(g.hopDistances(-1));
+        assertEquals(connected, g.isConnected());
+        assertFalse(g.isConnected());
+        ConnectedComponents parallelComponents = g.connectedComponents();
+        assertEquals(components.count(), parallelComponents.count());
+        assertTrue(parallelComponents.sameComponent(0, 5098));
+        assertTrue(parallelComponents.sameComponent(5200, 5201));
+        assertFalse(parallelComponents.sameComponent(0, 5201));
+        assertEquals(components.size(components.componentOf(0)), parallelComponents.size(parallelComponents.componentOf(0)));
+        for (int i = 5099; i < 6000; i++) {
+            g.removeVertex(i);
+        }
+        assertTrue(g.isConnected());
+    }
+
+    @Test
+    void vertexColumns() {
+        g.addVertex(1, "one");
+        g.addVertex(2, "two");
+        assertFalse(g.hasColumn("rank"));
+        assertThrows(IllegalArgumentException.class, () -> g.getIntValue(1, "rank"));
+        assertTrue(g.addIntColumn("rank", 7));
+        assertFalse(g.addLongColumn("rank", 0));
+        assertTrue(g.addLongColumn("visits", -1));
+        assertTrue(g.addDoubleColumn("score", 0.5));
+        assertTrue(g.hasColumn("rank"));
+        assertEquals(7, g.getIntValue(2, "rank"));
+        assertTrue(g.setIntValue(2, "rank", 3));
+        assertTrue(g.setLongValue(1, "visits", 1L << 40));
+        assertTrue(g.setDoubleValue(2, "score", 2.25));
+        assertFalse(g.setIntValue(9, "rank", 1));
+        assertThrows(IllegalArgumentException.class, () -> g.getIntValue(9, "rank"));
+        assertThrows(IllegalArgumentException.class, () -> g.getIntValue(1, "score"));
+        assertThrows(IllegalArgumentException.class, () -> g.setDoubleValue(1, "missing", 1));
+
+        //new vertices start with the defaults, bulk added ones too
+        g.addVertex(3, "three");
+        g.addVertices(new int[]{4, 5, 6});
+        assertEquals(7, g.getIntValue(6, "rank"));
+        assertEquals(-1, g.getLongValue(3, "visits"));
+        assertEquals(0.5, g.getDoubleValue(4, "score"));
+        g.setIntValue(6, "rank", 60);
+        g.setDoubleValue(6, "score", 6.5);
+
+        //removing a vertex keeps every other value with its vertex
+        assertTrue(g.removeVertex(2));
+        assertEquals(60, g.getIntValue(6, "rank"));
+        assertEquals(6.5, g.getDoubleValue(6, "score"));
+        assertEquals(1L << 40, g.getLongValue(1, "visits"));
+        assertEquals("one", g.getVertexValue(1));
+        assertTrue(g.removeVertex(6));
+        assertEquals(7, g.getIntValue(5, "rank"));
+
+        assertTrue(g.removeColumn("rank"));
+        assertFalse(g.removeColumn("rank"));
+        assertFalse(g.hasColumn("rank"));
+        assertEquals(-1, g.getLongValue(4, "visits"));
+    }
+
+    @Test
+    void edgeColumns() {
+        for (int i = 1; i < 6; i++) {
+            g.addVertex(i, null);
+        }
+        g.addEdge(1, 2, 1);
+        g.addEdge(2, 3, 1);
+        assertFalse(g.hasEdgeColumn("latency"));
+        assertTrue(g.addDoubleEdgeColumn("latency", 0.25));
+        assertFalse(g.addLongEdgeColumn("latency", 0));
+        assertTrue(g.addLongEdgeColumn("bytes", -1));
+        assertEquals(0.25, g.getDoubleEdgeValue(2, 1, "latency"));
+        assertTrue(g.setDoubleEdgeValue(1, 2, "latency", 1e-9));
+        assertEquals(1e-9, g.getDoubleEdgeValue(2, 1, "latency"));
+        assertTrue(g.setLongEdgeValue(3, 2, "bytes", Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, g.getLongEdgeValue(2, 3, "bytes"));
+        assertFalse(g.setLongEdgeValue(1, 3, "bytes", 5));
+        assertThrows(IllegalArgumentException.class, () -> g.getLongEdgeValue(1, 3, "bytes"));
+        assertThrows(IllegalArgumentException.class, () -> g.getLongEdgeValue(1, 2, "latency"));
+        assertThrows(IllegalArgumentException.class, () -> g.setDoubleEdgeValue(1, 2, "missing", 1));
+
+        //values stay with their edges as edges come and go around them
+        g.addEdge(1, 3, 1);
+        g.addEdges(new int[]{1, 4, 5}, new int[]{4, 5, 2}, null);
+        g.addVertex(6, null);
+        g.addEdge(6, 1, 1);
+        assertEquals(0.25, g.getDoubleEdgeValue(1, 4, "latency"));
+        assertEquals(-1, g.getLongEdgeValue(6, 1, "bytes"));
+        assertEquals(1e-9, g.getDoubleEdgeValue(1, 2, "latency"));
+        assertTrue(g.changeEdgeValue(2, 3, 9));
+        assertEquals(Long.MAX_VALUE, g.getLongEdgeValue(2, 3, "bytes"));
+        g.removeEdge(1, 3);
+        g.removeVertex(4);
+        assertEquals(1e-9, g.getDoubleEdgeValue(2, 1, "latency"));
+        assertEquals(Long.MAX_VALUE, g.getLongEdgeValue(3, 2, "bytes"));
+
+        //MST over a double column, which int weights could not tell apart
+        g.setDoubleEdgeValue(2, 3, "latency", -0.5);
+        g.setDoubleEdgeValue(1, 6, "latency", 0.125);
+        g.setDoubleEdgeValue(2, 5, "latency", 0.0625);
+        g.addEdge(1, 5, 1);
+        g.setDoubleEdgeValue(1, 5, "latency", 0.0);
+        MyGraph<String> tree = g.createMST("latency", false);
+        assertEquals(4, tree.numEdges());
+        assertTrue(tree.isAdjacent(2, 3));
+        assertTrue(tree.isAdjacent(1, 5));
+        assertTrue(tree.isAdjacent(1, 2));
+        assertFalse(tree.isAdjacent(2, 5));
+        assertEquals(-0.5, tree.getDoubleEdgeValue(3, 2, "latency"));
+        assertEquals(9, (int) tree.getEdgeValue(2, 3));
+        assertEquals(Long.MAX_VALUE, tree.getLongEdgeValue(3, 2, "bytes"));
+        assertThrows(IllegalArgumentException.class, () -> g.createMST("missing", true));
+
+        assertTrue(g.removeEdgeColumn("latency"));
+        assertFalse(g.hasEdgeColumn("latency"));
+        assertEquals(Long.MAX_VALUE, g.getLongEdgeValue(2, 3, "bytes"));
+        assertTrue(g.removeEdgeColumn("bytes"));
+        assertFalse(g.removeEdgeColumn("bytes"));
+        assertTrue(g.addEdge(3, 6, 1));
+    }
+
+    @Test
+    void resultCache() {
+        for (int i = 1; i < 6; i++) {
+            g.addVertex(i, null);
+        }
+        g.addEdge(1, 2, 4);
+        g.addEdge(2, 3, 1);
+        g.addEdge(3, 4, 2);
+        g.addEdge(4, 1, 3);
+        assertNull(g.getResultCache());
+        assertThrows(IllegalArgumentException.class, () -> g.cacheResults(-1));
+        g.cacheResults(1 << 20);
+        ResultCache cache = g.getResultCache();
+        assertFalse(g.isConnected());
+        assertFalse(g.isConnected());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+
+        ShortestPaths paths = g.shortestPaths(1);
+        assertSame(paths, g.shortestPaths(1));
+        assertNotSame(paths, g.shortestPaths(1, MyGraph.PathStrategy.DIAL));
+        assertNull(g.shortestPath(1, 5));
+        assertNull(g.shortestPath(1, 5));
+        assertEquals(6, g.mstWeight());
+        //the MST shares the forest that mstWeight cached, but every call gets its own graph
+        MyGraph<String> tree = g.createMST(MyGraph.MSTStrategy.PRIM, true);
+        assertNotSame(tree, g.createMST(MyGraph.MSTStrategy.PRIM, true));
+        assertEquals(3, tree.numEdges());
+        assertEquals(5, cache.hits());
+
+        //every change makes the cached results stale
+        long version = g.getVersion();
+        g.addEdge(4, 5, 1);
+        assertNotEquals(version, g.getVersion());
+        assertTrue(g.isConnected());
+        assertEquals(7, g.mstWeight());
+        assertEquals(4, g.shortestPath(1, 5).weight());
+        g.changeEdgeValue(4, 5, 10);
+        assertEquals(13, g.shortestPath(1, 5).weight());
+        g.removeEdge(4, 5);
+        assertFalse(g.isConnected());
+        g.removeVertex(5);
+        assertTrue(g.isConnected());
+        assertNotSame(paths, g.shortestPaths(1));
+        assertEquals(4, cache.invalidations());
+        assertFalse(g.changeVertexValue(5, "gone"));
+
+        //results over the capacity evict the least recently used ones
+        g.cacheResults(2 * ResultCache.ENTRY_OVERHEAD + 16 * 4);
+        cache = g.getResultCache();
+        g.isConnected();
+        g.shortestPaths(1);
+        g.isConnected();
+        g.shortestPaths(2);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+        assertTrue(cache.weight() <= cache.capacity());
+        g.isConnected();
+        assertEquals(2, cache.hits());
+        g.shortestPaths(1);
+        assertEquals(2, cache.hits());
+        g.cacheResults(0);
+        assertNull(g.getResultCache());
+    }
+
+    @Test
+    void metrics() {
+        assertFalse(g.isTrackingMetrics());
+        assertNull(g.getMetrics());
+        g.trackMetrics(true);
+        int[] calls = new int[1];
+        GraphMetrics.Operation[] last = new GraphMetrics.Operation[1];
+        g.getMetrics().setListener((operation, nanos) -> {
+            calls[0]++;
+            last[0] = operation;
+        });
+        for (int i = 0; i < 10; i++) {
+            g.addVertex(i, null);
+        }
+        for (int i = 1; i < 10; i++) {
+            g.addEdge(0, i, i);
+        }
+        g.addEdge(1, 2, 1);
+        g.removeEdge(1, 2);
+        assertFalse(g.removeVertex(42));
+        assertTrue(g.isConnected());
+        g.createMST();
+        GraphMetrics metrics = g.getMetrics();
+        assertEquals(10, metrics.count(GraphMetrics.Operation.ADD_VERTEX));
+        assertEquals(10, metrics.count(GraphMetrics.Operation.ADD_EDGE));
+        assertEquals(1, metrics.count(GraphMetrics.Operation.REMOVE_EDGE));
+        assertEquals(1, metrics.count(GraphMetrics.Operation.REMOVE_VERTEX));
+        assertEquals(1, metrics.count(GraphMetrics.Operation.CREATE_MST));
+        assertEquals(0, metrics.count(GraphMetrics.Operation.SHORTEST_PATH));
+        assertEquals(24, calls[0]);
+        assertEquals(GraphMetrics.Operation.CREATE_MST, last[0]);
+        g.mstWeight();
+        g.mstEdges();
+        assertEquals(1, metrics.count(GraphMetrics.Operation.CREATE_MST));
+        assertEquals(2, metrics.count(GraphMetrics.Operation.MST_QUERY));
+        assertEquals(GraphMetrics.Operation.MST_QUERY, last[0]);
+
+        MetricsSnapshot snapshot = g.metricsSnapshot();
+        assertEquals(10, snapshot.numVertices());
+        assertEquals(9, snapshot.numEdges());
+        assertEquals(9, snapshot.maxDegree());
+        assertEquals(1.8, snapshot.averageDegree(), 1e-9);
+        //nine vertices of degree 1, one of degree 9
+        assertArrayEquals(new int[]{0, 9, 0, 0, 1}, snapshot.degreeDistribution());
+        assertTrue(snapshot.estimatedMemory() > 0);
+        LatencyHistogram latency = snapshot.latency(GraphMetrics.Operation.ADD_EDGE);
+        assertEquals(10, latency.count());
+        assertTrue(latency.min() <= latency.percentile(50));
+        assertTrue(latency.percentile(50) <= latency.percentile(100));
+        assertEquals(latency.max(), latency.percentile(100));
+        assertThrows(IllegalArgumentException.class, () -> latency.percentile(101));
+        //snapshots are copies
+        g.addEdge(1, 2);
+        assertEquals(10, snapshot.count(GraphMetrics.Operation.ADD_EDGE));
+        assertEquals(11, metrics.count(GraphMetrics.Operation.ADD_EDGE));
+
+        //structural gauges work without operation metrics
+        g.trackMetrics(false);
+        g.addEdge(2, 3);
+        snapshot = g.metricsSnapshot();
+        assertEquals(0, snapshot.count(GraphMetrics.Operation.ADD_EDGE));
+        assertEquals(11, snapshot.numEdges());
+    }
+
+    @Test
+    void latencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(50));
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(100000, histogram.count());
+        assertEquals(1000, histogram.min());
+        assertEquals(100000000, histogram.max());
+        assertEquals(50000500.0, histogram.mean(), 1e-6);
+        //buckets are never more than 1/32 above the exact value
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9}) {
+            long exact = (long) Math.ceil(percentile * 1000) * 1000;
+            long value = histogram.percentile(percentile);
+            assertTrue(value >= exact && value <= exact + exact / 32, percentile + ": " + value);
+        }
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.percentile(100));
+    }
+
+    @Test
+    void vertexPrograms() {
+        //a 4-cycle 1-2-3-4 with chord 1-3, a pendant vertex 5 on 1, an edge 6-7 and an isolated vertex 8
+        for (int i = 1; i < 9; i++) {
+            g.addVertex(i, null);
+        }
+        int[][] edges = {{1, 2}, {2, 3}, {3, 4}, {4, 1}, {1, 3}, {1, 5}, {6, 7}};
+        for (int[] edge : edges) {
+            g.addEdge(edge[0], edge[1]);
+        }
+        VertexValues ranks = g.compute(VertexPrograms.pageRank(0.85, 1e-12), 1000);
+        assertEquals(8, ranks.numVertices());
+        assertTrue(ranks.supersteps() < 1000);
+        assertEquals(1.0, Arrays.stream(ranks.values()).sum(), 1e-9);
+        assertEquals(ranks.get(2), ranks.get(4), 1e-12);
+        assertEquals(ranks.get(6), ranks.get(7), 1e-12);
+        assertTrue(ranks.get(1) > ranks.get(3) && ranks.get(3) > ranks.get(2));
+        assertTrue(Double.isNaN(ranks.get(9)));
+
+        VertexValues components = g.compute(VertexPrograms.connectedComponents(), Integer.MAX_VALUE);
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6, 7, 8}, components.vertexIds());
+        assertArrayEquals(new double[]{1, 1, 1, 1, 1, 6, 6, 8}, components.values());
+
+        VertexValues core = g.compute(VertexPrograms.kCore(2), Integer.MAX_VALUE);
+        assertArrayEquals(new double[]{3, 2, 3, 2, -1, -1, -1, -1}, core.values());
+        core = g.compute(VertexPrograms.kCore(3), Integer.MAX_VALUE);
+        for (double value : core.values()) {
+            assertEquals(-1, value);
+        }
+        assertEquals(0, g.compute(VertexPrograms.connectedComponents(), 0).supersteps());
+        assertThrows(IllegalArgumentException.class, () -> g.compute(VertexPrograms.connectedComponents(), -1));
+
+        //a random forest over several worker ranges agrees with isConnected and connectedComponents
+        MyGraph<Object> forest = new MyGraph<>();
+        Random random = new Random(7);
+        int n = 20000;
+        for (int i = 0; i < n; i++) {
+            forest.addVertex(i, null);
+            if (i > 0 && random.nextInt(1000) != 0) {
+                forest.addEdge(i, random.nextInt(i));
+            }
+        }
+        forest.setParallelism(4);
+        double[] labels = forest.compute(VertexPrograms.connectedComponents(), Integer.MAX_VALUE).values();
+        assertEquals(forest.isConnected(), Arrays.stream(labels).allMatch(label -> label == 0));
+        ConnectedComponents expected = forest.connectedComponents();
+        assertEquals(expected.count(), Arrays.stream(labels).distinct().count());
+        for (int i = 0; i < n; i++) {
+            assertTrue(labels[i] <= i && expected.sameComponent(i, (int) labels[i]));
+        }
+    }
+
+    private static int totalWeight(MyGraph<?> graph) {
+        int total = 0;
+        for (int i = 1; i < 10; i++) {
+            if (graph.containsVertex(i)) {
+                for (int[] edge : graph.getEdges(i)) {
+                    total += edge[1];
+                }
+            }
+        }
+        //every edge is seen from both ends
+        return total / 2;
+    }
+
     @org.junit.jupiter.api.BeforeEach
     void setUp() {
         g = new MyGraph<>();
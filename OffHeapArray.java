@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Array of ints or longs outside of the Java heap, addressed by long indices, for {@link OffHeapGraph}.
+ * A single buffer cannot hold more than 2 GB, so the bytes are split into chunks of 1 GB, which
+ * always hold a whole number of elements. Chunks are either direct buffers or mappings of a file.
+ * <p>
+ * Reads and writes use absolute positions, so one instance can be read from many threads.
+ */
+final class OffHeapArray {
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+    //the same on every platform, so that files can be moved between machines
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final ByteBuffer[] chunks;
+    private final long bytes;
+
+    private OffHeapArray(ByteBuffer[] chunks, long bytes) {
+        this.chunks = chunks;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Allocates zeroed direct memory. It is freed once the array is garbage collected
+     *
+     * @param bytes size of the array in bytes
+     */
+    static OffHeapArray allocate(long bytes) {
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(bytes)];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = ByteBuffer.allocateDirect(chunkSize(bytes, c)).order(ORDER);
+        }
+        return new OffHeapArray(chunks, bytes);
+    }
+
+    /**
+     * Maps part of a file, growing the file if it is too short and the channel is writable
+     *
+     * @param position position of the first byte in the file
+     * @param bytes    size of the array in bytes
+     * @param writable true to map the file read-write, false for read-only
+     * @throws IOException if the file cannot be mapped
+     */
+    static OffHeapArray map(FileChannel channel, long position, long bytes, boolean writable) throws IOException {
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(bytes)];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = channel.map(mode, position + ((long) c << CHUNK_BITS), chunkSize(bytes, c)).order(ORDER);
+        }
+        return new OffHeapArray(chunks, bytes);
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    int getInt(long index) {
+        long position = index << 2;
+        return chunks[(int) (position >>> CHUNK_BITS)].getInt((int) (position & CHUNK_MASK));
+    }
+
+    void putInt(long index, int value) {
+        long position = index << 2;
+        chunks[(int) (position >>> CHUNK_BITS)].putInt((int) (position & CHUNK_MASK), value);
+    }
+
+    long getLong(long index) {
+        long position = index << 3;
+        return chunks[(int) (position >>> CHUNK_BITS)].getLong((int) (position & CHUNK_MASK));
+    }
+
+    void putLong(long index, long value) {
+        long position = index << 3;
+        chunks[(int) (position >>> CHUNK_BITS)].putLong((int) (position & CHUNK_MASK), value);
+    }
+
+    /**
+     * Writes changes to a mapped file back to the disk. Does nothing for direct memory
+     */
+    void force() {
+        for (ByteBuffer chunk : chunks) {
+            if (chunk instanceof MappedByteBuffer && !chunk.isReadOnly()) {
+                ((MappedByteBuffer) chunk).force();
+            }
+        }
+    }
+
+    private static int chunkCount(long bytes) {
+        return (int) ((bytes + CHUNK_MASK) >>> CHUNK_BITS);
+    }
+
+    private static int chunkSize(long bytes, int chunk) {
+        return (int) Math.min(bytes - ((long) chunk << CHUNK_BITS), 1L << CHUNK_BITS);
+    }
+}
@@ -0,0 +1,541 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only CSR graph whose vertex table and edges live outside of the Java heap, so that graphs with
+ * more than 2^31 edges fit, and the garbage collector never scans them. It is not a storage backend for
+ * {@link MyGraph}: it has no mutation methods, and a copy made from a MyGraph is a snapshot that later
+ * changes to the MyGraph do not reach. The memory is either direct memory or a memory-mapped file, which
+ * can be opened again later with {@link #open(Path)}.
+ * <p>
+ * Vertices are given dense indices 0..n-1 in ascending order of their IDs. Offsets into the edges are
+ * longs, and every edge is stored on both ends as one long: the dense index of the neighbor in the high
+ * half, the weight in the low half. The edges of a vertex are sorted by neighbor. {@link #isConnected()},
+ * {@link #connectedComponents()} and {@link #createMST()} read the edges in place, and only allocate
+ * scratch arrays of one entry per vertex on the heap.
+ * <p>
+ * Create one with {@link #builder(int[])}, or with the builders of {@link GraphImporter}, which read a file
+ * without the heap holding more than its vertex IDs. {@link MyGraph#toOffHeap()} copies a graph that already
+ * fits on the heap. Vertices carry no values. Direct memory is capped by -XX:MaxDirectMemorySize, which
+ * defaults to the largest heap size, while file-backed graphs are only limited by the address space.
+ * <p>
+ * File layout, all numbers little-endian:
+ * <pre>
+ * header   magic "MYOH", version, vertex count, then the edge count as a long
+ * ids      vertex IDs in ascending order, 4 bytes each, padded to a multiple of 8 bytes
+ * offsets  position of the first edge of every vertex, plus the end, 8 bytes each
+ * edges    neighbor index and weight of every edge from both ends, 8 bytes each
+ * </pre>
+ */
+public final class OffHeapGraph implements Closeable {
+    static final int MAGIC = 0x4D594F48; //"MYOH"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    private final int n;
+    private final long edges;
+    private final DenseGraph denseView;
+    //dropped by close()
+    private OffHeapArray ids;
+    private OffHeapArray offsets;
+    private OffHeapArray adjacency;
+
+    private OffHeapGraph(int n, long edges, OffHeapArray ids, OffHeapArray offsets, OffHeapArray adjacency) {
+        this.n = n;
+        this.edges = edges;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.adjacency = adjacency;
+        this.denseView = new DenseView();
+    }
+
+    /**
+     * Starts building a graph from its vertices. Edges are then added one by one
+     *
+     * @param ids IDs of all vertices, in any order
+     * @return builder for the edges
+     * @throws IllegalArgumentException if an ID is listed twice
+     */
+    public static Builder builder(int[] ids) {
+        return new Builder(ids);
+    }
+
+    /**
+     * Memory-maps a file written by {@link Builder#build(Path)} for read-only use. Only the parts of the
+     * file that are read are loaded from disk
+     *
+     * @param file file to map
+     * @return graph backed by the file
+     * @throws IOException if the file cannot be read or is not an off-heap graph file
+     */
+    public static OffHeapGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not an off-heap graph file: " + file);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                //keep reading until the header is full
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not an off-heap graph file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported off-heap graph file version " + version + ": " + file);
+            }
+            int n = header.getInt();
+            header.getInt();
+            long edges = header.getLong();
+            if (n < 0 || edges < 0 || adjacencyPosition(n) + 16 * edges > channel.size()) {
+                throw new IOException("Corrupt off-heap graph file");
+            }
+            //the mappings stay valid after the channel is closed
+            return new OffHeapGraph(n, edges,
+                    OffHeapArray.map(channel, HEADER_SIZE, 4L * n, false),
+                    OffHeapArray.map(channel, offsetsPosition(n), 8L * (n + 1), false),
+                    OffHeapArray.map(channel, adjacencyPosition(n), 16 * edges, false));
+        }
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int numVertices() {
+        return n;
+    }
+
+    /**
+     * @return number of edges
+     */
+    public long numEdges() {
+        return edges;
+    }
+
+    /**
+     * Checks whether or not the vertex with the given ID exists in the graph
+     *
+     * @param id ID of the vertex
+     * @return true if vertex is in graph, false otherwise
+     * @throws IllegalStateException if the graph is closed
+     */
+    public boolean containsVertex(int id) {
+        return indexOf(id) != -1;
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return number of edges connected to the vertex, -1 if vertex does not exist
+     * @throws IllegalStateException if the graph is closed
+     */
+    public int degree(int id) {
+        int index = indexOf(id);
+        return index == -1 ? -1 : denseView.degree(index);
+    }
+
+    /**
+     * Checks whether or not an edge between vertices denoted by ID1 and ID2 exists
+     *
+     * @return true if edge exists, false otherwise
+     * @throws IllegalStateException if the graph is closed
+     */
+    public boolean isAdjacent(int id1, int id2) {
+        if (id1 == id2) {
+            return true;
+        }
+        return findEdge(id1, id2) >= 0;
+    }
+
+    /**
+     * Gets value of the edge between vertices of ID1 and ID2
+     *
+     * @return value of the edge, null if the edge does not exist
+     * @throws IllegalStateException if the graph is closed
+     */
+    public Integer getEdgeValue(int id1, int id2) {
+        long edge = findEdge(id1, id2);
+        return edge < 0 ? null : weightOf(adjacency.getLong(edge));
+    }
+
+    /**
+     * @see MyGraph#forEachNeighbor(int, IntIntConsumer)
+     * @throws IllegalStateException if the graph is closed
+     */
+    public boolean forEachNeighbor(int id, IntIntConsumer action) {
+        int index = indexOf(id);
+        if (index == -1) {
+            return false;
+        }
+        for (long e = offsets.getLong(index); e < offsets.getLong(index + 1); e++) {
+            long entry = adjacency.getLong(e);
+            action.accept(ids.getInt(targetOf(entry)), weightOf(entry));
+        }
+        return true;
+    }
+
+    /**
+     * @see MyGraph#isConnected()
+     * @throws IllegalStateException if the graph is closed
+     */
+    public boolean isConnected() {
+        checkOpen();
+        return GraphAlgorithms.isConnected(denseView);
+    }
+
+    /**
+     * @see MyGraph#connectedComponents()
+     * @throws IllegalStateException if the graph is closed
+     */
+    public ConnectedComponents connectedComponents() {
+        checkOpen();
+        return GraphAlgorithms.connectedComponents(denseView, idArray());
+    }
+
+    /**
+     * @see MyGraph#createMST()
+     */
+    public MyGraph<Object> createMST() throws IllegalStateException {
+        return createMST(MyGraph.MSTStrategy.PRIM, false);
+    }
+
+    /**
+     * @see MyGraph#createMST(MyGraph.MSTStrategy)
+     */
+    public MyGraph<Object> createMST(MyGraph.MSTStrategy strategy) throws IllegalStateException {
+        return createMST(strategy, false);
+    }
+
+    /**
+     * Creates a minimum spanning tree or forest on the heap. Kruskal's algorithm sorts a copy of every
+     * edge, so it needs less than 2^31 edges; Prim's and Boruvka's algorithms read the edges in place.
+     *
+     * @return new graph with the vertices of this graph, without values, and the edges of the tree
+     * @throws IllegalStateException if the graph is closed, empty or disconnected and a forest is not allowed,
+     *                               or if Kruskal's algorithm is asked for on too many edges
+     * @see MyGraph#createMST(MyGraph.MSTStrategy, boolean)
+     */
+    public MyGraph<Object> createMST(MyGraph.MSTStrategy strategy, boolean allowForest) throws IllegalStateException {
+        checkOpen();
+        if (n == 0 && !allowForest) {
+            throw new IllegalStateException("This graph is empty");
+        }
+        GraphAlgorithms.SpanningForest forest = GraphAlgorithms.spanningForest(denseView, strategy, allowForest);
+        if (!forest.isSpanningTree() && !allowForest) {
+            throw new IllegalStateException("This graph is disconnected");
+        }
+        OffHeapArray vertexIds = ids;
+        return GraphAlgorithms.toGraph(forest, n, vertexIds::getInt, index -> null);
+    }
+
+    /**
+     * Drops the memory. Direct memory is freed, and a file unmapped, once it is garbage collected.
+     * Any later query throws an {@link IllegalStateException}
+     */
+    @Override
+    public void close() {
+        ids = null;
+        offsets = null;
+        adjacency = null;
+    }
+
+    /* Helper functions */
+
+    static long offsetsPosition(int n) {
+        //keeps the longs that follow aligned
+        return HEADER_SIZE + ((4L * n + 7) & ~7L);
+    }
+
+    static long adjacencyPosition(int n) {
+        return offsetsPosition(n) + 8L * (n + 1);
+    }
+
+    /**
+     * Packs an edge so that sorting the longs sorts edges by neighbor, then by weight
+     */
+    static long entry(int target, int weight) {
+        return ((long) target << 32) | ((weight ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    static int targetOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    static int weightOf(long entry) {
+        return (int) entry ^ Integer.MIN_VALUE;
+    }
+
+    private void checkOpen() {
+        if (ids == null) {
+            throw new IllegalStateException("This graph is closed");
+        }
+    }
+
+    /**
+     * @return index of the vertex, found by binary search over the sorted IDs. -1 if it does not exist
+     */
+    private int indexOf(int id) {
+        checkOpen();
+        int low = 0;
+        int high = n - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = ids.getInt(mid);
+            if (value < id) {
+                low = mid + 1;
+            } else if (value > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return position of the edge between both vertices, or -1 if there is none
+     */
+    private long findEdge(int id1, int id2) {
+        int index1 = indexOf(id1);
+        int index2 = indexOf(id2);
+        if (index1 == -1 || index2 == -1) {
+            return -1;
+        }
+        long low = offsets.getLong(index1);
+        long high = offsets.getLong(index1 + 1) - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int target = targetOf(adjacency.getLong(mid));
+            if (target < index2) {
+                low = mid + 1;
+            } else if (target > index2) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return vertex ID of every dense index, on the heap for {@link ConnectedComponents}
+     */
+    private int[] idArray() {
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = ids.getInt(i);
+        }
+        return result;
+    }
+
+    /**
+     * Exposes the off-heap arrays to {@link GraphAlgorithms} without copying them
+     */
+    private class DenseView implements DenseGraph {
+        @Override
+        public int size() {
+            return n;
+        }
+
+        @Override
+        public long edgeCount() {
+            return edges;
+        }
+
+        @Override
+        public int degree(int index) {
+            return (int) (offsets.getLong(index + 1) - offsets.getLong(index));
+        }
+
+        @Override
+        public int neighbor(int index, int i) {
+            return targetOf(adjacency.getLong(offsets.getLong(index) + i));
+        }
+
+        @Override
+        public int weight(int index, int i) {
+            return weightOf(adjacency.getLong(offsets.getLong(index) + i));
+        }
+    }
+
+    /**
+     * Collects the edges of an {@link OffHeapGraph} in an off-heap log, then sorts them into place.
+     * Edges may be added in any order. Duplicate edges keep the lightest weight.
+     */
+    public static final class Builder {
+        //edges per block of the log, doubling from the first block up to the last size
+        private static final int FIRST_BLOCK = 1 << 12;
+        private static final int LAST_BLOCK = 1 << 24;
+
+        //vertex IDs in ascending order, a vertex's position here is its index
+        private final int[] ids;
+        //dense indices of both ends of every edge in one long, and the weights
+        private final List<OffHeapArray> pairs = new ArrayList<>();
+        private final List<OffHeapArray> weights = new ArrayList<>();
+        private int blockSize;
+        private int fill;
+        private long logged;
+
+        private Builder(int[] ids) {
+            this.ids = ids.clone();
+            Arrays.sort(this.ids);
+            for (int i = 1; i < this.ids.length; i++) {
+                if (this.ids[i] == this.ids[i - 1]) {
+                    throw new IllegalArgumentException("Duplicate vertex ID " + this.ids[i]);
+                }
+            }
+        }
+
+        /**
+         * Adds an edge between vertices of ID1 and ID2, with a specified weight
+         *
+         * @return false if the IDs are the same, or a vertex does not exist. True otherwise
+         */
+        public boolean addEdge(int id1, int id2, int weight) {
+            int index1 = Arrays.binarySearch(ids, id1);
+            int index2 = Arrays.binarySearch(ids, id2);
+            if (id1 == id2 || index1 < 0 || index2 < 0) {
+                return false;
+            }
+            if (fill == blockSize) {
+                blockSize = blockSize == 0 ? FIRST_BLOCK : Math.min(2 * blockSize, LAST_BLOCK);
+                pairs.add(OffHeapArray.allocate(8L * blockSize));
+                weights.add(OffHeapArray.allocate(4L * blockSize));
+                fill = 0;
+            }
+            pairs.get(pairs.size() - 1).putLong(fill, ((long) index1 << 32) | index2);
+            weights.get(weights.size() - 1).putInt(fill, weight);
+            fill++;
+            logged++;
+            return true;
+        }
+
+        /**
+         * Builds the graph in direct memory
+         *
+         * @return graph with every vertex and edge added so far
+         */
+        public OffHeapGraph build() {
+            int n = ids.length;
+            OffHeapArray vertexIds = OffHeapArray.allocate(4L * n);
+            OffHeapArray offsets = OffHeapArray.allocate(8L * (n + 1));
+            OffHeapArray adjacency = OffHeapArray.allocate(16 * logged);
+            return new OffHeapGraph(n, fill(vertexIds, offsets, adjacency), vertexIds, offsets, adjacency);
+        }
+
+        /**
+         * Builds the graph in a file, replacing it if it exists. The file can be opened again with
+         * {@link OffHeapGraph#open(Path)}. If duplicate edges were dropped, space for them is left unused
+         * at the end of the file
+         *
+         * @param file file to write to
+         * @return graph with every vertex and edge added so far, backed by the file
+         * @throws IOException if the file cannot be written
+         */
+        public OffHeapGraph build(Path file) throws IOException {
+            int n = ids.length;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OffHeapArray vertexIds = OffHeapArray.map(channel, HEADER_SIZE, 4L * n, true);
+                OffHeapArray offsets = OffHeapArray.map(channel, offsetsPosition(n), 8L * (n + 1), true);
+                OffHeapArray adjacency = OffHeapArray.map(channel, adjacencyPosition(n), 16 * logged, true);
+                long edges = fill(vertexIds, offsets, adjacency);
+                vertexIds.force();
+                offsets.force();
+                adjacency.force();
+                //the header goes last, so that a file that was not fully written cannot be opened
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(0).putLong(edges);
+                header.clear();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(false);
+                return new OffHeapGraph(n, edges, vertexIds, offsets, adjacency);
+            }
+        }
+
+        /**
+         * Writes the vertex table, and sorts the log into the edges with a counting sort by source, then
+         * a sort of the edges of every vertex, dropping duplicates. O(V + E log(max degree))
+         *
+         * @return number of edges kept
+         */
+        private long fill(OffHeapArray vertexIds, OffHeapArray offsets, OffHeapArray adjacency) {
+            int n = ids.length;
+            for (int i = 0; i < n; i++) {
+                vertexIds.putInt(i, ids[i]);
+            }
+            //a mapped file that has just grown is not guaranteed to be zeroed
+            for (int i = 0; i <= n; i++) {
+                offsets.putLong(i, 0);
+            }
+            for (int b = 0; b < pairs.size(); b++) {
+                OffHeapArray block = pairs.get(b);
+                for (int i = 0; i < blockLength(b); i++) {
+                    long pair = block.getLong(i);
+                    int from = (int) (pair >>> 32);
+                    int to = (int) pair;
+                    offsets.putLong(from + 1, offsets.getLong(from + 1) + 1);
+                    offsets.putLong(to + 1, offsets.getLong(to + 1) + 1);
+                }
+            }
+            int maxDegree = 0;
+            for (int i = 0; i < n; i++) {
+                maxDegree = (int) Math.max(maxDegree, offsets.getLong(i + 1));
+                offsets.putLong(i + 1, offsets.getLong(i + 1) + offsets.getLong(i));
+            }
+            //offsets[i] is the next free position of vertex i, and ends up at the start of vertex i + 1
+            for (int b = 0; b < pairs.size(); b++) {
+                OffHeapArray block = pairs.get(b);
+                OffHeapArray blockWeights = weights.get(b);
+                for (int i = 0; i < blockLength(b); i++) {
+                    long pair = block.getLong(i);
+                    int from = (int) (pair >>> 32);
+                    int to = (int) pair;
+                    int weight = blockWeights.getInt(i);
+                    long position = offsets.getLong(from);
+                    adjacency.putLong(position, entry(to, weight));
+                    offsets.putLong(from, position + 1);
+                    position = offsets.getLong(to);
+                    adjacency.putLong(position, entry(from, weight));
+                    offsets.putLong(to, position + 1);
+                }
+            }
+            //edges only ever move towards the front, so they are compacted in place
+            long[] scratch = new long[maxDegree];
+            long start = 0;
+            long written = 0;
+            for (int i = 0; i < n; i++) {
+                long end = offsets.getLong(i);
+                offsets.putLong(i, written);
+                int degree = (int) (end - start);
+                for (int e = 0; e < degree; e++) {
+                    scratch[e] = adjacency.getLong(start + e);
+                }
+                Arrays.sort(scratch, 0, degree);
+                for (int e = 0; e < degree; e++) {
+                    //the lightest copy of an edge sorts first
+                    if (e == 0 || targetOf(scratch[e]) != targetOf(scratch[e - 1])) {
+                        adjacency.putLong(written++, scratch[e]);
+                    }
+                }
+                start = end;
+            }
+            offsets.putLong(n, written);
+            return written / 2;
+        }
+
+        private int blockLength(int block) {
+            return block == pairs.size() - 1 ? fill : (int) (pairs.get(block).bytes() / 8);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapGraphTest {
+
+    @Test
+    void copyOfGraph() {
+        MyGraph<Object> g = GraphGenerator.random(500, 0.01, 5);
+        try (OffHeapGraph offHeap = g.toOffHeap()) {
+            assertEquals(g.numVertices(), offHeap.numVertices());
+            assertEquals(g.numEdges(), offHeap.numEdges());
+            for (int id = -1; id <= 500; id++) {
+                assertEquals(g.containsVertex(id), offHeap.containsVertex(id));
+                assertEquals(g.degree(id), offHeap.degree(id));
+                int vertex = id;
+                int[] seen = {0};
+                offHeap.forEachNeighbor(id, (neighbor, weight) -> {
+                    assertEquals(g.getEdgeValue(vertex, neighbor), (Integer) weight);
+                    seen[0]++;
+                });
+                assertEquals(Math.max(g.degree(id), 0), seen[0]);
+            }
+            assertEquals(g.getEdgeValue(0, 1), offHeap.getEdgeValue(0, 1));
+            assertEquals(g.isAdjacent(3, 4), offHeap.isAdjacent(3, 4));
+            assertEquals(g.isConnected(), offHeap.isConnected());
+            assertEquals(g.connectedComponents().count(), offHeap.connectedComponents().count());
+            long expected = totalWeight(g.createMST(MyGraph.MSTStrategy.KRUSKAL, true));
+            for (MyGraph.MSTStrategy strategy : MyGraph.MSTStrategy.values()) {
+                MyGraph<Object> mst = offHeap.createMST(strategy, true);
+                assertEquals(g.numVertices(), mst.numVertices());
+                assertEquals(expected, totalWeight(mst), strategy.name());
+            }
+        }
+    }
+
+    @Test
+    void builder() throws IOException {
+        OffHeapGraph.Builder builder = OffHeapGraph.builder(new int[]{30, 10, 20, 40});
+        assertTrue(builder.addEdge(10, 20, 5));
+        assertTrue(builder.addEdge(20, 10, 3));
+        assertTrue(builder.addEdge(20, 30, -2));
+        assertTrue(builder.addEdge(30, 10, 7));
+        assertFalse(builder.addEdge(10, 10, 1));
+        assertFalse(builder.addEdge(10, 50, 1));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapGraph.builder(new int[]{1, 2, 1}));
+
+        Path file = Files.createTempFile("graph", ".offheap");
+        try {
+            for (OffHeapGraph graph : new OffHeapGraph[]{builder.build(), builder.build(file), OffHeapGraph.open(file)}) {
+                //the duplicate edge keeps the lightest weight
+                assertEquals(3, graph.numEdges());
+                assertEquals(3, graph.getEdgeValue(10, 20));
+                assertEquals(3, graph.getEdgeValue(20, 10));
+                assertEquals(-2, graph.getEdgeValue(30, 20));
+                assertNull(graph.getEdgeValue(10, 40));
+                assertEquals(2, graph.degree(10));
+                assertEquals(0, graph.degree(40));
+                assertFalse(graph.isConnected());
+                assertThrows(IllegalStateException.class, graph::createMST);
+                MyGraph<Object> mst = graph.createMST(MyGraph.MSTStrategy.PRIM, true);
+                assertEquals(2, mst.numEdges());
+                assertEquals(1, totalWeight(mst));
+                graph.close();
+                assertThrows(IllegalStateException.class, () -> graph.containsVertex(10));
+                assertThrows(IllegalStateException.class, graph::isConnected);
+            }
+            Files.write(file, new byte[64]);
+            assertThrows(IOException.class, () -> OffHeapGraph.open(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void importers() throws IOException {
+        Path file = Files.createTempFile("graph", ".txt");
+        try {
+            Files.write(file, ("# comment\n1 2 5\n\n2\t3\n% other comment\n3 1 -4\r\n2 1 9\n4 4 1\n-7 2 3").getBytes());
+            try (OffHeapGraph graph = GraphImporter.edgeListBuilder(file).build()) {
+                assertEquals(5, graph.numVertices());
+                assertEquals(4, graph.numEdges());
+                assertEquals(5, graph.getEdgeValue(1, 2));
+                assertEquals(-4, graph.getEdgeValue(1, 3));
+                assertEquals(3, graph.getEdgeValue(2, -7));
+                assertEquals(0, graph.degree(4));
+            }
+
+            Files.write(file, "c comment\np sp 4 3\na 1 2 7\na 2 1 7\nc more\na 3 4 2\n".getBytes());
+            try (OffHeapGraph graph = GraphImporter.dimacsBuilder(file).build()) {
+                assertEquals(4, graph.numVertices());
+                assertEquals(2, graph.numEdges());
+                assertEquals(7, graph.getEdgeValue(2, 1));
+            }
+
+            Files.write(file, "% comment\n3 1 011 2\n4 5 2 3\n1 1 1 3\n2 2\n".getBytes());
+            try (OffHeapGraph graph = GraphImporter.metisBuilder(file).build()) {
+                assertEquals(3, graph.numVertices());
+                assertEquals(1, graph.numEdges());
+                assertEquals(3, graph.getEdgeValue(1, 2));
+                assertEquals(0, graph.degree(3));
+            }
+
+            MyGraph<String> g = GraphGenerator.random(300, 0.02, 8);
+            GraphExporter.writeEdgeList(g, file);
+            //an edge list leaves out vertices without edges, on the heap too
+            MyGraph<String> read = new MyGraph<>();
+            GraphImporter.readEdgeList(file, read);
+            try (OffHeapGraph graph = GraphImporter.edgeListBuilder(file).build()) {
+                assertEquals(read.numVertices(), graph.numVertices());
+                assertEquals(g.numEdges(), graph.numEdges());
+                assertEquals(read.isConnected(), graph.isConnected());
+            }
+            GraphExporter.writeMetis(g, file);
+            try (OffHeapGraph graph = GraphImporter.metisBuilder(file).build()) {
+                assertEquals(g.numEdges(), graph.numEdges());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static long totalWeight(MyGraph<?> graph) {
+        long total = 0;
+        for (int id = 0; id <= 500; id++) {
+            if (graph.containsVertex(id)) {
+                for (int[] edge : graph.getEdges(id)) {
+                    total += edge[1];
+                }
+            }
+        }
+        //every edge is seen from both ends
+        return total / 2;
+    }
+}
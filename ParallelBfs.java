@@ -0,0 +1,250 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Level-synchronous breadth first search with direction optimization (Beamer et al.). Each level is
+ * expanded either top-down, where the frontier claims its unvisited neighbors through an atomic visited
+ * bitset, or bottom-up, where every unvisited vertex looks for a neighbor in the frontier and stops at
+ * the first one. Bottom-up wins once the frontier touches a large part of the remaining edges.
+ * <p>
+ * Levels run in parallel on the fork-join pool of the calling thread (or the common pool) when there
+ * is enough work, and on the calling thread otherwise, so small searches pay no parallel overhead.
+ * Several searches can run one after the other from different sources, each one only reaching
+ * vertices the earlier ones did not, which labels connected components.
+ */
+final class ParallelBfs {
+    //switch to bottom-up once the frontier has more than 1/ALPHA of the unexplored edges
+    private static final int ALPHA = 14;
+    //switch back to top-down once the frontier has less than 1/BETA of the vertices
+    private static final int BETA = 24;
+    //levels with fewer frontier edges run on the calling thread
+    private static final int SEQUENTIAL_EDGES = 1 << 12;
+    //vertices handed to one task
+    private static final int GRAIN = 1 << 10;
+
+    private final DenseGraph graph;
+    private final int n;
+    private final boolean parallel;
+    private final AtomicLongArray visited;
+    //hop distance of every dense index from the source of the search that reached it, -1 if not reached
+    private final int[] distances;
+    //dense index of the previous vertex on the search tree, -1 for sources and unreached vertices
+    private final int[] parents;
+    //search that reached every dense index, counting from 0
+    private final int[] searches;
+    private int searchCount;
+    //edge ends of vertices that no search has reached yet
+    private long unexploredEdges;
+
+    /**
+     * @param parallel true to expand large levels in parallel
+     * @param parents  true to record the search tree
+     */
+    ParallelBfs(DenseGraph graph, boolean parallel, boolean parents) {
+        this.graph = graph;
+        this.n = graph.size();
+        this.parallel = parallel;
+        this.visited = new AtomicLongArray((n + 63) >>> 6);
+        this.distances = new int[n];
+        this.parents = parents ? new int[n] : null;
+        this.searches = new int[n];
+        Arrays.fill(distances, -1);
+        if (parents) {
+            Arrays.fill(this.parents, -1);
+        }
+        this.unexploredEdges = 2L * graph.edgeCount();
+    }
+
+    /**
+     * Runs a search from the source, which must not have been reached yet
+     *
+     * @return number of vertices reached, including the source
+     */
+    int search(int source) {
+        int search = searchCount++;
+        claim(source, -1, 0, search);
+        int[] frontier = {source};
+        int frontierSize = 1;
+        long frontierEdges = graph.degree(source);
+        unexploredEdges -= frontierEdges;
+        int reached = 1;
+        boolean bottomUp = false;
+        for (int level = 0; frontierSize > 0; level++) {
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA && frontierSize > GRAIN) {
+                bottomUp = true;
+            } else if (bottomUp && frontierSize < n / BETA) {
+                bottomUp = false;
+                frontier = collect(level, search);
+            }
+            long[] result;
+            if (bottomUp) {
+                result = bottomUp(level, search);
+            } else {
+                frontier = topDown(frontier, frontierSize, frontierEdges, level, search);
+                result = new long[]{frontier.length, 0};
+                for (int v : frontier) {
+                    result[1] += graph.degree(v);
+                }
+            }
+            frontierSize = (int) result[0];
+            frontierEdges = result[1];
+            unexploredEdges -= frontierEdges;
+            reached += frontierSize;
+        }
+        return reached;
+    }
+
+    /**
+     * @return number of searches run so far
+     */
+    int searchCount() {
+        return searchCount;
+    }
+
+    boolean isVisited(int index) {
+        return (visited.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    int[] distances() {
+        return distances;
+    }
+
+    int[] parents() {
+        return parents;
+    }
+
+    int[] searches() {
+        return searches;
+    }
+
+    /* Helper functions */
+
+    /**
+     * Expands the frontier to its unvisited neighbors
+     *
+     * @return next frontier
+     */
+    private int[] topDown(int[] frontier, int frontierSize, long frontierEdges, int level, int search) {
+        if (!parallel || frontierEdges < SEQUENTIAL_EDGES) {
+            return expand(frontier, 0, frontierSize, level, search);
+        }
+        int tasks = (frontierSize + GRAIN - 1) / GRAIN;
+        int[][] parts = IntStream.range(0, tasks).parallel()
+                .mapToObj(t -> expand(frontier, t * GRAIN, Math.min(frontierSize, (t + 1) * GRAIN), level, search))
+                .toArray(int[][]::new);
+        return concat(parts);
+    }
+
+    /**
+     * @return the neighbors of frontier[from..to) that this call claimed
+     */
+    private int[] expand(int[] frontier, int from, int to, int level, int search) {
+        int[] next = new int[16];
+        int size = 0;
+        for (int f = from; f < to; f++) {
+            int current = frontier[f];
+            int degree = graph.degree(current);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.neighbor(current, i);
+                if (!isVisited(neighbor) && claim(neighbor, current, level + 1, search)) {
+                    if (size == next.length) {
+                        next = Arrays.copyOf(next, 2 * size);
+                    }
+                    next[size++] = neighbor;
+                }
+            }
+        }
+        return Arrays.copyOf(next, size);
+    }
+
+    /**
+     * Lets every unvisited vertex join the next level if one of its neighbors is on this level
+     *
+     * @return size of the next frontier, and the number of edge ends on it
+     */
+    private long[] bottomUp(int level, int search) {
+        int tasks = (n + GRAIN - 1) / GRAIN;
+        IntStream range = IntStream.range(0, tasks);
+        return (parallel ? range.parallel() : range).mapToObj(t -> {
+            long[] result = new long[2];
+            for (int v = t * GRAIN; v < Math.min(n, (t + 1) * GRAIN); v++) {
+                if (isVisited(v)) {
+                    continue;
+                }
+                int degree = graph.degree(v);
+                for (int i = 0; i < degree; i++) {
+                    int neighbor = graph.neighbor(v, i);
+                    //an unvisited vertex can only have neighbors in its own component, so in this search
+                    if (distances[neighbor] == level && claim(v, neighbor, level + 1, search)) {
+                        result[0]++;
+                        result[1] += degree;
+                        break;
+                    }
+                }
+            }
+            return result;
+        }).reduce(new long[2], (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+    }
+
+    /**
+     * @return every vertex on the given level of the current search
+     */
+    private int[] collect(int level, int search) {
+        int tasks = (n + GRAIN - 1) / GRAIN;
+        IntStream range = IntStream.range(0, tasks);
+        int[][] parts = (parallel ? range.parallel() : range).mapToObj(t -> {
+            int[] part = new int[16];
+            int size = 0;
+            for (int v = t * GRAIN; v < Math.min(n, (t + 1) * GRAIN); v++) {
+                if (distances[v] == level && searches[v] == search && isVisited(v)) {
+                    if (size == part.length) {
+                        part = Arrays.copyOf(part, 2 * size);
+                    }
+                    part[size++] = v;
+                }
+            }
+            return Arrays.copyOf(part, size);
+        }).toArray(int[][]::new);
+        return concat(parts);
+    }
+
+    /**
+     * Sets the visited bit of a vertex, then records how it was reached
+     *
+     * @return true if this call visited the vertex, false if it was already visited
+     */
+    private boolean claim(int index, int parent, int distance, int search) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        while (true) {
+            long bits = visited.get(word);
+            if ((bits & bit) != 0) {
+                return false;
+            }
+            if (visited.compareAndSet(word, bits, bits | bit)) {
+                break;
+            }
+        }
+        distances[index] = distance;
+        searches[index] = search;
+        if (parents != null) {
+            parents[index] = parent;
+        }
+        return true;
+    }
+
+    private static int[] concat(int[][] parts) {
+        int size = 0;
+        for (int[] part : parts) {
+            size += part.length;
+        }
+        int[] result = new int[size];
+        size = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, result, size, part.length);
+            size += part.length;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,161 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache of algorithm results for one graph, see {@link MyGraph#cacheResults(long)}.
+ * <p>
+ * Every result is stored with an estimate of its size in bytes, and the least recently used results are
+ * evicted once the total goes over the capacity. Results are only valid for the version of the graph they
+ * were computed on: the first lookup after the graph changes drops all of them at once.
+ * <p>
+ * Not thread safe, like {@link MyGraph}.
+ */
+public final class ResultCache {
+    /**
+     * Estimated bytes taken by every entry on top of its result: the map entry, its key and the result object
+     */
+    static final long ENTRY_OVERHEAD = 128;
+
+    private final long capacity;
+    //least recently used first
+    private final LinkedHashMap<Object, Entry> entries;
+    //graph version that every entry was computed on
+    private long version;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * @param capacity estimated bytes that the results may take in total
+     */
+    ResultCache(long capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.version = -1;
+    }
+
+    /**
+     * Returns the cached result for the key, or computes and caches it. Results larger than the whole
+     * capacity are returned without being cached.
+     *
+     * @param key     equal for queries with equal results
+     * @param version current version of the graph
+     * @param compute computes the result, which may be null
+     * @param weigher estimated size of the result in bytes, without {@link #ENTRY_OVERHEAD}
+     * @return cached or computed result
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(Object key, long version, Supplier<T> compute, ToLongFunction<T> weigher) {
+        if (version != this.version) {
+            if (!entries.isEmpty()) {
+                invalidations++;
+                clear();
+            }
+            this.version = version;
+        }
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+            return (T) entry.result;
+        }
+        misses++;
+        T result = compute.get();
+        long size = ENTRY_OVERHEAD + (result == null ? 0 : weigher.applyAsLong(result));
+        if (size <= capacity) {
+            entries.put(key, new Entry(result, size));
+            weight += size;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (weight > capacity) {
+                weight -= eldest.next().size;
+                eldest.remove();
+                evictions++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops every cached result. Statistics are kept.
+     */
+    public void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return estimated bytes that the results may take in total
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return estimated bytes taken by the cached results
+     */
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * @return number of cached results
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return number of lookups that found a cached result
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups that had to compute the result
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * @return fraction of lookups that found a cached result, 0 if there were none
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return number of results dropped to make room for newer ones
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * @return number of times the cached results were dropped because the graph changed
+     */
+    public long invalidations() {
+        return invalidations;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d results, %d of %d bytes, %d hits, %d misses, %d evictions, %d invalidations",
+                entries.size(), weight, capacity, hits, misses, evictions, invalidations);
+    }
+
+    private static final class Entry {
+        private final Object result;
+        private final long size;
+
+        private Entry(Object result, long size) {
+            this.result = result;
+            this.size = size;
+        }
+    }
+}
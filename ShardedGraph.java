@@ -0,0 +1,912 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Graph split into shards along a {@link GraphPartition}, where every shard only sees its own vertices,
+ * their edges and the ghosts at the far end of cut edges (see {@link GraphShard}). Algorithms run as
+ * bulk synchronous supersteps: in every superstep all shards work in parallel on the messages sent to them
+ * in the previous one, and the messages they send are delivered once all of them are done.
+ * <p>
+ * Shards share nothing but their mailboxes: each one keeps the state of an algorithm for its own vertices and
+ * ghosts, learns about the other shards only from the messages it receives, and the result is only assembled
+ * from all the shards once the algorithm ends. Messages are a few ints, batched per pair of shards. Between
+ * supersteps, a coordinator can take part in the exchange too, with a mailbox to and from every shard.
+ * Each algorithm resets {@link #supersteps()} and {@link #messages()}, so its cost can be read afterwards.
+ * <p>
+ * All shards live in one JVM, and the mailboxes are arrays in its memory: there is no transport between
+ * processes, so the shards of a graph must fit in one heap together. Built from a {@link MyGraph} and a
+ * {@link GraphPartition}, the whole graph and a CSR copy of it are on the heap besides. A {@link #builder(int)}
+ * avoids both: it takes a stream of edges, for instance from {@link GraphImporter}, and hands every edge
+ * straight to the shards of its ends, picked by a hash of their IDs.
+ * <p>
+ * Later changes to the original graph are not reflected. Not thread safe.
+ */
+public final class ShardedGraph {
+    private final GraphShard[] shards;
+    //vertex ID by global index, and the other way around
+    private final int[] ids;
+    private final IntIntMap globals;
+    private final int edges;
+    private final int edgeCut;
+    //messages by sender then receiver: the ones sent in the previous superstep, and the current one.
+    //Index numShards() is the coordinator
+    private Mailbox[][] received;
+    private Mailbox[][] sending;
+    private int supersteps;
+    private long messages;
+
+    /**
+     * Splits the graph into shards. Each shard is built on its own thread. O(V + E)
+     *
+     * @param graph     graph to split
+     * @param partition shard of every vertex, computed on the same graph
+     * @throws IllegalArgumentException if the partition does not have the same vertices as the graph
+     */
+    public ShardedGraph(MyGraph<?> graph, GraphPartition partition) {
+        CsrGraph<?> csr = graph.toCsr();
+        int n = csr.numVertices();
+        int[] shardOf = partition.shards();
+        if (n != partition.numVertices() || !Arrays.equals(partition.ids(), idsOf(csr))) {
+            throw new IllegalArgumentException("The partition does not match the graph");
+        }
+        int k = partition.numShards();
+        //shard s owns global indices offsets[s] to offsets[s + 1] - 1, in the order of the CSR indices
+        int[] offsets = new int[k + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[shardOf[v] + 1]++;
+        }
+        for (int s = 0; s < k; s++) {
+            offsets[s + 1] += offsets[s];
+        }
+        int[] globalOf = new int[n];
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(offsets, k);
+        this.ids = new int[n];
+        this.globals = new IntIntMap(n);
+        for (int v = 0; v < n; v++) {
+            int global = fill[shardOf[v]]++;
+            globalOf[v] = global;
+            members[global] = v;
+            ids[global] = csr.idAt(v);
+            globals.put(csr.idAt(v), global);
+        }
+        this.shards = new GraphShard[k];
+        IntStream.range(0, k).parallel().forEach(s -> shards[s] = buildShard(csr, s, offsets, members, globalOf, shardOf));
+        this.edges = csr.numEdges();
+        this.edgeCut = partition.edgeCut();
+        this.received = mailboxes(k);
+        this.sending = mailboxes(k);
+    }
+
+    private ShardedGraph(GraphShard[] shards, int[] ids, int edges, int edgeCut) {
+        this.shards = shards;
+        this.ids = ids;
+        this.globals = new IntIntMap(ids.length);
+        for (int g = 0; g < ids.length; g++) {
+            globals.put(ids[g], g);
+        }
+        this.edges = edges;
+        this.edgeCut = edgeCut;
+        this.received = mailboxes(shards.length);
+        this.sending = mailboxes(shards.length);
+    }
+
+    /**
+     * Starts building a sharded graph from a stream of vertices and edges, spread over the shards by a hash
+     * of the vertex IDs as with {@link GraphPartition#hash(MyGraph, int)}
+     *
+     * @param shards number of shards
+     * @return builder for the vertices and edges
+     * @throws IllegalArgumentException if there are less than 1 shards
+     */
+    public static Builder builder(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("There must be at least 1 shard");
+        }
+        return new Builder(shards);
+    }
+
+    /**
+     * @return number of shards
+     */
+    public int numShards() {
+        return shards.length;
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int numVertices() {
+        return ids.length;
+    }
+
+    /**
+     * @return number of edges
+     */
+    public int numEdges() {
+        return edges;
+    }
+
+    /**
+     * @return number of edges between vertices of different shards
+     */
+    public int edgeCut() {
+        return edgeCut;
+    }
+
+    /**
+     * @param shard number of the shard
+     * @return number of vertices that the shard owns
+     */
+    public int ownedVertices(int shard) {
+        return shards[shard].owned;
+    }
+
+    /**
+     * @param shard number of the shard
+     * @return number of vertices of other shards that the shard has edges to
+     */
+    public int ghostVertices(int shard) {
+        return shards[shard].ghosts();
+    }
+
+    /**
+     * @return number of supersteps taken by the last algorithm
+     */
+    public int supersteps() {
+        return supersteps;
+    }
+
+    /**
+     * @return number of messages sent between shards by the last algorithm
+     */
+    public long messages() {
+        return messages;
+    }
+
+    /**
+     * @return true if the graph is connected, false otherwise (including when it is empty)
+     */
+    public boolean isConnected() {
+        return ids.length > 0 && connectedComponents().count() == 1;
+    }
+
+    /**
+     * Finds the connected components. Every shard first joins its own vertices with a union-find, then the
+     * smallest global index of every component spreads across cut edges, one superstep per hop between shards,
+     * until no label changes.
+     *
+     * @return snapshot of the component of every vertex, and the size of every component
+     */
+    public ConnectedComponents connectedComponents() {
+        reset();
+        int k = shards.length;
+        DisjointSet[] sets = new DisjointSet[k];
+        //smallest global index known for every local component, by representative
+        int[][] labels = new int[k][];
+        superstep(shard -> {
+            DisjointSet set = new DisjointSet(shard.owned);
+            for (int u = 0; u < shard.owned; u++) {
+                for (int e = shard.offsets[u]; e < shard.offsets[u + 1]; e++) {
+                    if (!shard.isGhost(shard.targets[e])) {
+                        set.union(u, shard.targets[e]);
+                    }
+                }
+            }
+            int[] label = new int[shard.owned];
+            Arrays.fill(label, Integer.MAX_VALUE);
+            for (int u = 0; u < shard.owned; u++) {
+                int root = set.find(u);
+                label[root] = Math.min(label[root], shard.global(u));
+            }
+            sets[shard.index] = set;
+            labels[shard.index] = label;
+            sendLabels(shard, set, label, null);
+        });
+        while (messagesInFlight()) {
+            superstep(shard -> {
+                DisjointSet set = sets[shard.index];
+                int[] label = labels[shard.index];
+                boolean[] changed = new boolean[shard.owned];
+                boolean[] any = new boolean[1];
+                forEachMessage(shard, (local, value) -> {
+                    int root = set.find(local);
+                    if (value < label[root]) {
+                        label[root] = value;
+                        changed[root] = true;
+                        any[0] = true;
+                    }
+                });
+                if (any[0]) {
+                    sendLabels(shard, set, label, changed);
+                }
+            });
+        }
+
+        int n = ids.length;
+        int[] component = new int[n];
+        for (GraphShard shard : shards) {
+            for (int u = 0; u < shard.owned; u++) {
+                component[shard.global(u)] = labels[shard.index][sets[shard.index].find(u)];
+            }
+        }
+        //the vertex with the smallest global index of every component numbers it
+        int[] number = new int[n];
+        int[] sizes = new int[n];
+        int count = 0;
+        for (int g = 0; g < n; g++) {
+            if (component[g] == g) {
+                number[g] = count++;
+            }
+        }
+        for (int g = 0; g < n; g++) {
+            component[g] = number[component[g]];
+            sizes[component[g]]++;
+        }
+        return new ConnectedComponents(ids, component, Arrays.copyOf(sizes, count));
+    }
+
+    /**
+     * Breadth first search that counts the edges on the way to every vertex, one level per superstep.
+     * Shards expand their part of the frontier locally, and send the vertices they reach in other shards
+     * to their owners.
+     *
+     * @param source ID of the source vertex
+     * @return number of edges on a shortest path to every vertex, and the breadth first search tree.
+     * Null if the source does not exist
+     */
+    public ShortestPaths hopDistances(int source) {
+        int start = globals.get(source, -1);
+        if (start == -1) {
+            return null;
+        }
+        reset();
+        int k = shards.length;
+        //level and parent (by global index) of every vertex, by shard and local index, -1 until it is reached
+        int[][] levels = new int[k][];
+        int[][] parents = new int[k][];
+        //local indices of each shard's vertices on the current level, discovered by the shard itself
+        int[][] frontiers = new int[k][];
+        int[] frontierSizes = new int[k];
+        for (GraphShard shard : shards) {
+            levels[shard.index] = new int[shard.owned];
+            parents[shard.index] = new int[shard.owned];
+            Arrays.fill(levels[shard.index], -1);
+            Arrays.fill(parents[shard.index], -1);
+            frontiers[shard.index] = new int[shard.owned];
+        }
+        GraphShard first = shards[owner(start)];
+        levels[first.index][first.local(start)] = 0;
+        frontiers[first.index][frontierSizes[first.index]++] = first.local(start);
+        int[] level = new int[1];
+        boolean active = true;
+        while (active) {
+            superstep(shard -> {
+                int[] frontier = frontiers[shard.index];
+                int[] reached = levels[shard.index];
+                int[] parent = parents[shard.index];
+                //vertices reached from other shards join the level, unless this shard got there first
+                forEachMessage(shard, (local, from) -> {
+                    if (reached[local] == -1) {
+                        reached[local] = level[0];
+                        parent[local] = from;
+                        frontier[frontierSizes[shard.index]++] = local;
+                    }
+                });
+                int size = frontierSizes[shard.index];
+                int[] next = new int[shard.owned];
+                int nextSize = 0;
+                for (int f = 0; f < size; f++) {
+                    int u = frontier[f];
+                    int from = shard.global(u);
+                    for (int e = shard.offsets[u]; e < shard.offsets[u + 1]; e++) {
+                        int target = shard.targets[e];
+                        if (shard.isGhost(target)) {
+                            send(shard, target, from);
+                        } else if (reached[target] == -1) {
+                            reached[target] = level[0] + 1;
+                            parent[target] = from;
+                            next[nextSize++] = target;
+                        }
+                    }
+                }
+                frontiers[shard.index] = next;
+                frontierSizes[shard.index] = nextSize;
+            });
+            level[0]++;
+            active = messagesInFlight();
+            for (int size : frontierSizes) {
+                active |= size > 0;
+            }
+        }
+
+        long[] distances = new long[ids.length];
+        int[] parent = new int[ids.length];
+        for (GraphShard shard : shards) {
+            for (int u = 0; u < shard.owned; u++) {
+                int reached = levels[shard.index][u];
+                distances[shard.global(u)] = reached == -1 ? ShortestPaths.UNREACHABLE : reached;
+                parent[shard.global(u)] = parents[shard.index][u];
+            }
+        }
+        return new ShortestPaths(source, ids, distances, parent);
+    }
+
+    /**
+     * Total weight of a minimum spanning forest, see {@link #mstEdges()}
+     *
+     * @return sum of the weights of the forest edges, 0 for an empty graph
+     */
+    public long mstWeight() {
+        long total = 0;
+        for (int[] edge : mstEdges()) {
+            total += edge[2];
+        }
+        return total;
+    }
+
+    /**
+     * Builds a minimum spanning forest with Boruvka's algorithm, one superstep per round. Every shard knows the
+     * component of its vertices and ghosts, and sends the coordinator the lightest edge out of each component
+     * it has vertices of. The coordinator keeps the lightest proposal of every component, joins the components,
+     * and sends every shard the new label of each component that was joined. Ties between equal weights are
+     * broken by vertex, so the forest is the same on every run.
+     *
+     * @return List of int arrays of size 3: index 0 and 1 are the IDs of the vertices of the edge,
+     * Index 2 is the edge weight
+     */
+    public List<int[]> mstEdges() {
+        reset();
+        int n = ids.length;
+        int k = shards.length;
+        //component of every vertex and then every ghost, by shard and local index
+        int[][] labels = new int[k][];
+        for (GraphShard shard : shards) {
+            int[] label = new int[shard.owned + shard.ghosts()];
+            for (int u = 0; u < label.length; u++) {
+                label[u] = shard.global(u);
+            }
+            labels[shard.index] = label;
+        }
+        //state of the coordinator: the components by their label, and the lightest proposal of every component
+        DisjointSet set = new DisjointSet(n);
+        int[] bestWeight = new int[n];
+        int[] bestFrom = new int[n];
+        int[] bestTo = new int[n];
+        int[] bestOther = new int[n];
+        Arrays.fill(bestFrom, -1);
+        boolean[] renamed = new boolean[n];
+        List<int[]> forest = new ArrayList<>();
+        while (true) {
+            superstep(shard -> {
+                relabel(shard, labels[shard.index]);
+                propose(shard, labels[shard.index]);
+            });
+            int[] proposed = new int[n];
+            int count = 0;
+            for (int s = 0; s < k; s++) {
+                Mailbox mailbox = received[s][k];
+                for (int i = 0; i < mailbox.size; i += 5) {
+                    int c = mailbox.data[i];
+                    int weight = mailbox.data[i + 2];
+                    int from = mailbox.data[i + 3];
+                    int to = mailbox.data[i + 4];
+                    if (bestFrom[c] == -1) {
+                        proposed[count++] = c;
+                    }
+                    if (bestFrom[c] == -1 || lighter(weight, from, to, bestWeight[c], bestFrom[c], bestTo[c])) {
+                        bestOther[c] = mailbox.data[i + 1];
+                        bestWeight[c] = weight;
+                        bestFrom[c] = from;
+                        bestTo[c] = to;
+                    }
+                }
+            }
+            if (count == 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                int c = proposed[i];
+                //both components may have proposed the same edge, it joins them only once
+                if (set.union(c, bestOther[c])) {
+                    forest.add(new int[]{ids[bestFrom[c]], ids[bestTo[c]], bestWeight[c]});
+                }
+            }
+            //only the labels of joined components change, and a label that changed is never used again
+            for (int i = 0; i < count; i++) {
+                int c = proposed[i];
+                for (int label : new int[]{c, bestOther[c]}) {
+                    int root = set.find(label);
+                    if (root != label && !renamed[label]) {
+                        renamed[label] = true;
+                        for (int s = 0; s < k; s++) {
+                            sending[k][s].add(label, root);
+                        }
+                    }
+                }
+                bestFrom[c] = -1;
+            }
+            deliver();
+        }
+        return forest;
+    }
+
+    /* Helper functions and classes */
+
+    /**
+     * Runs one superstep: the step runs on every shard in parallel, then the messages it sent are delivered
+     */
+    private void superstep(Step step) {
+        IntStream.range(0, shards.length).parallel().forEach(s -> step.run(shards[s]));
+        deliver();
+        supersteps++;
+    }
+
+    /**
+     * Delivers the messages sent since the last delivery, dropping the ones that were delivered then
+     */
+    private void deliver() {
+        Mailbox[][] delivered = received;
+        received = sending;
+        sending = delivered;
+        for (Mailbox[] row : sending) {
+            for (Mailbox mailbox : row) {
+                mailbox.clear();
+            }
+        }
+        for (Mailbox[] row : received) {
+            for (Mailbox mailbox : row) {
+                messages += mailbox.count;
+            }
+        }
+    }
+
+    /**
+     * @return true if the last superstep sent any message
+     */
+    private boolean messagesInFlight() {
+        for (Mailbox[] row : received) {
+            for (Mailbox mailbox : row) {
+                if (mailbox.size > 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends a value to the shard that owns a ghost
+     */
+    private void send(GraphShard shard, int ghost, int value) {
+        int g = ghost - shard.owned;
+        sending[shard.index][shard.ghostShard[g]].add(shard.ghostGlobal[g], value);
+    }
+
+    /**
+     * Hands every message sent to the shard by other shards in the previous superstep to the action, with the
+     * local index of its target
+     */
+    private void forEachMessage(GraphShard shard, IntIntConsumer action) {
+        for (int s = 0; s < shards.length; s++) {
+            Mailbox mailbox = received[s][shard.index];
+            for (int i = 0; i < mailbox.size; i += 2) {
+                action.accept(shard.local(mailbox.data[i]), mailbox.data[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Sends the label of every local component across its cut edges
+     *
+     * @param changed components whose label changed, null for all of them
+     */
+    private void sendLabels(GraphShard shard, DisjointSet set, int[] label, boolean[] changed) {
+        for (int u = 0; u < shard.owned; u++) {
+            int root = set.find(u);
+            if (changed != null && !changed[root]) {
+                continue;
+            }
+            for (int e = shard.offsets[u]; e < shard.offsets[u + 1]; e++) {
+                if (shard.isGhost(shard.targets[e])) {
+                    send(shard, shard.targets[e], label[root]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the new labels of components, sent to the shard by the coordinator
+     *
+     * @param label component of every vertex and ghost of the shard, by local index
+     */
+    private void relabel(GraphShard shard, int[] label) {
+        Mailbox mailbox = received[shards.length][shard.index];
+        if (mailbox.size == 0) {
+            return;
+        }
+        IntIntMap renames = new IntIntMap(mailbox.count);
+        for (int i = 0; i < mailbox.size; i += 2) {
+            renames.put(mailbox.data[i], mailbox.data[i + 1]);
+        }
+        for (int u = 0; u < label.length; u++) {
+            label[u] = renames.get(label[u], label[u]);
+        }
+    }
+
+    /**
+     * Sends the coordinator the lightest edge out of every component that has vertices in the shard, along with
+     * the component at its far end
+     *
+     * @param label component of every vertex and ghost of the shard, by local index
+     */
+    private void propose(GraphShard shard, int[] label) {
+        //component -> position of its lightest edge so far, given by its first end and its position in the CSR
+        IntIntMap positions = new IntIntMap();
+        int[] lightestFrom = new int[16];
+        int[] lightestEdge = new int[16];
+        int size = 0;
+        for (int u = 0; u < shard.owned; u++) {
+            for (int e = shard.offsets[u]; e < shard.offsets[u + 1]; e++) {
+                if (label[shard.targets[e]] == label[u]) {
+                    continue;
+                }
+                int position = positions.get(label[u], -1);
+                if (position == -1) {
+                    positions.put(label[u], size);
+                    if (size == lightestFrom.length) {
+                        lightestFrom = Arrays.copyOf(lightestFrom, 2 * size);
+                        lightestEdge = Arrays.copyOf(lightestEdge, 2 * size);
+                    }
+                    lightestFrom[size] = u;
+                    lightestEdge[size++] = e;
+                } else if (lighter(shard.weights[e], shard.global(u), shard.global(shard.targets[e]),
+                        shard.weights[lightestEdge[position]], shard.global(lightestFrom[position]),
+                        shard.global(shard.targets[lightestEdge[position]]))) {
+                    lightestFrom[position] = u;
+                    lightestEdge[position] = e;
+                }
+            }
+        }
+        Mailbox mailbox = sending[shard.index][shards.length];
+        for (int i = 0; i < size; i++) {
+            int u = lightestFrom[i];
+            int e = lightestEdge[i];
+            mailbox.add(label[u], label[shard.targets[e]], shard.weights[e], shard.global(u),
+                    shard.global(shard.targets[e]));
+        }
+    }
+
+    /**
+     * @return true if the first edge is lighter, comparing weights, then the smaller end, then the larger end
+     */
+    private static boolean lighter(int weight1, int from1, int to1, int weight2, int from2, int to2) {
+        if (weight1 != weight2) {
+            return weight1 < weight2;
+        }
+        int low1 = Math.min(from1, to1);
+        int low2 = Math.min(from2, to2);
+        if (low1 != low2) {
+            return low1 < low2;
+        }
+        return Math.max(from1, to1) < Math.max(from2, to2);
+    }
+
+    private int owner(int global) {
+        for (GraphShard shard : shards) {
+            if (global < shard.offset + shard.owned) {
+                return shard.index;
+            }
+        }
+        throw new IllegalStateException("No shard owns vertex " + global);
+    }
+
+    private void reset() {
+        supersteps = 0;
+        messages = 0;
+        for (Mailbox[][] box : Arrays.asList(received, sending)) {
+            for (Mailbox[] row : box) {
+                for (Mailbox mailbox : row) {
+                    mailbox.clear();
+                }
+            }
+        }
+    }
+
+    private static int[] idsOf(CsrGraph<?> csr) {
+        int[] ids = new int[csr.numVertices()];
+        for (int v = 0; v < ids.length; v++) {
+            ids[v] = csr.idAt(v);
+        }
+        return ids;
+    }
+
+    /**
+     * @return mailboxes between every pair of shards, and between the shards and the coordinator
+     */
+    private static Mailbox[][] mailboxes(int k) {
+        Mailbox[][] mailboxes = new Mailbox[k + 1][k + 1];
+        for (Mailbox[] row : mailboxes) {
+            for (int s = 0; s <= k; s++) {
+                row[s] = new Mailbox();
+            }
+        }
+        return mailboxes;
+    }
+
+    /**
+     * Builds the CSR arrays and ghost table of one shard from the CSR of the whole graph
+     *
+     * @param members CSR index of the vertex at every global index
+     */
+    private static GraphShard buildShard(CsrGraph<?> csr, int s, int[] offsets, int[] members, int[] globalOf,
+                                         int[] shardOf) {
+        int offset = offsets[s];
+        int owned = offsets[s + 1] - offset;
+        int[] edgeOffsets = new int[owned + 1];
+        for (int u = 0; u < owned; u++) {
+            int v = members[offset + u];
+            edgeOffsets[u + 1] = edgeOffsets[u] + csr.edgesEnd(v) - csr.edgesStart(v);
+        }
+        int[] targets = new int[edgeOffsets[owned]];
+        int[] weights = new int[edgeOffsets[owned]];
+        //global index -> local index of every ghost
+        IntIntMap ghosts = new IntIntMap();
+        int[] ghostGlobal = new int[16];
+        int[] ghostShard = new int[16];
+        for (int u = 0; u < owned; u++) {
+            int v = members[offset + u];
+            int position = edgeOffsets[u];
+            for (int e = csr.edgesStart(v); e < csr.edgesEnd(v); e++, position++) {
+                int t = csr.target(e);
+                int global = globalOf[t];
+                weights[position] = csr.weight(e);
+                if (shardOf[t] == s) {
+                    targets[position] = global - offset;
+                    continue;
+                }
+                int ghost = ghosts.get(global, -1);
+                if (ghost == -1) {
+                    ghost = ghosts.size();
+                    ghosts.put(global, ghost);
+                    if (ghost == ghostGlobal.length) {
+                        ghostGlobal = Arrays.copyOf(ghostGlobal, 2 * ghost);
+                        ghostShard = Arrays.copyOf(ghostShard, 2 * ghost);
+                    }
+                    ghostGlobal[ghost] = global;
+                    ghostShard[ghost] = shardOf[t];
+                }
+                targets[position] = owned + ghost;
+            }
+        }
+        return new GraphShard(s, offset, owned, edgeOffsets, targets, weights,
+                Arrays.copyOf(ghostGlobal, ghosts.size()), Arrays.copyOf(ghostShard, ghosts.size()));
+    }
+
+    /**
+     * Collects vertices and edges for a {@link ShardedGraph}, without the whole graph ever being in one
+     * {@link MyGraph}. Every edge is logged by the shards of both of its ends as it comes in, which costs
+     * 12 bytes per end until the shards are built, and shards are only turned into CSR form by
+     * {@link #build()}. As with {@link MyGraph#addEdge(int, int, int)}, the first of repeated edges is kept.
+     */
+    public static final class Builder {
+        private final ShardLog[] logs;
+
+        private Builder(int shards) {
+            logs = new ShardLog[shards];
+            for (int s = 0; s < shards; s++) {
+                logs[s] = new ShardLog();
+            }
+        }
+
+        /**
+         * Adds a vertex if and only if the vertex ID was not added yet
+         *
+         * @return true if the vertex was added, false if not
+         */
+        public boolean addVertex(int id) {
+            return logs[GraphPartition.hashShard(id, logs.length)].vertices.put(id, 0);
+        }
+
+        /**
+         * Adds an edge between vertices of ID1 and ID2, with a specified weight, and both vertices if they
+         * were not added yet
+         *
+         * @return false if the IDs are the same, true otherwise
+         */
+        public boolean addEdge(int id1, int id2, int weight) {
+            if (id1 == id2) {
+                return false;
+            }
+            addVertex(id1);
+            addVertex(id2);
+            logs[GraphPartition.hashShard(id1, logs.length)].add(id1, id2, weight);
+            logs[GraphPartition.hashShard(id2, logs.length)].add(id2, id1, weight);
+            return true;
+        }
+
+        /**
+         * Builds the shards, each on its own thread. O(V + E log d), where d is the largest degree
+         *
+         * @return graph with every vertex and edge added so far
+         */
+        public ShardedGraph build() {
+            int k = logs.length;
+            //owned vertex IDs of every shard in ascending order, which is the order of their global indices
+            int[][] owned = new int[k][];
+            IntIntMap[] locals = new IntIntMap[k];
+            IntStream.range(0, k).parallel().forEach(s -> {
+                owned[s] = logs[s].vertices.keys();
+                Arrays.sort(owned[s]);
+                locals[s] = new IntIntMap(owned[s].length);
+                for (int u = 0; u < owned[s].length; u++) {
+                    locals[s].put(owned[s][u], u);
+                }
+            });
+            int[] offsets = new int[k + 1];
+            for (int s = 0; s < k; s++) {
+                offsets[s + 1] = offsets[s] + owned[s].length;
+            }
+            int[] ids = new int[offsets[k]];
+            for (int s = 0; s < k; s++) {
+                System.arraycopy(owned[s], 0, ids, offsets[s], owned[s].length);
+            }
+            GraphShard[] shards = new GraphShard[k];
+            IntStream.range(0, k).parallel().forEach(s -> shards[s] = buildShard(s, offsets, locals));
+            long ends = 0;
+            long cut = 0;
+            for (GraphShard shard : shards) {
+                ends += shard.targets.length;
+                for (int target : shard.targets) {
+                    if (shard.isGhost(target)) {
+                        cut++;
+                    }
+                }
+            }
+            //every edge has an end in each of the shards of its vertices
+            return new ShardedGraph(shards, ids, (int) (ends / 2), (int) (cut / 2));
+        }
+
+        /**
+         * Turns the log of one shard into its CSR arrays and ghost table
+         *
+         * @param locals local index of every owned vertex, by ID, in each shard
+         */
+        private GraphShard buildShard(int s, int[] offsets, IntIntMap[] locals) {
+            ShardLog log = logs[s];
+            int k = logs.length;
+            int owned = offsets[s + 1] - offsets[s];
+            int[] start = new int[owned + 1];
+            int[] from = new int[log.size];
+            for (int i = 0; i < log.size; i++) {
+                from[i] = locals[s].get(log.from[i], -1);
+                start[from[i] + 1]++;
+            }
+            for (int u = 0; u < owned; u++) {
+                start[u + 1] += start[u];
+            }
+            //global index of the far end, then position in the log, of the edges of every owned vertex. Sorted,
+            //the first of repeated edges comes first
+            long[] ends = new long[log.size];
+            int[] fill = Arrays.copyOf(start, owned);
+            for (int i = 0; i < log.size; i++) {
+                int shard = GraphPartition.hashShard(log.to[i], k);
+                long global = offsets[shard] + locals[shard].get(log.to[i], -1);
+                ends[fill[from[i]]++] = (global << 32) | i;
+            }
+            int[] edgeOffsets = new int[owned + 1];
+            int[] targets = new int[log.size];
+            int[] weights = new int[log.size];
+            //global index -> local index of every ghost
+            IntIntMap ghosts = new IntIntMap();
+            int[] ghostGlobal = new int[16];
+            int[] ghostShard = new int[16];
+            int count = 0;
+            for (int u = 0; u < owned; u++) {
+                Arrays.sort(ends, start[u], start[u + 1]);
+                for (int e = start[u]; e < start[u + 1]; e++) {
+                    int global = (int) (ends[e] >>> 32);
+                    if (e > start[u] && global == (int) (ends[e - 1] >>> 32)) {
+                        continue;
+                    }
+                    int position = (int) ends[e];
+                    int shard = GraphPartition.hashShard(log.to[position], k);
+                    weights[count] = log.weights[position];
+                    if (shard == s) {
+                        targets[count++] = global - offsets[s];
+                        continue;
+                    }
+                    int ghost = ghosts.get(global, -1);
+                    if (ghost == -1) {
+                        ghost = ghosts.size();
+                        ghosts.put(global, ghost);
+                        if (ghost == ghostGlobal.length) {
+                            ghostGlobal = Arrays.copyOf(ghostGlobal, 2 * ghost);
+                            ghostShard = Arrays.copyOf(ghostShard, 2 * ghost);
+                        }
+                        ghostGlobal[ghost] = global;
+                        ghostShard[ghost] = shard;
+                    }
+                    targets[count++] = owned + ghost;
+                }
+                edgeOffsets[u + 1] = count;
+            }
+            return new GraphShard(s, offsets[s], owned, edgeOffsets, Arrays.copyOf(targets, count),
+                    Arrays.copyOf(weights, count), Arrays.copyOf(ghostGlobal, ghosts.size()),
+                    Arrays.copyOf(ghostShard, ghosts.size()));
+        }
+    }
+
+    /**
+     * Vertices owned by one shard of a {@link Builder}, and the edges from them in the order they were added
+     */
+    private static final class ShardLog {
+        private final IntIntMap vertices = new IntIntMap();
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int[] weights = new int[16];
+        private int size;
+
+        private void add(int u, int v, int weight) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, 2 * size);
+                to = Arrays.copyOf(to, 2 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+            }
+            from[size] = u;
+            to[size] = v;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    /**
+     * Work of one shard in a superstep
+     */
+    @FunctionalInterface
+    private interface Step {
+        void run(GraphShard shard);
+    }
+
+    /**
+     * Messages from one shard or the coordinator to another, each made of a few ints: the global index of the
+     * target vertex and a value between shards, while the messages to and from the coordinator depend on the
+     * algorithm
+     */
+    private static final class Mailbox {
+        private int[] data = new int[32];
+        //number of ints, and of messages
+        private int size;
+        private int count;
+
+        private void add(int first, int second) {
+            ensureSpace(2);
+            data[size++] = first;
+            data[size++] = second;
+            count++;
+        }
+
+        private void add(int first, int second, int third, int fourth, int fifth) {
+            ensureSpace(5);
+            data[size++] = first;
+            data[size++] = second;
+            data[size++] = third;
+            data[size++] = fourth;
+            data[size++] = fifth;
+            count++;
+        }
+
+        private void ensureSpace(int ints) {
+            if (size + ints > data.length) {
+                data = Arrays.copyOf(data, Math.max(2 * data.length, size + ints));
+            }
+        }
+
+        private void clear() {
+            size = 0;
+            count = 0;
+        }
+    }
+}
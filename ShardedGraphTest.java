@@ -0,0 +1,155 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedGraphTest {
+
+    @Test
+    void partition() {
+        MyGraph<String> grid = GraphGenerator.grid(20, 20, 3);
+        GraphPartition hash = GraphPartition.hash(grid, 4);
+        GraphPartition refined = GraphPartition.labelPropagation(grid, 4, 10);
+        for (GraphPartition partition : new GraphPartition[]{hash, refined}) {
+            assertEquals(4, partition.numShards());
+            assertEquals(400, partition.numVertices());
+            int total = 0;
+            for (int s = 0; s < 4; s++) {
+                //at most 3% above the average
+                assertTrue(partition.size(s) <= 103, "shard " + s + " has " + partition.size(s));
+                total += partition.size(s);
+            }
+            assertEquals(400, total);
+            assertTrue(partition.shardOf(0) >= 0 && partition.shardOf(0) < 4);
+        }
+        assertEquals(-1, hash.shardOf(1000));
+        //a grid cut into bands only cuts the edges along their borders, about 60 of 760
+        assertTrue(refined.edgeCut() <= 100, "cut " + refined.edgeCut());
+        assertTrue(refined.edgeCut() < hash.edgeCut() / 4);
+        assertThrows(IllegalArgumentException.class, () -> GraphPartition.hash(grid, 0));
+    }
+
+    @Test
+    void shards() {
+        MyGraph<String> g = new MyGraph<>();
+        for (int i = 0; i < 6; i++) {
+            g.addVertex(i * 10, null);
+        }
+        g.addEdge(0, 10, 1);
+        g.addEdge(10, 20, 1);
+        g.addEdge(30, 40, 1);
+        ShardedGraph sharded = new ShardedGraph(g, GraphPartition.hash(g, 3));
+        assertEquals(3, sharded.numShards());
+        assertEquals(6, sharded.numVertices());
+        assertEquals(3, sharded.numEdges());
+        int owned = 0;
+        for (int s = 0; s < 3; s++) {
+            owned += sharded.ownedVertices(s);
+        }
+        assertEquals(6, owned);
+        assertFalse(sharded.isConnected());
+        ConnectedComponents components = sharded.connectedComponents();
+        assertEquals(3, components.count());
+        assertTrue(components.sameComponent(0, 20));
+        assertTrue(components.sameComponent(30, 40));
+        assertFalse(components.sameComponent(20, 30));
+        assertEquals(2, sharded.hopDistances(0).distanceTo(20));
+        assertFalse(sharded.hopDistances(0).hasPathTo(50));
+        assertNull(sharded.hopDistances(7));
+        assertEquals(3, sharded.mstWeight());
+
+        MyGraph<String> other = new MyGraph<>();
+        other.addVertex(0, null);
+        assertThrows(IllegalArgumentException.class, () -> new ShardedGraph(g, GraphPartition.hash(other, 2)));
+    }
+
+    @Test
+    void matchesMyGraph() {
+        List<MyGraph<String>> graphs = Arrays.asList(GraphGenerator.random(300, 0.01, 5),
+                GraphGenerator.powerLaw(500, 2, 5), GraphGenerator.grid(15, 25, 5));
+        for (MyGraph<String> g : graphs) {
+            //a few more components
+            g.removeVertex(0);
+            g.removeVertex(7);
+            for (int shards : new int[]{1, 3, 8}) {
+                for (GraphPartition partition : new GraphPartition[]{GraphPartition.hash(g, shards),
+                        GraphPartition.labelPropagation(g, shards, 5)}) {
+                    ShardedGraph sharded = new ShardedGraph(g, partition);
+                    assertEquals(partition.edgeCut(), sharded.edgeCut());
+                    ConnectedComponents expected = g.connectedComponents();
+                    ConnectedComponents actual = sharded.connectedComponents();
+                    assertEquals(expected.count(), actual.count());
+                    assertEquals(g.isConnected(), sharded.isConnected());
+                    ShortestPaths hops = g.hopDistances(1);
+                    ShortestPaths shardedHops = sharded.hopDistances(1);
+                    assertArrayEquals(hops.vertexIds(), shardedHops.vertexIds());
+                    assertArrayEquals(hops.distances(), shardedHops.distances());
+                    for (int id : hops.vertexIds()) {
+                        assertEquals(expected.sameComponent(1, id), actual.sameComponent(1, id));
+                        if (shardedHops.hasPathTo(id) && id != 1) {
+                            //every parent is one hop closer to the source
+                            int[] path = shardedHops.pathTo(id).vertices();
+                            assertEquals(path.length - 1, shardedHops.distanceTo(id));
+                        }
+                    }
+                    assertEquals(g.mstWeight(), sharded.mstWeight());
+                    assertEquals(g.mstEdges().size(), sharded.mstEdges().size());
+                    if (shards > 1) {
+                        assertTrue(sharded.messages() > 0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void builder() throws IOException {
+        ShardedGraph.Builder builder = ShardedGraph.builder(3);
+        assertTrue(builder.addEdge(1, 2, 5));
+        assertTrue(builder.addEdge(2, 1, 9));
+        assertFalse(builder.addEdge(3, 3, 1));
+        assertTrue(builder.addVertex(4));
+        assertFalse(builder.addVertex(4));
+        ShardedGraph small = builder.build();
+        //self loops add no vertices
+        assertEquals(3, small.numVertices());
+        assertEquals(1, small.numEdges());
+        //the first of repeated edges is kept
+        assertEquals(5, small.mstWeight());
+        assertEquals(2, small.connectedComponents().count());
+        assertThrows(IllegalArgumentException.class, () -> ShardedGraph.builder(0));
+
+        //streamed from a file, the shards are the same as those split from the graph by a hash partition
+        MyGraph<String> g = GraphGenerator.powerLaw(400, 3, 9);
+        g.removeVertex(5);
+        Path file = Files.createTempFile("graph", ".gr");
+        try {
+            GraphExporter.writeDimacs(g, file);
+            MyGraph<String> read = new MyGraph<>();
+            GraphImporter.readDimacs(file, read);
+            for (int shards : new int[]{1, 4}) {
+                ShardedGraph.Builder streamed = ShardedGraph.builder(shards);
+                GraphImporter.readDimacs(file, streamed);
+                ShardedGraph expected = new ShardedGraph(read, GraphPartition.hash(read, shards));
+                ShardedGraph actual = streamed.build();
+                assertEquals(expected.numVertices(), actual.numVertices());
+                assertEquals(expected.numEdges(), actual.numEdges());
+                assertEquals(expected.edgeCut(), actual.edgeCut());
+                for (int s = 0; s < shards; s++) {
+                    assertEquals(expected.ownedVertices(s), actual.ownedVertices(s));
+                    assertEquals(expected.ghostVertices(s), actual.ghostVertices(s));
+                }
+                assertEquals(expected.connectedComponents().count(), actual.connectedComponents().count());
+                assertArrayEquals(expected.hopDistances(1).distances(), actual.hopDistances(1).distances());
+                assertEquals(read.mstWeight(), actual.mstWeight());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Dijkstra's algorithm and its variants, shared by every graph layout through {@link DenseGraph}.
+ * Distances are longs so that long paths of int weights cannot overflow. Edge weights must not be negative.
+ */
+final class ShortestPathSearch {
+    /**
+     * Dial's algorithm needs one bucket per possible weight, so larger weights fall back to the heap
+     */
+    static final int MAX_BUCKETS = 1 << 20;
+
+    private ShortestPathSearch() {
+    }
+
+    /**
+     * Runs the search for the given strategy from the source, stopping early once the target is settled
+     *
+     * @param source       dense index of the source
+     * @param target       dense index of the target, -1 to reach every vertex
+     * @param distances    filled with the distance of every dense index, {@link ShortestPaths#UNREACHABLE} if not reached
+     * @param predecessors filled with the dense index of the previous vertex on every path, -1 if there is none
+     */
+    static void search(DenseGraph graph, MyGraph.PathStrategy strategy, int source, int target,
+                       long[] distances, int[] predecessors) {
+        if (strategy == MyGraph.PathStrategy.DIAL) {
+            dial(graph, source, target, distances, predecessors);
+        } else {
+            dijkstra(graph, source, target, distances, predecessors);
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm on an indexed binary heap with decrease-key. O(E log V)
+     */
+    static void dijkstra(DenseGraph graph, int source, int target, long[] distances, int[] predecessors) {
+        Arrays.fill(distances, ShortestPaths.UNREACHABLE);
+        Arrays.fill(predecessors, -1);
+        IndexedMinHeap heap = new IndexedMinHeap(graph.size());
+        distances[source] = 0;
+        heap.insert(source, 0);
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            if (current == target) {
+                return;
+            }
+            relax(graph, current, heap, distances, predecessors);
+        }
+    }
+
+    /**
+     * Dial's algorithm: Dijkstra's algorithm on a circular array of buckets, one per possible distance
+     * modulo (maximum weight + 1). O(E + V * W), best when the weights are small integers.
+     * Falls back to {@link #dijkstra} when the maximum weight is larger than {@link #MAX_BUCKETS}.
+     */
+    static void dial(DenseGraph graph, int source, int target, long[] distances, int[] predecessors) {
+        int n = graph.size();
+        int maxWeight = 0;
+        for (int index = 0; index < n; index++) {
+            int degree = graph.degree(index);
+            for (int i = 0; i < degree; i++) {
+                maxWeight = Math.max(maxWeight, checkWeight(graph.weight(index, i)));
+            }
+        }
+        if (maxWeight >= MAX_BUCKETS) {
+            dijkstra(graph, source, target, distances, predecessors);
+            return;
+        }
+
+        Arrays.fill(distances, ShortestPaths.UNREACHABLE);
+        Arrays.fill(predecessors, -1);
+        int buckets = maxWeight + 1;
+        //doubly linked list of the vertices in each bucket
+        int[] head = new int[buckets];
+        int[] next = new int[n];
+        int[] prev = new int[n];
+        boolean[] queued = new boolean[n];
+        Arrays.fill(head, -1);
+
+        distances[source] = 0;
+        queued[source] = true;
+        head[0] = source;
+        next[source] = -1;
+        prev[source] = -1;
+        int size = 1;
+        long distance = 0;
+        while (size > 0) {
+            int bucket = (int) (distance % buckets);
+            int current = head[bucket];
+            if (current == -1) {
+                distance++;
+                continue;
+            }
+            //pop the first vertex of the bucket
+            head[bucket] = next[current];
+            if (next[current] != -1) {
+                prev[next[current]] = -1;
+            }
+            queued[current] = false;
+            size--;
+            if (current == target) {
+                return;
+            }
+            int degree = graph.degree(current);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.neighbor(current, i);
+                long candidate = distance + graph.weight(current, i);
+                if (distances[neighbor] != ShortestPaths.UNREACHABLE && candidate >= distances[neighbor]) {
+                    continue;
+                }
+                if (queued[neighbor]) {
+                    //unlink from its old bucket
+                    int old = (int) (distances[neighbor] % buckets);
+                    if (prev[neighbor] == -1) {
+                        head[old] = next[neighbor];
+                    } else {
+                        next[prev[neighbor]] = next[neighbor];
+                    }
+                    if (next[neighbor] != -1) {
+                        prev[next[neighbor]] = prev[neighbor];
+                    }
+                } else {
+                    queued[neighbor] = true;
+                    size++;
+                }
+                distances[neighbor] = candidate;
+                predecessors[neighbor] = current;
+                int slot = (int) (candidate % buckets);
+                prev[neighbor] = -1;
+                next[neighbor] = head[slot];
+                if (head[slot] != -1) {
+                    prev[head[slot]] = neighbor;
+                }
+                head[slot] = neighbor;
+            }
+        }
+    }
+
+    /**
+     * Bidirectional Dijkstra: searches forward from the source and backward from the target at the
+     * same time, always expanding the smaller frontier, and stops once the frontiers can no longer
+     * improve the best path found through an edge between them.
+     *
+     * @param source dense index of the source
+     * @param target dense index of the target
+     * @param idOf   vertex ID of a dense index
+     * @return shortest path, null if the target cannot be reached
+     */
+    static GraphPath bidirectional(DenseGraph graph, int source, int target, IntUnaryOperator idOf) {
+        if (source == target) {
+            return new GraphPath(new int[]{idOf.applyAsInt(source)}, 0);
+        }
+        int n = graph.size();
+        long[][] distances = {new long[n], new long[n]};
+        int[][] predecessors = {new int[n], new int[n]};
+        IndexedMinHeap[] heaps = {new IndexedMinHeap(n), new IndexedMinHeap(n)};
+        for (int side = 0; side < 2; side++) {
+            Arrays.fill(distances[side], ShortestPaths.UNREACHABLE);
+            Arrays.fill(predecessors[side], -1);
+        }
+        distances[0][source] = 0;
+        distances[1][target] = 0;
+        heaps[0].insert(source, 0);
+        heaps[1].insert(target, 0);
+
+        long best = Long.MAX_VALUE;
+        //edge (meetFrom, meetTo) joins the forward and backward shortest path trees
+        int meetFrom = -1;
+        int meetTo = -1;
+        while (!heaps[0].isEmpty() && !heaps[1].isEmpty()) {
+            if (heaps[0].keyOf(heaps[0].peekMin()) + heaps[1].keyOf(heaps[1].peekMin()) >= best) {
+                break;
+            }
+            int side = heaps[0].size() <= heaps[1].size() ? 0 : 1;
+            long[] own = distances[side];
+            long[] other = distances[1 - side];
+            int current = heaps[side].pollMin();
+            int degree = graph.degree(current);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = graph.neighbor(current, i);
+                long candidate = own[current] + checkWeight(graph.weight(current, i));
+                if (own[neighbor] == ShortestPaths.UNREACHABLE) {
+                    own[neighbor] = candidate;
+                    predecessors[side][neighbor] = current;
+                    heaps[side].insert(neighbor, candidate);
+                } else if (heaps[side].contains(neighbor) && candidate < own[neighbor]) {
+                    own[neighbor] = candidate;
+                    predecessors[side][neighbor] = current;
+                    heaps[side].decreaseKey(neighbor, candidate);
+                }
+                if (other[neighbor] != ShortestPaths.UNREACHABLE && candidate + other[neighbor] < best) {
+                    best = candidate + other[neighbor];
+                    meetFrom = side == 0 ? current : neighbor;
+                    meetTo = side == 0 ? neighbor : current;
+                }
+            }
+        }
+        if (meetFrom == -1) {
+            return null;
+        }
+
+        int length = 0;
+        for (int p = meetFrom; p != -1; p = predecessors[0][p]) {
+            length++;
+        }
+        for (int p = meetTo; p != -1; p = predecessors[1][p]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int i = 0;
+        for (int p = meetFrom; p != -1; p = predecessors[0][p]) {
+            path[i++] = idOf.applyAsInt(p);
+        }
+        //forward half was collected from the meeting point back to the source
+        for (int lo = 0, hi = i - 1; lo < hi; lo++, hi--) {
+            int temp = path[lo];
+            path[lo] = path[hi];
+            path[hi] = temp;
+        }
+        for (int p = meetTo; p != -1; p = predecessors[1][p]) {
+            path[i++] = idOf.applyAsInt(p);
+        }
+        return new GraphPath(path, best);
+    }
+
+    /**
+     * Builds the path to the target from the output of {@link #search}
+     *
+     * @return shortest path, null if the target was not reached
+     */
+    static GraphPath path(int target, long[] distances, int[] predecessors, IntUnaryOperator idOf) {
+        if (distances[target] == ShortestPaths.UNREACHABLE) {
+            return null;
+        }
+        int length = 0;
+        for (int p = target; p != -1; p = predecessors[p]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int p = target; p != -1; p = predecessors[p]) {
+            path[--length] = idOf.applyAsInt(p);
+        }
+        return new GraphPath(path, distances[target]);
+    }
+
+    /**
+     * Settles the vertex: lowers the distance of its neighbors that are not settled yet
+     */
+    private static void relax(DenseGraph graph, int current, IndexedMinHeap heap, long[] distances, int[] predecessors) {
+        int degree = graph.degree(current);
+        for (int i = 0; i < degree; i++) {
+            int neighbor = graph.neighbor(current, i);
+            long candidate = distances[current] + checkWeight(graph.weight(current, i));
+            if (distances[neighbor] == ShortestPaths.UNREACHABLE) {
+                distances[neighbor] = candidate;
+                predecessors[neighbor] = current;
+                heap.insert(neighbor, candidate);
+            } else if (heap.contains(neighbor) && candidate < distances[neighbor]) {
+                distances[neighbor] = candidate;
+                predecessors[neighbor] = current;
+                heap.decreaseKey(neighbor, candidate);
+            }
+        }
+    }
+
+    private static int checkWeight(int weight) {
+        if (weight < 0) {
+            throw new IllegalStateException("This graph has a negative edge weight");
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+/**
+ * Single source shortest paths, as returned by {@link MyGraph#shortestPaths(int)}.
+ * <p>
+ * The arrays returned by {@link #vertexIds()}, {@link #distances()} and {@link #predecessors()} line up:
+ * position i describes the vertex with the i-th smallest ID. Later changes to the graph are not reflected.
+ */
+public final class ShortestPaths {
+    /**
+     * Distance of vertices that cannot be reached from the source
+     */
+    public static final long UNREACHABLE = -1;
+
+    private final int source;
+    //vertex IDs in ascending order
+    private final int[] ids;
+    private final long[] distances;
+    //position in ids of the previous vertex on the shortest path, -1 for the source and unreached vertices
+    private final int[] predecessors;
+
+    /**
+     * @param source       ID of the source vertex
+     * @param ids          vertex ID of every dense index
+     * @param distances    distance of every dense index, {@link #UNREACHABLE} if not reached
+     * @param predecessors dense index of the previous vertex on the path, -1 if there is none
+     */
+    ShortestPaths(int source, int[] ids, long[] distances, int[] predecessors) {
+        int n = ids.length;
+        //sort dense indices by ID, so that lookups can binary search
+        long[] order = new long[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[(int) order[i]] = i;
+        }
+        this.source = source;
+        this.ids = new int[n];
+        this.distances = new long[n];
+        this.predecessors = new int[n];
+        for (int i = 0; i < n; i++) {
+            int index = (int) order[i];
+            this.ids[i] = ids[index];
+            this.distances[i] = distances[index];
+            this.predecessors[i] = predecessors[index] == -1 ? -1 : rank[predecessors[index]];
+        }
+    }
+
+    /**
+     * @return ID of the source vertex
+     */
+    public int source() {
+        return source;
+    }
+
+    /**
+     * @return vertex IDs in ascending order
+     */
+    public int[] vertexIds() {
+        return ids.clone();
+    }
+
+    /**
+     * @return distance from the source to each vertex of {@link #vertexIds()}, {@link #UNREACHABLE} if not reachable
+     */
+    public long[] distances() {
+        return distances.clone();
+    }
+
+    /**
+     * @return for each vertex of {@link #vertexIds()}, position of the previous vertex on its shortest path,
+     * -1 for the source and unreachable vertices
+     */
+    public int[] predecessors() {
+        return predecessors.clone();
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return true if the vertex can be reached from the source, false otherwise
+     */
+    public boolean hasPathTo(int id) {
+        return distanceTo(id) != UNREACHABLE;
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return distance from the source, {@link #UNREACHABLE} if the vertex is not reachable or does not exist
+     */
+    public long distanceTo(int id) {
+        int i = Arrays.binarySearch(ids, id);
+        return i < 0 ? UNREACHABLE : distances[i];
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return shortest path from the source to the vertex, null if the vertex is not reachable or does not exist
+     */
+    public GraphPath pathTo(int id) {
+        int i = Arrays.binarySearch(ids, id);
+        if (i < 0 || distances[i] == UNREACHABLE) {
+            return null;
+        }
+        int length = 1;
+        for (int p = predecessors[i]; p != -1; p = predecessors[p]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int p = i; p != -1; p = predecessors[p]) {
+            path[--length] = ids[p];
+        }
+        return new GraphPath(path, distances[i]);
+    }
+}
@@ -0,0 +1,465 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Travelling salesman tours for complete graphs whose weights follow the triangle inequality
+ * (metric graphs), such as distances between cities.
+ * <p>
+ * The starting tour comes from Christofides' algorithm: a MST from {@link MyGraph#createMST()},
+ * a matching of its odd-degree vertices, an Euler tour of both, and shortcuts past repeated vertices.
+ * The matching is greedy and then improved by swapping partners, rather than an exact minimum weight
+ * matching, so that thousands of cities stay within seconds. The tour is then improved with 2-opt and
+ * Or-opt moves, restricted to the nearest neighbors of each city, until no move helps or time runs out.
+ */
+public final class TspSolver {
+    /**
+     * Number of nearest neighbors of each city that local search moves are tried against
+     */
+    private static final int NEIGHBORS = 10;
+
+    private final CsrGraph<?> graph;
+    private final int n;
+    private final long deadline;
+    //nearest neighbors of each city, NEIGHBORS per city, closest first
+    private int[] nearest;
+    private int k;
+    //city at each position of the tour, and position of each city
+    private int[] tour;
+    private int[] position;
+
+    private TspSolver(CsrGraph<?> graph, long timeBudgetMillis) {
+        this.graph = graph;
+        this.n = graph.numVertices();
+        this.deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+    }
+
+    /**
+     * {@link #solve(MyGraph, long, int) solve} without checking the triangle inequality
+     */
+    public static GraphPath solve(MyGraph<?> graph, long timeBudgetMillis) throws IllegalStateException {
+        return solve(graph, timeBudgetMillis, 0);
+    }
+
+    /**
+     * Finds a short tour that visits every vertex exactly once and returns to where it started.
+     * Local search stops once the time budget is spent; the Christofides tour is always built in full.
+     *
+     * @param graph            complete graph with non-negative weights
+     * @param timeBudgetMillis time that local search may use, in milliseconds
+     * @param triangleSamples  number of random triples to check against the triangle inequality first, 0 to skip
+     * @return closed tour, whose first and last vertices are the same
+     * @throws IllegalStateException if the graph is empty, not complete, or fails the triangle inequality check
+     */
+    public static GraphPath solve(MyGraph<?> graph, long timeBudgetMillis, int triangleSamples) throws IllegalStateException {
+        CsrGraph<?> csr = graph.toCsr();
+        checkComplete(csr);
+        if (triangleSamples > 0 && !satisfiesTriangleInequality(csr, triangleSamples, new Random())) {
+            throw new IllegalStateException("This graph does not follow the triangle inequality");
+        }
+        TspSolver solver = new TspSolver(csr, timeBudgetMillis);
+        return solver.solve();
+    }
+
+    /**
+     * Checks random triples of vertices (a, b, c) for weight(a, c) <= weight(a, b) + weight(b, c),
+     * instead of all O(V^3) of them. A true result is evidence, not proof, that the graph is metric.
+     *
+     * @param graph   complete graph
+     * @param samples number of triples to check
+     * @param seed    seed of the random triples
+     * @return false if a sampled triple breaks the triangle inequality, true otherwise
+     * @throws IllegalStateException if the graph is not complete
+     */
+    public static boolean satisfiesTriangleInequality(MyGraph<?> graph, int samples, long seed) throws IllegalStateException {
+        CsrGraph<?> csr = graph.toCsr();
+        checkComplete(csr);
+        return satisfiesTriangleInequality(csr, samples, new Random(seed));
+    }
+
+    private static boolean satisfiesTriangleInequality(CsrGraph<?> graph, int samples, Random random) {
+        int n = graph.numVertices();
+        if (n < 3) {
+            return true;
+        }
+        for (int s = 0; s < samples; s++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            int c = random.nextInt(n);
+            if (a == b || b == c || a == c) {
+                continue;
+            }
+            if ((long) distance(graph, a, c) > (long) distance(graph, a, b) + distance(graph, b, c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void checkComplete(CsrGraph<?> graph) {
+        int n = graph.numVertices();
+        if (n == 0) {
+            throw new IllegalStateException("This graph is empty");
+        }
+        for (int i = 0; i < n; i++) {
+            if (graph.edgesEnd(i) - graph.edgesStart(i) != n - 1) {
+                throw new IllegalStateException("This graph is not complete");
+            }
+        }
+    }
+
+    /**
+     * In a complete CSR graph the neighbors of every vertex are all other vertices in order,
+     * so the position of an edge can be computed instead of searched for
+     */
+    private static int distance(CsrGraph<?> graph, int a, int b) {
+        return graph.weight(graph.edgesStart(a) + (b < a ? b : b - 1));
+    }
+
+    private int distance(int a, int b) {
+        return distance(graph, a, b);
+    }
+
+    private boolean outOfTime() {
+        return System.nanoTime() - deadline > 0;
+    }
+
+    private GraphPath solve() {
+        if (n < 3) {
+            int[] cities = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                cities[i] = graph.idAt(i);
+            }
+            cities[n] = graph.idAt(0);
+            return new GraphPath(cities, n == 2 ? 2L * distance(0, 1) : 0);
+        }
+        findNearestNeighbors();
+        christofides();
+        boolean improved = true;
+        while (improved && !outOfTime()) {
+            improved = twoOpt();
+            improved |= orOpt();
+        }
+
+        int[] cities = new int[n + 1];
+        long weight = 0;
+        for (int i = 0; i < n; i++) {
+            cities[i] = graph.idAt(tour[i]);
+            weight += distance(tour[i], tour[(i + 1) % n]);
+        }
+        cities[n] = cities[0];
+        return new GraphPath(cities, weight);
+    }
+
+    private void findNearestNeighbors() {
+        k = Math.min(NEIGHBORS, n - 1);
+        nearest = new int[n * k];
+        int[] best = new int[k];
+        for (int a = 0; a < n; a++) {
+            int found = 0;
+            for (int b = 0; b < n; b++) {
+                if (b == a) {
+                    continue;
+                }
+                int d = distance(a, b);
+                if (found == k && d >= distance(a, best[k - 1])) {
+                    continue;
+                }
+                //insertion into the sorted list of the closest cities so far
+                int i = found < k ? found++ : k - 1;
+                while (i > 0 && distance(a, best[i - 1]) > d) {
+                    best[i] = best[i - 1];
+                    i--;
+                }
+                best[i] = b;
+            }
+            System.arraycopy(best, 0, nearest, a * k, k);
+        }
+    }
+
+    /* Christofides' algorithm */
+
+    private void christofides() {
+        //MST edges as dense indices
+        MyGraph<?> mst = graph.createMST();
+        int[] degree = new int[n];
+        int[] from = new int[n - 1 + n / 2];
+        int[] to = new int[from.length];
+        int[] m = {0};
+        for (int i = 0; i < n; i++) {
+            final int a = i;
+            mst.forEachNeighbor(graph.idAt(a), (neighbor, weight) -> {
+                int b = graph.indexOf(neighbor);
+                degree[a]++;
+                if (a < b) {
+                    from[m[0]] = a;
+                    to[m[0]] = b;
+                    m[0]++;
+                }
+            });
+        }
+        int edges = m[0];
+
+        int odd = 0;
+        int[] oddVertices = new int[n];
+        for (int i = 0; i < n; i++) {
+            if ((degree[i] & 1) == 1) {
+                oddVertices[odd++] = i;
+            }
+        }
+        int[] mate = matchOddVertices(Arrays.copyOf(oddVertices, odd));
+        for (int i = 0; i < odd; i++) {
+            int a = oddVertices[i];
+            if (a < mate[a]) {
+                from[edges] = a;
+                to[edges] = mate[a];
+                edges++;
+            }
+        }
+        eulerTourShortcut(from, to, edges);
+    }
+
+    /**
+     * Greedy matching of the cheapest pairs first, then swaps of partners between two pairs while that helps
+     *
+     * @param odd vertices to match, there is always an even number of them
+     * @return partner of every matched vertex, by dense index
+     */
+    private int[] matchOddVertices(int[] odd) {
+        int count = odd.length;
+        int[] mate = new int[n];
+        Arrays.fill(mate, -1);
+        //weight in the high half, pair number in the low half
+        long[] pairs = new long[(int) ((long) count * (count - 1) / 2)];
+        int p = 0;
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                pairs[p++] = ((long) distance(odd[i], odd[j]) << 32) | ((long) i * count + j);
+            }
+        }
+        Arrays.sort(pairs);
+        for (long pair : pairs) {
+            long number = pair & 0xFFFFFFFFL;
+            int a = odd[(int) (number / count)];
+            int b = odd[(int) (number % count)];
+            if (mate[a] == -1 && mate[b] == -1) {
+                mate[a] = b;
+                mate[b] = a;
+            }
+        }
+
+        boolean improved = true;
+        while (improved && !outOfTime()) {
+            improved = false;
+            for (int a : odd) {
+                int b = mate[a];
+                for (int i = a * k; i < a * k + k; i++) {
+                    int c = nearest[i];
+                    int d = mate[c];
+                    if (d == -1 || c == b || d == a) {
+                        continue;
+                    }
+                    if (distance(a, c) + distance(b, d) < distance(a, b) + distance(c, d)) {
+                        mate[a] = c;
+                        mate[c] = a;
+                        mate[b] = d;
+                        mate[d] = b;
+                        b = c;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return mate;
+    }
+
+    /**
+     * Walks an Euler tour of the multigraph with Hierholzer's algorithm, and keeps only the
+     * first visit of every vertex
+     */
+    private void eulerTourShortcut(int[] from, int[] to, int edges) {
+        int[] start = new int[n + 1];
+        for (int e = 0; e < edges; e++) {
+            start[from[e] + 1]++;
+            start[to[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            start[i + 1] += start[i];
+        }
+        int[] incident = new int[2 * edges];
+        int[] fill = Arrays.copyOf(start, n);
+        for (int e = 0; e < edges; e++) {
+            incident[fill[from[e]]++] = e;
+            incident[fill[to[e]]++] = e;
+        }
+        //next incident edge to try for every vertex
+        int[] next = Arrays.copyOf(start, n);
+        boolean[] used = new boolean[edges];
+        boolean[] visited = new boolean[n];
+        int[] stack = new int[edges + 1];
+        int top = 0;
+        stack[top++] = 0;
+        tour = new int[n];
+        position = new int[n];
+        int length = 0;
+        while (top > 0) {
+            int v = stack[top - 1];
+            while (next[v] < start[v + 1] && used[incident[next[v]]]) {
+                next[v]++;
+            }
+            if (next[v] == start[v + 1]) {
+                //v is final in the circuit, the reverse of the pop order is also an Euler tour
+                top--;
+                if (!visited[v]) {
+                    visited[v] = true;
+                    position[v] = length;
+                    tour[length++] = v;
+                }
+            } else {
+                int e = incident[next[v]];
+                used[e] = true;
+                stack[top++] = from[e] == v ? to[e] : from[e];
+            }
+        }
+    }
+
+    /* Local search */
+
+    private int next(int city) {
+        return tour[position[city] + 1 == n ? 0 : position[city] + 1];
+    }
+
+    private int prev(int city) {
+        return tour[position[city] == 0 ? n - 1 : position[city] - 1];
+    }
+
+    /**
+     * Reverses the cities at tour positions i to j inclusive, wrapping around the end.
+     * The shorter of the segment and the rest of the tour is reversed, both give the same cycle.
+     */
+    private void reverse(int i, int j) {
+        int length = ((j - i + n) % n) + 1;
+        if (2 * length > n) {
+            int temp = i;
+            i = (j + 1) % n;
+            j = (temp - 1 + n) % n;
+            length = n - length;
+        }
+        for (int s = 0; s < length / 2; s++) {
+            int a = tour[i];
+            int b = tour[j];
+            tour[i] = b;
+            position[b] = i;
+            tour[j] = a;
+            position[a] = j;
+            i = i + 1 == n ? 0 : i + 1;
+            j = j == 0 ? n - 1 : j - 1;
+        }
+    }
+
+    /**
+     * One pass of 2-opt: replaces two tour edges with two shorter ones by reversing the path between them
+     *
+     * @return true if the tour was improved
+     */
+    private boolean twoOpt() {
+        boolean improved = false;
+        for (int a = 0; a < n && !outOfTime(); a++) {
+            for (int direction = 0; direction < 2; direction++) {
+                int b = direction == 0 ? next(a) : prev(a);
+                int ab = distance(a, b);
+                for (int i = a * k; i < a * k + k; i++) {
+                    int c = nearest[i];
+                    int ac = distance(a, c);
+                    //the new edge must be shorter than the one it replaces
+                    if (ac >= ab) {
+                        break;
+                    }
+                    int d = direction == 0 ? next(c) : prev(c);
+                    if (c == b || d == a) {
+                        continue;
+                    }
+                    if ((long) ac + distance(b, d) < (long) ab + distance(c, d)) {
+                        if (direction == 0) {
+                            reverse(position[b], position[c]);
+                        } else {
+                            reverse(position[a], position[d]);
+                        }
+                        improved = true;
+                        b = direction == 0 ? next(a) : prev(a);
+                        ab = distance(a, b);
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * One pass of Or-opt: moves segments of up to 3 cities, possibly reversed, next to one of the
+     * nearest neighbors of their ends
+     *
+     * @return true if the tour was improved
+     */
+    private boolean orOpt() {
+        boolean improved = false;
+        for (int length = 1; length <= 3 && n > length + 2; length++) {
+            for (int i = 0; i < n && !outOfTime(); i++) {
+                int first = tour[i];
+                int last = tour[(i + length - 1) % n];
+                int before = prev(first);
+                int after = next(last);
+                long removed = (long) distance(before, first) + distance(last, after) - distance(before, after);
+                boolean moved = false;
+                for (int end = 0; end < 2 && !moved; end++) {
+                    int city = end == 0 ? first : last;
+                    for (int j = city * k; j < city * k + k; j++) {
+                        int c = nearest[j];
+                        if (inSegment(c, i, length)) {
+                            continue;
+                        }
+                        //neighbor of c once the segment is taken out
+                        int cn = next(c) == first ? after : next(c);
+                        long forward = (long) distance(c, first) + distance(last, cn) - distance(c, cn);
+                        long backward = (long) distance(c, last) + distance(first, cn) - distance(c, cn);
+                        if (Math.min(forward, backward) < removed) {
+                            moveSegment(i, length, c, backward < forward);
+                            moved = true;
+                            break;
+                        }
+                    }
+                }
+                improved |= moved;
+            }
+        }
+        return improved;
+    }
+
+    private boolean inSegment(int city, int start, int length) {
+        return (position[city] - start + n) % n < length;
+    }
+
+    /**
+     * Takes the segment starting at tour position start out of the tour and puts it back after city c
+     */
+    private void moveSegment(int start, int length, int c, boolean reversed) {
+        int[] segment = new int[length];
+        for (int s = 0; s < length; s++) {
+            segment[s] = tour[(start + s) % n];
+        }
+        int[] rebuilt = new int[n];
+        int size = 0;
+        //walk the rest of the tour, from the city after the segment round to the city before it
+        for (int s = 0, i = (start + length) % n; s < n - length; s++, i = (i + 1) % n) {
+            rebuilt[size++] = tour[i];
+            if (tour[i] == c) {
+                for (int t = 0; t < length; t++) {
+                    rebuilt[size++] = segment[reversed ? length - 1 - t : t];
+                }
+            }
+        }
+        tour = rebuilt;
+        for (int i = 0; i < n; i++) {
+            position[tour[i]] = i;
+        }
+    }
+}
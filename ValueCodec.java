@@ -0,0 +1,70 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Turns vertex values into bytes and back, for {@link GraphFile}.
+ * {@link #read(DataInput)} must consume exactly the bytes that {@link #write(Object, DataOutput)} wrote.
+ */
+public interface ValueCodec<V> {
+
+    void write(V value, DataOutput out) throws IOException;
+
+    V read(DataInput in) throws IOException;
+
+    /**
+     * @return codec that stores nothing, every value is read back as null
+     */
+    static <V> ValueCodec<V> none() {
+        return new ValueCodec<V>() {
+            @Override
+            public void write(V value, DataOutput out) {
+            }
+
+            @Override
+            public V read(DataInput in) {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * @return codec for strings (null allowed), stored as modified UTF-8
+     */
+    static ValueCodec<String> strings() {
+        return new ValueCodec<String>() {
+            @Override
+            public void write(String value, DataOutput out) throws IOException {
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    out.writeUTF(value);
+                }
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                return in.readBoolean() ? in.readUTF() : null;
+            }
+        };
+    }
+
+    /**
+     * @return codec for integers (null allowed)
+     */
+    static ValueCodec<Integer> integers() {
+        return new ValueCodec<Integer>() {
+            @Override
+            public void write(Integer value, DataOutput out) throws IOException {
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    out.writeInt(value);
+                }
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return in.readBoolean() ? in.readInt() : null;
+            }
+        };
+    }
+}
@@ -0,0 +1,257 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Named columns of primitive vertex attributes, stored by dense index. A column of n values costs one
+ * array of n ints, longs or doubles, instead of one boxed object and one pointer per vertex.
+ * Columns follow the dense indices of the graph: a new vertex gets the default value of every column,
+ * and removing a vertex moves the values of the last dense index into its slot.
+ */
+final class VertexColumns {
+    private final Map<String, Column> columns;
+    private int size;
+    private int capacity;
+
+    /**
+     * @param size number of vertices in the graph
+     */
+    VertexColumns(int size) {
+        this.columns = new HashMap<>();
+        this.size = size;
+        this.capacity = size;
+    }
+
+    /**
+     * @return false if there is already a column with that name
+     */
+    boolean add(String name, Column column) {
+        if (columns.containsKey(name)) {
+            return false;
+        }
+        column.grow(capacity);
+        column.fill(0, size);
+        columns.put(name, column);
+        return true;
+    }
+
+    boolean remove(String name) {
+        return columns.remove(name) != null;
+    }
+
+    boolean contains(String name) {
+        return columns.containsKey(name);
+    }
+
+    boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no int column with that name
+     */
+    IntColumn ints(String name) {
+        return get(name, IntColumn.class, "ints");
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no long column with that name
+     */
+    LongColumn longs(String name) {
+        return get(name, LongColumn.class, "longs");
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no double column with that name
+     */
+    DoubleColumn doubles(String name) {
+        return get(name, DoubleColumn.class, "doubles");
+    }
+
+    /**
+     * Makes room for the given number of vertices in every column
+     */
+    void ensureCapacity(int vertices) {
+        if (vertices <= capacity) {
+            return;
+        }
+        capacity = Math.max(vertices, Math.max(16, capacity + (capacity >> 1)));
+        for (Column column : columns.values()) {
+            column.grow(capacity);
+        }
+    }
+
+    /**
+     * Call after a vertex was added at the next dense index
+     */
+    void addVertex() {
+        ensureCapacity(size + 1);
+        for (Column column : columns.values()) {
+            column.fill(size, size + 1);
+        }
+        size++;
+    }
+
+    /**
+     * Call after a vertex was removed, and the last dense vertex was moved into its slot
+     *
+     * @param index former dense index of the removed vertex
+     */
+    void removeVertex(int index) {
+        size--;
+        if (index != size) {
+            for (Column column : columns.values()) {
+                column.move(size, index);
+            }
+        }
+    }
+
+    /**
+     * @return estimated number of bytes held by the arrays of every column
+     */
+    long sizeInBytes() {
+        long bytes = 0;
+        for (Column column : columns.values()) {
+            bytes += column.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private <C extends Column> C get(String name, Class<C> type, String kind) {
+        Column column = columns.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("There is no column " + name);
+        }
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("Column " + name + " does not hold " + kind);
+        }
+        return type.cast(column);
+    }
+
+    abstract static class Column {
+        /**
+         * Resizes the values to the given capacity, which is never less than the number of vertices
+         */
+        abstract void grow(int capacity);
+
+        /**
+         * Sets the values of dense indices from..to-1 to the default value
+         */
+        abstract void fill(int from, int to);
+
+        abstract void move(int from, int to);
+
+        abstract long sizeInBytes();
+    }
+
+    static final class IntColumn extends Column {
+        private final int defaultValue;
+        private int[] values = new int[0];
+
+        IntColumn(int defaultValue) {
+            this.defaultValue = defaultValue;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 4L * values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void fill(int from, int to) {
+            Arrays.fill(values, from, to, defaultValue);
+        }
+
+        @Override
+        void move(int from, int to) {
+            values[to] = values[from];
+        }
+    }
+
+    static final class LongColumn extends Column {
+        private final long defaultValue;
+        private long[] values = new long[0];
+
+        LongColumn(long defaultValue) {
+            this.defaultValue = defaultValue;
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+
+        void set(int index, long value) {
+            values[index] = value;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 8L * values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void fill(int from, int to) {
+            Arrays.fill(values, from, to, defaultValue);
+        }
+
+        @Override
+        void move(int from, int to) {
+            values[to] = values[from];
+        }
+    }
+
+    static final class DoubleColumn extends Column {
+        private final double defaultValue;
+        private double[] values = new double[0];
+
+        DoubleColumn(double defaultValue) {
+            this.defaultValue = defaultValue;
+        }
+
+        double get(int index) {
+            return values[index];
+        }
+
+        void set(int index, double value) {
+            values[index] = value;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 8L * values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void fill(int from, int to) {
+            Arrays.fill(values, from, to, defaultValue);
+        }
+
+        @Override
+        void move(int from, int to) {
+            values[to] = values[from];
+        }
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Runs a {@link VertexProgram} over a CSR snapshot. Vertices are split into ranges of {@link #GRAIN},
+ * each computed by one task with its own {@link VertexContext}. Messages are combined as they are sent
+ * into one slot per vertex, with a compare-and-set on its raw bits, and a bitset records which vertices
+ * got any. Both are double-buffered: the ones read in a superstep are cleared as they are read, and
+ * become the ones written in the next.
+ */
+final class VertexComputation {
+    //vertices per task, a multiple of 64 so that no two tasks share a word of the bitsets
+    private static final int GRAIN = 1 << 11;
+
+    final CsrGraph<?> csr;
+    final double[] values;
+    final boolean[] halted;
+    //global sums of the previous superstep
+    final double[] aggregated;
+    private final VertexProgram program;
+    private final double identity;
+    private final boolean parallel;
+    //number of vertices of every task still active after the previous superstep
+    private final int[] active;
+    //combined message of every vertex as raw bits, and one bit per vertex that got any
+    private AtomicLongArray inbox;
+    private AtomicLongArray inboxFlags;
+    private AtomicLongArray outbox;
+    private AtomicLongArray outboxFlags;
+
+    /**
+     * @param parallel true to run the tasks of every superstep on the fork-join pool of the calling thread
+     */
+    VertexComputation(CsrGraph<?> csr, VertexProgram program, boolean parallel) {
+        int n = csr.numVertices();
+        this.csr = csr;
+        this.program = program;
+        this.identity = program.identity();
+        this.parallel = parallel;
+        this.values = new double[n];
+        this.halted = new boolean[n];
+        this.aggregated = new double[program.aggregators()];
+        this.active = new int[(n + GRAIN - 1) / GRAIN];
+        Arrays.fill(active, GRAIN);
+        this.inbox = messages(n);
+        this.outbox = messages(n);
+        this.inboxFlags = new AtomicLongArray((n + 63) >>> 6);
+        this.outboxFlags = new AtomicLongArray((n + 63) >>> 6);
+        for (int v = 0; v < n; v++) {
+            values[v] = program.initialValue(csr.idAt(v), csr.edgesEnd(v) - csr.edgesStart(v), n);
+        }
+    }
+
+    /**
+     * Runs supersteps until every vertex halted and no messages are in flight
+     *
+     * @param maxSupersteps largest number of supersteps to run
+     */
+    VertexValues run(int maxSupersteps) {
+        int n = csr.numVertices();
+        int tasks = (n + GRAIN - 1) / GRAIN;
+        VertexContext[] contexts = new VertexContext[tasks];
+        for (int t = 0; t < tasks; t++) {
+            contexts[t] = new VertexContext(this, aggregated.length);
+        }
+        int superstep = 0;
+        while (superstep < maxSupersteps) {
+            int step = superstep;
+            IntStream range = IntStream.range(0, tasks);
+            int stillActive = (parallel ? range.parallel() : range).map(t -> compute(contexts[t], t, step)).sum();
+            //partial sums are added in task order, so the aggregates do not depend on scheduling
+            Arrays.fill(aggregated, 0);
+            for (VertexContext context : contexts) {
+                for (int a = 0; a < aggregated.length; a++) {
+                    aggregated[a] += context.partials[a];
+                    context.partials[a] = 0;
+                }
+            }
+            AtomicLongArray read = inbox;
+            AtomicLongArray readFlags = inboxFlags;
+            inbox = outbox;
+            inboxFlags = outboxFlags;
+            outbox = read;
+            outboxFlags = readFlags;
+            superstep++;
+            if (stillActive == 0 && !anyMessages(0, inboxFlags.length())) {
+                break;
+            }
+        }
+        int[] ids = new int[n];
+        for (int v = 0; v < n; v++) {
+            ids[v] = csr.idAt(v);
+        }
+        return new VertexValues(ids, values, superstep);
+    }
+
+    /**
+     * Merges a message into the slot of the target for the next superstep
+     */
+    void send(int target, double message) {
+        long old;
+        long combined;
+        do {
+            old = outbox.get(target);
+            combined = Double.doubleToRawLongBits(program.combine(Double.longBitsToDouble(old), message));
+        } while (old != combined && !outbox.compareAndSet(target, old, combined));
+        int word = target >>> 6;
+        long bit = 1L << target;
+        long flags = outboxFlags.get(word);
+        while ((flags & bit) == 0 && !outboxFlags.compareAndSet(word, flags, flags | bit)) {
+            flags = outboxFlags.get(word);
+        }
+    }
+
+    /**
+     * Computes the active vertices of one task
+     *
+     * @return number of vertices of the task that are still active
+     */
+    private int compute(VertexContext context, int task, int superstep) {
+        int from = task * GRAIN;
+        int to = Math.min(from + GRAIN, csr.numVertices());
+        //a range whose vertices all halted only has work if it got messages
+        if (active[task] == 0 && !anyMessages(from >>> 6, (to + 63) >>> 6)) {
+            return 0;
+        }
+        long identityBits = Double.doubleToRawLongBits(identity);
+        int count = 0;
+        for (int v = from; v < to; v++) {
+            boolean received = (inboxFlags.get(v >>> 6) & (1L << v)) != 0;
+            if (halted[v] && !received) {
+                continue;
+            }
+            double message = identity;
+            if (received) {
+                message = Double.longBitsToDouble(inbox.get(v));
+                //ready to be written again when the buffers swap
+                inbox.set(v, identityBits);
+            }
+            halted[v] = false;
+            context.moveTo(v, superstep, received, message);
+            program.compute(context);
+            if (!halted[v]) {
+                count++;
+            }
+        }
+        for (int word = from >>> 6; word < (to + 63) >>> 6; word++) {
+            inboxFlags.set(word, 0);
+        }
+        active[task] = count;
+        return count;
+    }
+
+    /**
+     * @return true if any of the given words of the bitset of received messages is set
+     */
+    private boolean anyMessages(int from, int to) {
+        for (int word = from; word < to; word++) {
+            if (inboxFlags.get(word) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AtomicLongArray messages(int n) {
+        AtomicLongArray messages = new AtomicLongArray(n);
+        long identityBits = Double.doubleToRawLongBits(identity);
+        for (int v = 0; v < n; v++) {
+            messages.set(v, identityBits);
+        }
+        return messages;
+    }
+}
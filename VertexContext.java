@@ -0,0 +1,135 @@
+/**
+ * The vertex that a {@link VertexProgram} is computing, with its message, value and edges. Every worker
+ * thread reuses one context for all the vertices of its range, so it must not be kept after
+ * {@link VertexProgram#compute(VertexContext)} returns.
+ */
+public final class VertexContext {
+    private final VertexComputation computation;
+    //global sums added to in this superstep by the vertices of this context
+    final double[] partials;
+    private int vertex;
+    private int superstep;
+    private boolean hasMessage;
+    private double message;
+
+    VertexContext(VertexComputation computation, int aggregators) {
+        this.computation = computation;
+        this.partials = new double[aggregators];
+    }
+
+    void moveTo(int vertex, int superstep, boolean hasMessage, double message) {
+        this.vertex = vertex;
+        this.superstep = superstep;
+        this.hasMessage = hasMessage;
+        this.message = message;
+    }
+
+    /**
+     * @return ID of the vertex
+     */
+    public int id() {
+        return computation.csr.idAt(vertex);
+    }
+
+    /**
+     * @return number of the superstep, starting at 0
+     */
+    public int superstep() {
+        return superstep;
+    }
+
+    /**
+     * @return number of vertices in the graph
+     */
+    public int numVertices() {
+        return computation.csr.numVertices();
+    }
+
+    /**
+     * @return number of edges of the vertex
+     */
+    public int degree() {
+        return computation.csr.edgesEnd(vertex) - computation.csr.edgesStart(vertex);
+    }
+
+    /**
+     * @param i position between 0 and {@link #degree()} - 1, in ascending order of neighbor IDs
+     * @return ID of the i-th neighbor
+     */
+    public int neighborId(int i) {
+        return computation.csr.idAt(computation.csr.target(computation.csr.edgesStart(vertex) + i));
+    }
+
+    /**
+     * @param i position between 0 and {@link #degree()} - 1
+     * @return weight of the edge to the i-th neighbor
+     */
+    public int edgeWeight(int i) {
+        return computation.csr.weight(computation.csr.edgesStart(vertex) + i);
+    }
+
+    /**
+     * @return true if messages were sent to the vertex in the previous superstep
+     */
+    public boolean hasMessage() {
+        return hasMessage;
+    }
+
+    /**
+     * @return all messages sent to the vertex in the previous superstep, combined. The identity of the
+     * combiner if there were none
+     */
+    public double message() {
+        return message;
+    }
+
+    public double value() {
+        return computation.values[vertex];
+    }
+
+    public void setValue(double value) {
+        computation.values[vertex] = value;
+    }
+
+    /**
+     * Sends a message to the i-th neighbor, delivered in the next superstep
+     *
+     * @param i position between 0 and {@link #degree()} - 1
+     */
+    public void sendTo(int i, double message) {
+        computation.send(computation.csr.target(computation.csr.edgesStart(vertex) + i), message);
+    }
+
+    /**
+     * Sends the same message to every neighbor, delivered in the next superstep
+     */
+    public void sendToNeighbors(double message) {
+        for (int e = computation.csr.edgesStart(vertex); e < computation.csr.edgesEnd(vertex); e++) {
+            computation.send(computation.csr.target(e), message);
+        }
+    }
+
+    /**
+     * Skips the vertex in later supersteps, until a message arrives for it
+     */
+    public void voteToHalt() {
+        computation.halted[vertex] = true;
+    }
+
+    /**
+     * Adds to a global sum, which every vertex can read in the next superstep
+     *
+     * @param aggregator position between 0 and {@link VertexProgram#aggregators()} - 1
+     */
+    public void aggregate(int aggregator, double value) {
+        partials[aggregator] += value;
+    }
+
+    /**
+     * @param aggregator position between 0 and {@link VertexProgram#aggregators()} - 1
+     * @return sum of everything added to the aggregator in the previous superstep, 0 in the first one
+     */
+    public double aggregated(int aggregator) {
+        return computation.aggregated[aggregator];
+    }
+}
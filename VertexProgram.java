@@ -0,0 +1,49 @@
+/**
+ * Vertex-centric (Pregel style) computation, run with {@link MyGraph#compute(VertexProgram, int)}.
+ * <p>
+ * The computation is a series of supersteps. In every superstep, {@link #compute(VertexContext)} runs once
+ * for every active vertex, in parallel over ranges of vertices: it reads the messages sent to the vertex
+ * in the previous superstep, updates the value of the vertex, and sends messages to its neighbors.
+ * Messages to the same vertex are merged with {@link #combine(double, double)} as they are sent, so every
+ * vertex receives at most one message per superstep and no message is ever queued.
+ * <p>
+ * All vertices are active in the first superstep. A vertex that calls {@link VertexContext#voteToHalt()}
+ * is skipped until a message arrives for it. The computation ends once every vertex has halted and no
+ * messages are in flight, or after the given number of supersteps.
+ * <p>
+ * Values and messages are doubles, which hold any int exactly. {@link VertexPrograms} has ready-made programs.
+ */
+public interface VertexProgram {
+    /**
+     * @param id     ID of the vertex
+     * @param degree number of edges of the vertex
+     * @param n      number of vertices in the graph
+     * @return value of the vertex before the first superstep
+     */
+    double initialValue(int id, int degree, int n);
+
+    /**
+     * Runs for one vertex in one superstep. May be called concurrently for different vertices, so it must
+     * only change the vertex it is given.
+     */
+    void compute(VertexContext vertex);
+
+    /**
+     * Merges two messages to the same vertex. Must be commutative and associative, as messages are merged
+     * in any order.
+     */
+    double combine(double message1, double message2);
+
+    /**
+     * @return value that {@link #combine(double, double)} leaves unchanged, such as 0 for a sum
+     */
+    double identity();
+
+    /**
+     * @return number of global sums that vertices can add to in one superstep and read in the next,
+     * see {@link VertexContext#aggregate(int, double)}
+     */
+    default int aggregators() {
+        return 0;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Ready-made programs for {@link MyGraph#compute(VertexProgram, int)}.
+ */
+public final class VertexPrograms {
+    private VertexPrograms() {
+    }
+
+    /**
+     * PageRank, treating every edge as a link in both directions and ignoring weights. Vertices without
+     * edges spread their rank over all vertices. Ends once the ranks of one superstep differ from those of
+     * the previous one by less than the tolerance in total
+     *
+     * @param damping   probability of following a link rather than jumping to any vertex, usually 0.85
+     * @param tolerance largest total change of the ranks at which to stop
+     * @return program whose values are the ranks of the vertices, adding up to 1
+     * @throws IllegalArgumentException if damping is not between 0 and 1
+     */
+    public static VertexProgram pageRank(double damping, double tolerance) {
+        if (!(damping >= 0 && damping <= 1)) {
+            throw new IllegalArgumentException("Damping must be between 0 and 1");
+        }
+        return new VertexProgram() {
+            //rank of the vertices without edges, and total change of the ranks
+            private static final int DANGLING = 0;
+            private static final int DELTA = 1;
+
+            @Override
+            public double initialValue(int id, int degree, int n) {
+                return 1.0 / n;
+            }
+
+            @Override
+            public void compute(VertexContext vertex) {
+                if (vertex.superstep() > 0) {
+                    //the change of the first update is only known one superstep later
+                    if (vertex.superstep() > 1 && vertex.aggregated(DELTA) < tolerance) {
+                        vertex.voteToHalt();
+                        return;
+                    }
+                    int n = vertex.numVertices();
+                    double rank = (1 - damping) / n + damping * (vertex.message() + vertex.aggregated(DANGLING) / n);
+                    vertex.aggregate(DELTA, Math.abs(rank - vertex.value()));
+                    vertex.setValue(rank);
+                }
+                if (vertex.degree() == 0) {
+                    vertex.aggregate(DANGLING, vertex.value());
+                } else {
+                    vertex.sendToNeighbors(vertex.value() / vertex.degree());
+                }
+            }
+
+            @Override
+            public double combine(double message1, double message2) {
+                return message1 + message2;
+            }
+
+            @Override
+            public double identity() {
+                return 0;
+            }
+
+            @Override
+            public int aggregators() {
+                return 2;
+            }
+        };
+    }
+
+    /**
+     * Connected components by propagating the smallest vertex ID: every vertex ends with the smallest ID
+     * of its component. Takes one superstep more than the largest eccentricity of a component's smallest vertex
+     *
+     * @return program whose values are the smallest vertex ID of the component of each vertex
+     */
+    public static VertexProgram connectedComponents() {
+        return new VertexProgram() {
+            @Override
+            public double initialValue(int id, int degree, int n) {
+                return id;
+            }
+
+            @Override
+            public void compute(VertexContext vertex) {
+                if (vertex.superstep() == 0) {
+                    vertex.sendToNeighbors(vertex.value());
+                } else if (vertex.message() < vertex.value()) {
+                    vertex.setValue(vertex.message());
+                    vertex.sendToNeighbors(vertex.message());
+                }
+                vertex.voteToHalt();
+            }
+
+            @Override
+            public double combine(double message1, double message2) {
+                return Math.min(message1, message2);
+            }
+
+            @Override
+            public double identity() {
+                return Double.POSITIVE_INFINITY;
+            }
+        };
+    }
+
+    /**
+     * k-core, the largest subgraph in which every vertex has at least k edges, by repeatedly removing the
+     * vertices with less than k edges left. Every removed vertex tells its neighbors once, so O(V + E) work in total
+     *
+     * @param k smallest number of edges of the vertices in the core
+     * @return program whose values are the number of edges of each vertex within the core, -1 for the
+     * vertices outside of it
+     */
+    public static VertexProgram kCore(int k) {
+        return new VertexProgram() {
+            @Override
+            public double initialValue(int id, int degree, int n) {
+                return degree;
+            }
+
+            @Override
+            public void compute(VertexContext vertex) {
+                //messages are the number of neighbors removed in the previous superstep
+                double remaining = vertex.value() - vertex.message();
+                if (vertex.value() >= 0 && remaining < k) {
+                    vertex.setValue(-1);
+                    vertex.sendToNeighbors(1);
+                } else if (vertex.value() >= 0) {
+                    vertex.setValue(remaining);
+                }
+                vertex.voteToHalt();
+            }
+
+            @Override
+            public double combine(double message1, double message2) {
+                return message1 + message2;
+            }
+
+            @Override
+            public double identity() {
+                return 0;
+            }
+        };
+    }
+}
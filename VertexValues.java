@@ -0,0 +1,55 @@
+import java.util.Arrays;
+
+/**
+ * Value of every vertex at the end of a {@link VertexProgram}, as returned by
+ * {@link MyGraph#compute(VertexProgram, int)}. Later changes to the graph are not reflected.
+ */
+public final class VertexValues {
+    //vertex IDs in ascending order, and the value of each one
+    private final int[] ids;
+    private final double[] values;
+    private final int supersteps;
+
+    VertexValues(int[] ids, double[] values, int supersteps) {
+        this.ids = ids;
+        this.values = values;
+        this.supersteps = supersteps;
+    }
+
+    /**
+     * @param id ID of the vertex
+     * @return value of the vertex, NaN if the vertex does not exist
+     */
+    public double get(int id) {
+        int i = Arrays.binarySearch(ids, id);
+        return i < 0 ? Double.NaN : values[i];
+    }
+
+    /**
+     * @return vertex IDs in ascending order
+     */
+    public int[] vertexIds() {
+        return ids.clone();
+    }
+
+    /**
+     * @return value of every vertex, in the same order as {@link #vertexIds()}
+     */
+    public double[] values() {
+        return values.clone();
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int numVertices() {
+        return ids.length;
+    }
+
+    /**
+     * @return number of supersteps that ran
+     */
+    public int supersteps() {
+        return supersteps;
+    }
+}
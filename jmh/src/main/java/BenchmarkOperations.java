@@ -0,0 +1,183 @@
+import benchmarks.GraphOperation;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Builds the operations timed by the benchmarks in the benchmarks package, which cannot refer to the graph
+ * classes themselves as they sit in the default package.
+ */
+public final class BenchmarkOperations {
+    private static final long SEED = 42;
+    //label propagation settles in as many supersteps as the diameter, a million on the longest path
+    private static final int MAX_SUPERSTEPS = 1000;
+
+    private BenchmarkOperations() {
+    }
+
+    /**
+     * Generates a graph, then creates an operation on it
+     *
+     * @param operation name of the operation
+     * @param shape     random, powerlaw, grid or path
+     * @param edges     approximate number of edges
+     * @param samples   number of sampled vertices or vertex pairs
+     * @throws IllegalArgumentException if the operation or shape is unknown
+     */
+    public static GraphOperation create(String operation, String shape, int edges, int samples) {
+        MyGraph<Object> graph = generate(shape, edges);
+        int n = graph.numVertices();
+        Random random = new Random(SEED);
+        int[] vertices = random.ints(samples, 0, n).toArray();
+        int[] others = random.ints(samples, 0, n).toArray();
+        //removals walk a permutation, so that consecutive samples remove different vertices
+        int[] permutation = permutation(n, random);
+        switch (operation) {
+            case "isAdjacent":
+                return i -> graph.isAdjacent(vertices[i], others[i]);
+            case "getNeighbors":
+                return i -> graph.getNeighbors(vertices[i]);
+            case "forEachNeighbor": {
+                long[] sum = new long[1];
+                IntIntConsumer sink = (neighbor, weight) -> sum[0] += neighbor + weight;
+                return i -> {
+                    graph.forEachNeighbor(vertices[i], sink);
+                    return sum[0];
+                };
+            }
+            case "isConnected":
+                return i -> graph.isConnected();
+            case "connectedComponents":
+                return i -> graph.connectedComponents();
+            case "createMST":
+                return i -> graph.createMST(MyGraph.MSTStrategy.PRIM, true);
+            case "createMST/kruskal":
+                return i -> graph.createMST(MyGraph.MSTStrategy.KRUSKAL, true);
+            case "createMST/boruvka": {
+                CsrGraph<Object> csr = graph.toCsr();
+                return i -> csr.createMST(MyGraph.MSTStrategy.BORUVKA, true);
+            }
+            case "isConnected/offHeap": {
+                OffHeapGraph offHeap = graph.toOffHeap();
+                return i -> offHeap.isConnected();
+            }
+            case "createMST/offHeap": {
+                OffHeapGraph offHeap = graph.toOffHeap();
+                return i -> offHeap.createMST(MyGraph.MSTStrategy.PRIM, true);
+            }
+            case "pageRank":
+                return i -> graph.compute(VertexPrograms.pageRank(0.85, 1e-6), 100);
+            case "pageRank/parallel":
+                graph.setParallelism(Runtime.getRuntime().availableProcessors());
+                return i -> graph.compute(VertexPrograms.pageRank(0.85, 1e-6), 100);
+            case "pregel/cc":
+                return i -> graph.compute(VertexPrograms.connectedComponents(), MAX_SUPERSTEPS);
+            case "pregel/cc/parallel":
+                graph.setParallelism(Runtime.getRuntime().availableProcessors());
+                return i -> graph.compute(VertexPrograms.connectedComponents(), MAX_SUPERSTEPS);
+            case "kCore":
+                return i -> graph.compute(VertexPrograms.kCore(3), Integer.MAX_VALUE);
+            case "addVertex":
+                return mutation(i -> graph.addVertex(n, null), i -> graph.removeVertex(n));
+            case "addEdge/metrics":
+                graph.trackMetrics(true);
+                return addEdge(graph, samples, random);
+            case "addEdge":
+                return addEdge(graph, samples, random);
+            case "removeVertex/lazy":
+                graph.setLazyRemoval(true);
+                return removeVertex(graph, permutation);
+            case "removeVertex":
+                return removeVertex(graph, permutation);
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    /**
+     * @return builds a graph of the given shape with about the given number of edges
+     */
+    private static MyGraph<Object> generate(String shape, int edges) {
+        switch (shape) {
+            case "random":
+                //average degree 10
+                return GraphGenerator.random(edges / 5, 10.0 / (edges / 5 - 1), SEED);
+            case "powerlaw":
+                return GraphGenerator.powerLaw(edges / 5, 5, SEED);
+            case "grid":
+                int side = (int) Math.sqrt(edges / 2.0);
+                return GraphGenerator.grid(side, side, SEED);
+            case "path":
+                return GraphGenerator.path(edges + 1, SEED);
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+    }
+
+    /**
+     * Adds edges between pairs of vertices that are not adjacent, then removes them again
+     */
+    private static GraphOperation addEdge(MyGraph<Object> graph, int samples, Random random) {
+        int n = graph.numVertices();
+        int[] from = new int[samples];
+        int[] to = new int[samples];
+        for (int i = 0; i < samples; i++) {
+            do {
+                from[i] = random.nextInt(n);
+                to[i] = random.nextInt(n);
+            } while (from[i] == to[i] || graph.isAdjacent(from[i], to[i]));
+        }
+        return mutation(i -> graph.addEdge(from[i], to[i], 1), i -> graph.removeEdge(from[i], to[i]));
+    }
+
+    /**
+     * Removes vertices in the order of the permutation, then adds each one back with its edges, as kept by
+     * a CSR copy of the graph
+     */
+    private static GraphOperation removeVertex(MyGraph<Object> graph, int[] permutation) {
+        CsrGraph<Object> original = graph.toCsr();
+        return mutation(i -> graph.removeVertex(permutation[i % permutation.length]), i -> {
+            int id = permutation[i % permutation.length];
+            List<int[]> removed = original.getEdges(id);
+            graph.addVertex(id, null);
+            for (int[] edge : removed) {
+                graph.addEdge(id, edge[0], edge[1]);
+            }
+        });
+    }
+
+    /**
+     * @return operation that makes the change when run, and undoes it when restored
+     */
+    private static GraphOperation mutation(GraphOperation change, IntConsumer undo) {
+        return new GraphOperation() {
+            @Override
+            public Object run(int sample) {
+                return change.run(sample);
+            }
+
+            @Override
+            public void restore(int sample) {
+                undo.accept(sample);
+            }
+        };
+    }
+
+    /**
+     * @return IDs 0..n-1 in random order, by a Fisher-Yates shuffle
+     */
+    private static int[] permutation(int n, Random random) {
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++) {
+            permutation[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        return permutation;
+    }
+}
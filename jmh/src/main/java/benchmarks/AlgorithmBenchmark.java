@@ -0,0 +1,51 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Algorithms over the whole graph. The /parallel variants run on a pool of all cores, and the /offHeap
+ * ones on an {@code OffHeapGraph} copy of the graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-XX:MaxDirectMemorySize=4g"})
+public class AlgorithmBenchmark {
+    @Param({"isConnected", "connectedComponents", "createMST", "createMST/kruskal", "createMST/boruvka",
+            "isConnected/offHeap", "createMST/offHeap", "pageRank", "pageRank/parallel", "pregel/cc",
+            "pregel/cc/parallel", "kCore"})
+    public String operation;
+
+    @Param({"random", "powerlaw", "grid", "path"})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int edges;
+
+    private GraphOperation algorithm;
+
+    @Setup
+    public void setUp() {
+        algorithm = GraphOperations.create(operation, shape, edges);
+    }
+
+    @Benchmark
+    public void algorithm(Blackhole blackhole) {
+        blackhole.consume(algorithm.run(0));
+    }
+}
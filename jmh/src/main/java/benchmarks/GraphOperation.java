@@ -0,0 +1,23 @@
+package benchmarks;
+
+/**
+ * One operation on a generated graph, as timed by the benchmarks. Created by {@link GraphOperations}.
+ */
+public interface GraphOperation {
+    /**
+     * Runs the operation once
+     *
+     * @param sample which of the sampled vertices or vertex pairs to use, for operations that take any
+     * @return result of the operation, to be consumed by the benchmark
+     */
+    Object run(int sample);
+
+    /**
+     * Undoes the change made by {@link #run(int)} with the same sample, outside of the timed section, so that
+     * every timed change sees the same graph. Does nothing for operations that change nothing
+     *
+     * @param sample sample given to the run to undo
+     */
+    default void restore(int sample) {
+    }
+}
@@ -0,0 +1,41 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Looks up the operations of the benchmarks. JMH rejects benchmarks in the default package, and code in a
+ * named package cannot refer to classes in the default package, where MyGraph lives. So the operations are
+ * built by BenchmarkOperations, in the default package, and only ever seen here as {@link GraphOperation}.
+ * The lookup is reflective, but only runs in setup: the timed calls go straight through the interface.
+ */
+final class GraphOperations {
+    /**
+     * Number of sampled vertices or vertex pairs of the query and mutation operations, a power of 2
+     */
+    static final int SAMPLES = 1 << 12;
+
+    private GraphOperations() {
+    }
+
+    /**
+     * Generates a graph, then creates an operation on it
+     *
+     * @param operation name of the operation
+     * @param shape     random, powerlaw, grid or path
+     * @param edges     approximate number of edges
+     */
+    static GraphOperation create(String operation, String shape, int edges) {
+        try {
+            return (GraphOperation) Class.forName("BenchmarkOperations")
+                    .getMethod("create", String.class, String.class, int.class, int.class)
+                    .invoke(null, operation, shape, edges, SAMPLES);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
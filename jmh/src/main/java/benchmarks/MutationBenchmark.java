@@ -0,0 +1,60 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Changes to the graph, one per call. Every change is undone after the call, outside of the timed section,
+ * so that no change is a no-op and every one sees the same graph: removals take vertices in the order of a
+ * random permutation, and added edges are all new. The undo runs per invocation, which adds the cost of a
+ * timestamp or two to each sample.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MutationBenchmark {
+    @Param({"addVertex", "addEdge", "addEdge/metrics", "removeVertex", "removeVertex/lazy"})
+    public String operation;
+
+    @Param({"random", "powerlaw", "grid", "path"})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int edges;
+
+    private GraphOperation mutation;
+    private int sample;
+
+    @Setup
+    public void setUp() {
+        mutation = GraphOperations.create(operation, shape, edges);
+    }
+
+    @Benchmark
+    public void mutation(Blackhole blackhole) {
+        blackhole.consume(mutation.run(sample));
+    }
+
+    @TearDown(Level.Invocation)
+    public void restore() {
+        mutation.restore(sample);
+        sample = (sample + 1) & (GraphOperations.SAMPLES - 1);
+    }
+}
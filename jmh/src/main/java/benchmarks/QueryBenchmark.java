@@ -0,0 +1,49 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries of single vertices and vertex pairs, cycling through vertices sampled at random.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class QueryBenchmark {
+    @Param({"isAdjacent", "getNeighbors", "forEachNeighbor"})
+    public String operation;
+
+    @Param({"random", "powerlaw", "grid", "path"})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int edges;
+
+    private GraphOperation query;
+    private int sample;
+
+    @Setup
+    public void setUp() {
+        query = GraphOperations.create(operation, shape, edges);
+    }
+
+    @Benchmark
+    public void query(Blackhole blackhole) {
+        blackhole.consume(query.run(sample++ & (GraphOperations.SAMPLES - 1)));
+    }
+}